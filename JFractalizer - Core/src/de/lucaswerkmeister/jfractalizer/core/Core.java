@@ -28,6 +28,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.JColorChooser;
 import javax.xml.parsers.ParserConfigurationException;
@@ -65,6 +66,8 @@ public final class Core {
 	private static Set<Output>			outputs							= new HashSet<>();
 	private static Set<ActionListener>	calculationFinishedListeners	= new HashSet<>();
 	private static Camera				camera;
+	private static int					threads							= Runtime.getRuntime().availableProcessors();
+	private static ForkJoinPool			threadPool;
 
 	/**
 	 * <code>private</code> constructor so the class can't be instantiated.
@@ -94,6 +97,19 @@ public final class Core {
 		return MainFrame.getInstance().colorChooser;
 	}
 
+	/**
+	 * Gets the thread pool that calculations should run on. The pool is shared by all fractals, and its size can be
+	 * set with the command line option <code>--core threads=N</code>; it defaults to the number of processors.
+	 * 
+	 * @return The global thread pool of the JFractalizer.
+	 */
+	public static synchronized ForkJoinPool getThreadPool() {
+		if (threadPool == null)
+			// asynchronous (FIFO) mode: the tasks are never joined, and they should run in the order they're submitted
+			threadPool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		return threadPool;
+	}
+
 	/**
 	 * Stops the currently running calculation.
 	 */
@@ -183,9 +199,11 @@ public final class Core {
 		currentColorPalette = newPalette;
 		if (showGui && gui != null)
 			gui.initMenu();
-		stopCalculation();
-		currentFractal.setColorPalette(newPalette);
-		startCalculation();
+		if (!currentFractal.recolor(newPalette)) {
+			stopCalculation();
+			currentFractal.setColorPalette(newPalette);
+			startCalculation();
+		}
 	}
 
 	private static void startRealm(String name) {
@@ -230,6 +248,11 @@ public final class Core {
 					case "debug":
 						debugging = Boolean.parseBoolean(optionContent);
 						return;
+					case "threads":
+						threads = Integer.parseInt(optionContent);
+						if (threads < 1)
+							throw new IllegalCommandLineException("At least one thread is needed!");
+						return;
 				}
 				throw new IllegalCommandLineException("Unknown option \"" + option + "\" in realm \"" + realm + "\"!");
 			case "input":
@@ -35,6 +35,31 @@ public interface ColorPalette extends SelectableService, CommandLineConfigurable
 	 */
 	public Color getColor(int passes);
 
+	/**
+	 * Gets the color that the palette assigns to the specified number of passes as an RGB value in the default sRGB
+	 * color model, as returned by {@link Color#getRGB()}. This must be the same as
+	 * <code>getColor(passes).getRGB()</code>, but implementations should avoid creating a {@link Color} object.
+	 * <p>
+	 * The same notes on synchronization as for {@link #getColor(int)} apply.
+	 * 
+	 * @param passes
+	 * @return
+	 */
+	public int getRgb(int passes);
+
+	/**
+	 * Compiles the palette into a lookup table for all passes up to <code>maxPasses</code>: The RGB value for
+	 * <code>passes</code> (including <code>-1</code>) is <code>compile(maxPasses)[passes + 1]</code>, and equal to
+	 * {@link #getRgb(int) getRgb(passes)}.
+	 * <p>
+	 * Callers must not modify the returned table. Since the palette might change after it was compiled, callers should
+	 * compile it again for each calculation.
+	 * 
+	 * @param maxPasses
+	 * @return
+	 */
+	public int[] compile(int maxPasses);
+
 	public void saveFractXml(TransformerHandler handler) throws SAXException;
 
 	public FractXmlPaletteLoader getFractXmlLoader();
@@ -41,12 +41,24 @@ public interface Fractal extends SelectableService, CommandLineConfigurable {
 	public Canvas getCanvas();
 
 	/**
-	 * Returns the current image.
+	 * Returns the current image. The returned image is a snapshot; it does not change when the fractal is calculated
+	 * again.
 	 * 
 	 * @return The image.
 	 */
 	public BufferedImage getImage();
 
+	/**
+	 * Returns the current image like {@link #getImage()}, but copies it into the specified image if that has the
+	 * right size and type, so that callers that need many snapshots, like a {@link Camera}, can recycle them.
+	 * 
+	 * @param image
+	 *            An image that was returned by this method or {@link #getImage()} before and isn't used anymore, or
+	 *            <code>null</code>.
+	 * @return The specified image, or a new one if it can't be reused.
+	 */
+	public BufferedImage getImage(BufferedImage image);
+
 	/**
 	 * Gets the current image size of the fractal.
 	 * 
@@ -54,6 +66,15 @@ public interface Fractal extends SelectableService, CommandLineConfigurable {
 	 */
 	public Dimension getImageSize();
 
+	/**
+	 * Sets the image size of the fractal for future calculations. The area of the fractal that the image shows is not
+	 * changed.
+	 * 
+	 * @param size
+	 *            The new image size.
+	 */
+	public void setImageSize(Dimension size);
+
 	/**
 	 * Suggests that the fractal use the specified image type for future {@link BufferedImage BufferedImages}.
 	 * <p>
@@ -83,6 +104,18 @@ public interface Fractal extends SelectableService, CommandLineConfigurable {
 	 */
 	public void setColorPalette(ColorPalette newPalette);
 
+	/**
+	 * Changes the {@link ColorPalette} of the fractal without calculating it again, if possible: If the last
+	 * calculation finished and the fractal kept enough information about it, the current image is redrawn with the new
+	 * palette.
+	 * 
+	 * @param newPalette
+	 *            The new color palette.
+	 * @return <code>true</code> if the image was redrawn, <code>false</code> if the fractal must be calculated again
+	 *         (in this case, the palette is not changed).
+	 */
+	public boolean recolor(ColorPalette newPalette);
+
 	/**
 	 * Starts the calculation.
 	 * <p>
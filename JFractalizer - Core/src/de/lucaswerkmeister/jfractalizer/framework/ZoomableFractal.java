@@ -1,5 +1,7 @@
 package de.lucaswerkmeister.jfractalizer.framework;
 
+import java.awt.image.BufferedImage;
+
 public interface ZoomableFractal extends Fractal {
 
 	/**
@@ -39,4 +41,37 @@ public interface ZoomableFractal extends Fractal {
 	 * @return The zoom factor as (width/height of start area) / (width/height of current area).
 	 */
 	public double getZoomFactor();
+
+	/**
+	 * Creates a new fractal with the same view and settings as this one, which can be zoomed and calculated
+	 * independently of this fractal, e.&nbsp;g. to calculate several frames of a film at once. The copy has no canvas,
+	 * and nothing of it is calculated yet.
+	 * <p>
+	 * This method shall never be called while the calculation is running.
+	 * 
+	 * @return The copy.
+	 */
+	public ZoomableFractal copy();
+
+	/**
+	 * Calculates the exponential map of the surroundings of the center of the current view: a strip whose columns are
+	 * the angles around the center, and whose rows are circles around it, with radii that grow exponentially from row
+	 * to row, so that the pixels of the strip are (nearly) square. A zoom into the center of the view can be
+	 * synthesized from the strip, each depth of it calculated only once.
+	 * <p>
+	 * Pixel <code>(x, y)</code> of the strip is the point at the angle <code>2&pi;x / width</code>, counterclockwise
+	 * from the positive real axis, and the radius <code>innerRadius * e<sup>2&pi;y / width</sup></code> times half the
+	 * diagonal of the current view.
+	 * <p>
+	 * This method shall never be called while the calculation is running.
+	 * 
+	 * @param width
+	 *            The number of columns of the strip.
+	 * @param height
+	 *            The number of rows of the strip.
+	 * @param innerRadius
+	 *            The radius of the first row, relative to half the diagonal of the current view.
+	 * @return The strip.
+	 */
+	public BufferedImage getExponentialMap(int width, int height, double innerRadius);
 }
@@ -4,6 +4,8 @@ import static de.lucaswerkmeister.jfractalizer.framework.Log.registerID;
 
 import java.awt.Rectangle;
 
+import de.lucaswerkmeister.jfractalizer.defaultPlugin.cameras.ExponentialMapCamera;
+import de.lucaswerkmeister.jfractalizer.defaultPlugin.cameras.KeyframeCamera;
 import de.lucaswerkmeister.jfractalizer.defaultPlugin.cameras.Steadicam;
 import de.lucaswerkmeister.jfractalizer.defaultPlugin.cif.CifCanvas;
 import de.lucaswerkmeister.jfractalizer.defaultPlugin.cif.CifFractal;
@@ -34,7 +36,21 @@ public class DefaultPlugin implements Plugin {
 		registerID(CifFractal.LOG_ZOOM, Level.INFO, this);
 		registerID(CifFractal.LOG_ZOOM_TO_START, Level.INFO, this);
 		registerID(CifFractal.LOG_SHUTDOWN, Level.INFO, this);
+		registerID(CifFractal.LOG_SAVED_PASSES, Level.INFO, this);
+		registerID(CifFractal.LOG_DEEP_ZOOM, Level.INFO, this);
+		registerID(CifFractal.LOG_FULL_PRECISION, Level.WARNING, this);
+		registerID(CifFractal.LOG_DOUBLE_DOUBLE, Level.INFO, this);
+		registerID(CifFractal.LOG_MIRRORED, Level.INFO, this);
+		registerID(CifFractal.LOG_RECOLORED, Level.INFO, this);
+		registerID(CifFractal.LOG_PREVIEW, Level.INFO, this);
+		registerID(CifFractal.LOG_ADAPTIVE, Level.INFO, this);
+		registerID(CifFractal.LOG_SHIFTED, Level.INFO, this);
+		registerID(CifFractal.LOG_REUSED, Level.INFO, this);
+		registerID(CifFractal.LOG_CACHED, Level.INFO, this);
+		registerID(CifFractal.LOG_TILE_CACHE, Level.INFO, this);
+		registerID(CifFractal.LOG_FRAME_HINT, Level.INFO, this);
 		registerID(CifCanvas.LOG_GO_TO_SELECTED_AREA, Level.INFO, this);
+		registerID(CifCanvas.LOG_PAN, Level.INFO, this);
 		registerID(CifMenuListener.LOG_EDIT_BOUNDARIES, Level.INFO, this);
 		registerID(CifMenuListener.LOG_EDIT_ADDITIONAL_PARAMETERS, Level.INFO, this);
 		registerID(CifMenuListener.LOG_RECALCULATE, Level.INFO, this);
@@ -58,7 +74,19 @@ public class DefaultPlugin implements Plugin {
 		registerID(Steadicam.LOG_END_FRAME, Level.INFO, this);
 		registerID(Steadicam.LOG_START_WRITE, Level.INFO, this);
 		registerID(Steadicam.LOG_END_WRITE, Level.INFO, this);
-		registerID(Steadicam.LOG_GC, Level.INFO, this);
+		registerID(Steadicam.LOG_PARALLEL_FRAMES, Level.INFO, this);
+		registerID(KeyframeCamera.LOG_ADDED_OUTPUT, Level.INFO, this);
+		registerID(KeyframeCamera.LOG_START_FILMING, Level.INFO, this);
+		registerID(KeyframeCamera.LOG_START_KEYFRAME, Level.INFO, this);
+		registerID(KeyframeCamera.LOG_END_KEYFRAME, Level.INFO, this);
+		registerID(KeyframeCamera.LOG_START_WRITE, Level.INFO, this);
+		registerID(KeyframeCamera.LOG_END_WRITE, Level.INFO, this);
+		registerID(ExponentialMapCamera.LOG_ADDED_OUTPUT, Level.INFO, this);
+		registerID(ExponentialMapCamera.LOG_START_FILMING, Level.INFO, this);
+		registerID(ExponentialMapCamera.LOG_START_MAP, Level.INFO, this);
+		registerID(ExponentialMapCamera.LOG_END_MAP, Level.INFO, this);
+		registerID(ExponentialMapCamera.LOG_START_WRITE, Level.INFO, this);
+		registerID(ExponentialMapCamera.LOG_END_WRITE, Level.INFO, this);
 	}
 
 	@Override
@@ -93,9 +121,48 @@ public class DefaultPlugin implements Plugin {
 						+ args[3];
 			case CifFractal.LOG_SHUTDOWN:
 				return args[0].getClass().getName() + ": Shutting down";
+			case CifFractal.LOG_SAVED_PASSES:
+				return args[0].getClass().getName() + ": Periodicity checking saved " + args[1] + " passes";
+			case CifFractal.LOG_DEEP_ZOOM:
+				return args[0].getClass().getName() + ": Deep zoom, reference orbit has " + args[1] + " passes ("
+						+ args[2] + " digits)";
+			case CifFractal.LOG_FULL_PRECISION:
+				return args[0].getClass().getName() + ": Perturbation failed for " + args[1]
+						+ " samples, iterated them with arbitrary precision";
+			case CifFractal.LOG_DOUBLE_DOUBLE:
+				return args[0].getClass().getName() + ": Double-double precision, origin " + args[1] + "+" + args[2]
+						+ "i";
+			case CifFractal.LOG_MIRRORED:
+				return args[0].getClass().getName() + ": Mirroring " + args[1];
+			case CifFractal.LOG_RECOLORED:
+				return args[0].getClass().getName() + ": Recolored with color palette " + args[1] + " in " + args[2]
+						+ " ms";
+			case CifFractal.LOG_PREVIEW:
+				return args[0].getClass().getName() + ": Preview with 1/" + args[1] + " resolution after " + args[2]
+						+ " ms";
+			case CifFractal.LOG_ADAPTIVE:
+				return args[0].getClass().getName() + ": Adaptive SuperSampling supersampled " + args[1] + " of "
+						+ args[2] + " pixels (" + (100 * (Long) args[1] / (Long) args[2]) + "%)";
+			case CifFractal.LOG_SHIFTED:
+				return args[0].getClass().getName() + ": Shifted image by " + args[1] + "|" + args[2]
+						+ " pixels, reusing " + args[3] + " pixels";
+			case CifFractal.LOG_REUSED:
+				return args[0].getClass().getName() + ": Took over " + args[1]
+						+ " samples of the last calculation, continuing " + args[2] + " suspended orbits";
+			case CifFractal.LOG_CACHED:
+				return args[0].getClass().getName() + ": Drew image from the render cache (" + args[1]
+						+ " cached images, " + args[2] + " MiB)";
+			case CifFractal.LOG_TILE_CACHE:
+				return args[0].getClass().getName() + ": Loaded " + args[1] + " of " + args[2]
+						+ " tiles from the tile cache";
+			case CifFractal.LOG_FRAME_HINT:
+				return args[0].getClass().getName() + ": Predicted the passes of " + args[1]
+						+ "% of the pixels from the last image";
 			case CifCanvas.LOG_GO_TO_SELECTED_AREA:
 				Rectangle rect = (Rectangle) args[1];
 				return "CifCanvas: Go to selected area " + rect.toString();
+			case CifCanvas.LOG_PAN:
+				return "CifCanvas: Pan by " + args[0] + "|" + args[1];
 			case CifMenuListener.LOG_EDIT_BOUNDARIES:
 				return "CifMenuListener: Edit boundaries (new boundaries: " + args[0] + ", " + args[1] + ")";
 			case CifMenuListener.LOG_EDIT_ADDITIONAL_PARAMETERS:
@@ -143,8 +210,34 @@ public class DefaultPlugin implements Plugin {
 				return "Steadicam: Started writing frame #" + args[0].toString();
 			case Steadicam.LOG_END_WRITE:
 				return "Steadicam: Finished writing frame #" + args[0].toString();
-			case Steadicam.LOG_GC:
-				return "Steadicam: Triggered a Garbage Collection.";
+			case Steadicam.LOG_PARALLEL_FRAMES:
+				return "Steadicam: Calculating " + args[0].toString() + " frames at once";
+			case KeyframeCamera.LOG_ADDED_OUTPUT:
+				return "Keyframe Camera: Added Output " + args[0].toString();
+			case KeyframeCamera.LOG_START_FILMING:
+				return "Keyframe Camera: Started filming of fractal " + args[0].toString();
+			case KeyframeCamera.LOG_START_KEYFRAME:
+				return "Keyframe Camera: Started calculation of keyframe #" + args[0].toString();
+			case KeyframeCamera.LOG_END_KEYFRAME:
+				return "Keyframe Camera: Finished calculation of keyframe #" + args[0].toString();
+			case KeyframeCamera.LOG_START_WRITE:
+				return "Keyframe Camera: Started writing frame #" + args[0].toString();
+			case KeyframeCamera.LOG_END_WRITE:
+				return "Keyframe Camera: Finished writing frame #" + args[0].toString();
+			case ExponentialMapCamera.LOG_ADDED_OUTPUT:
+				return "Exponential Map Camera: Added Output " + args[0].toString();
+			case ExponentialMapCamera.LOG_START_FILMING:
+				return "Exponential Map Camera: Started filming of fractal " + args[0].toString();
+			case ExponentialMapCamera.LOG_START_MAP:
+				return "Exponential Map Camera: Started calculation of the " + args[0] + "x" + args[1]
+						+ " exponential map";
+			case ExponentialMapCamera.LOG_END_MAP:
+				return "Exponential Map Camera: Finished calculation of the " + args[0] + "x" + args[1]
+						+ " exponential map";
+			case ExponentialMapCamera.LOG_START_WRITE:
+				return "Exponential Map Camera: Started writing frame #" + args[0].toString();
+			case ExponentialMapCamera.LOG_END_WRITE:
+				return "Exponential Map Camera: Finished writing frame #" + args[0].toString();
 		}
 		throw new IllegalArgumentException("Unknown log ID!");
 	}
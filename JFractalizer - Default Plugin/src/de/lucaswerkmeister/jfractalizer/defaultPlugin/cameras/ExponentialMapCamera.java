@@ -0,0 +1,269 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cameras;
+
+import static de.lucaswerkmeister.jfractalizer.framework.Log.log;
+
+import java.awt.Dimension;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import de.lucaswerkmeister.jfractalizer.core.Core;
+import de.lucaswerkmeister.jfractalizer.defaultPlugin.DefaultPlugin;
+import de.lucaswerkmeister.jfractalizer.framework.Camera;
+import de.lucaswerkmeister.jfractalizer.framework.IllegalCommandLineException;
+import de.lucaswerkmeister.jfractalizer.framework.Output;
+import de.lucaswerkmeister.jfractalizer.framework.ZoomableFractal;
+
+/**
+ * A {@link Camera} that films the same zoom as the {@link Steadicam}, but only calculates a single
+ * {@link ZoomableFractal#getExponentialMap(int, int, double) exponential map} of it: a strip whose rows are circles
+ * around the center of the zoom, from half a pixel of the last frame out to the corners of the first one, and whose
+ * columns are the angles around it. Each depth of the zoom is calculated only once, instead of in every frame that
+ * shows it.
+ * <p>
+ * The strip has as many columns as the circle through the corners of a frame has pixels, so it is never coarser than
+ * the frames. Each frame is remapped from the strip, the rows of the frame in parallel on the
+ * {@link Core#getThreadPool() thread pool}, interpolating bilinearly between the four nearest pixels of the strip.
+ * <p>
+ * Unlike the Steadicam, which raises the maximum number of passes as it zooms in, the whole strip is calculated with
+ * the maximum number of passes of the last frame.
+ *
+ * @author Lucas Werkmeister
+ */
+public class ExponentialMapCamera implements Camera {
+	private final Set<Output>	outputs				= new HashSet<>();
+	private double				zoom				= 1.05;
+	private Thread				zoomer;
+	public static final int		LOG_CLASS_PREFIX	= DefaultPlugin.LOG_PLUGIN_PREFIX + (((5 << 5) + (2 << 0)) << 8);
+	public static final int		LOG_ADDED_OUTPUT	= LOG_CLASS_PREFIX + 0;
+	public static final int		LOG_START_FILMING	= LOG_CLASS_PREFIX + 1;
+	public static final int		LOG_START_MAP		= LOG_CLASS_PREFIX + 2;
+	public static final int		LOG_END_MAP			= LOG_CLASS_PREFIX + 3;
+	public static final int		LOG_START_WRITE		= LOG_CLASS_PREFIX + 4;
+	public static final int		LOG_END_WRITE		= LOG_CLASS_PREFIX + 5;
+
+	/**
+	 * Frames are remapped in bands of this many rows.
+	 */
+	private static final int	BAND_HEIGHT			= 16;
+
+	@Override
+	public String getName() {
+		return "Exponential Map Camera";
+	}
+
+	@Override
+	public void handleCommandLineOption(String option, String optionName, String optionContent) {
+		switch (optionName) {
+			case "zoom":
+				final double value;
+				try {
+					value = Double.parseDouble(optionContent);
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalCommandLineException("Illegal value \"" + optionContent + "\" for option \""
+							+ optionName + "\", was expecting a number!", e);
+				}
+				if (value <= 1)
+					throw new IllegalCommandLineException("Option \"" + optionName + "\" must be greater than 1!");
+				zoom = value;
+				return;
+			default:
+				throw new IllegalCommandLineException("Unknown option \"" + option + "\" for Exponential Map Camera!");
+		}
+	}
+
+	@Override
+	public void addOutput(Output output) {
+		outputs.add(output);
+		log(LOG_ADDED_OUTPUT, output);
+	}
+
+	@Override
+	public void startFilming(final ZoomableFractal fractal) {
+		final int framesCount = (int) Math.ceil(Math.log(fractal.getZoomFactor()) / Math.log(zoom));
+		zoomer = new Thread("zoomer") {
+			@Override
+			public void run() {
+				film(fractal, framesCount);
+			}
+		};
+		zoomer.setPriority((int) Math.round((Thread.MAX_PRIORITY - Thread.MIN_PRIORITY) * 0.75 + Thread.MIN_PRIORITY));
+		zoomer.start();
+		log(LOG_START_FILMING, fractal);
+	}
+
+	/**
+	 * Films the zoom out of the current view of the specified fractal, which is the last frame of the film.
+	 */
+	private void film(final ZoomableFractal fractal, final int framesCount) {
+		for (Output o : outputs)
+			o.setNumbers(Steadicam.getCountdown(framesCount, 0, 1));
+		if (framesCount <= 0)
+			return;
+		final Dimension size = fractal.getImageSize();
+		// half the diagonal of a frame, in pixels
+		final double halfDiagonal = Math.hypot(size.width, size.height) / 2;
+		final int mapWidth = (int) Math.ceil(2 * Math.PI * halfDiagonal);
+		final double rowStep = 2 * Math.PI / mapWidth;
+		// the first row is half a pixel of the last frame away from the center, the last one passes the corners of the
+		// first frame
+		final double innerRadius = 0.5 / halfDiagonal;
+		final int mapHeight = (int) Math.ceil(((framesCount - 1) * Math.log(zoom) - Math.log(innerRadius)) / rowStep)
+				+ 2;
+		log(LOG_START_MAP, mapWidth, mapHeight);
+		final BufferedImage map = fractal.getExponentialMap(mapWidth, mapHeight, innerRadius);
+		log(LOG_END_MAP, mapWidth, mapHeight);
+		final int[] strip = getPixels(map);
+		final int type = map.getType();
+
+		// the position of each pixel in the strip, for the last frame; zooming out only moves the pixels down the strip
+		final float[] rows = new float[size.width * size.height];
+		final float[] columns = new float[size.width * size.height];
+		for (int y = 0; y < size.height; y++)
+			for (int x = 0; x < size.width; x++) {
+				// the sample of pixel (x, y) lies at its upper left corner
+				final double real = x - size.width / 2.0, imag = size.height / 2.0 - y;
+				final double angle = Math.atan2(imag, real);
+				rows[y * size.width + x] = (float) (Math.log(Math.hypot(real, imag) / 0.5) / rowStep);
+				columns[y * size.width + x] = (float) ((angle < 0 ? angle + 2 * Math.PI : angle) / rowStep);
+			}
+		final int[] frame = new int[size.width * size.height];
+		BufferedImage image = null;
+		for (int i = 0; i < framesCount; i++) {
+			remap(strip, mapWidth, mapHeight, rows, columns, i * Math.log(zoom) / rowStep, frame, size);
+			if (image == null)
+				image = new BufferedImage(size.width, size.height, type);
+			image.setRGB(0, 0, size.width, size.height, frame, 0, size.width);
+
+			final int number = framesCount - i;
+			log(LOG_START_WRITE, number);
+			for (Output o : outputs)
+				try {
+					o.writeImage(image);
+				}
+				catch (IOException e) {
+					e.printStackTrace();
+				}
+			log(LOG_END_WRITE, number);
+		}
+	}
+
+	/**
+	 * Draws a frame from the strip.
+	 *
+	 * @param strip
+	 *            The pixels of the strip.
+	 * @param mapWidth
+	 *            The number of columns of the strip.
+	 * @param mapHeight
+	 *            The number of rows of the strip.
+	 * @param rows
+	 *            The row of each frame pixel in the strip, for the last frame; <code>-Infinity</code> for the center.
+	 * @param columns
+	 *            The column of each frame pixel in the strip.
+	 * @param rowOffset
+	 *            How many rows further out than in the last frame the pixels of this frame lie.
+	 * @param frame
+	 *            The pixels of the frame.
+	 * @param size
+	 *            The size of the frame in pixels.
+	 */
+	private static void remap(final int[] strip, final int mapWidth, final int mapHeight, final float[] rows,
+			final float[] columns, final double rowOffset, final int[] frame, final Dimension size) {
+		final ForkJoinPool threadPool = Core.getThreadPool();
+		final List<Future<?>> tasks = new ArrayList<>();
+		for (int band = 0; band < size.height; band += BAND_HEIGHT) {
+			final int first = band * size.width;
+			final int last = Math.min(size.height, band + BAND_HEIGHT) * size.width;
+			tasks.add(threadPool.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int pixel = first; pixel < last; pixel++) {
+						// pixels inside the first row are drawn from it, and the last row is never passed
+						final double row = Math.min(mapHeight - 1, Math.max(0, rows[pixel] + rowOffset));
+						final double column = columns[pixel];
+						final int row0 = Math.min(mapHeight - 2, (int) row);
+						final int column0 = Math.min(mapWidth - 1, (int) column);
+						// the columns wrap around
+						final int column1 = column0 == mapWidth - 1 ? 0 : column0 + 1;
+						final double weightY = row - row0, weightX = column - column0;
+						final int upperLeft = strip[row0 * mapWidth + column0];
+						final int upperRight = strip[row0 * mapWidth + column1];
+						final int lowerLeft = strip[(row0 + 1) * mapWidth + column0];
+						final int lowerRight = strip[(row0 + 1) * mapWidth + column1];
+						int rgb = 0xFF000000;
+						for (int shift = 0; shift < 24; shift += 8) {
+							final double upper = (1 - weightX) * ((upperLeft >> shift) & 0xFF) + weightX
+									* ((upperRight >> shift) & 0xFF);
+							final double lower = (1 - weightX) * ((lowerLeft >> shift) & 0xFF) + weightX
+									* ((lowerRight >> shift) & 0xFF);
+							rgb |= (int) Math.round((1 - weightY) * upper + weightY * lower) << shift;
+						}
+						frame[pixel] = rgb;
+					}
+				}
+			}));
+		}
+		try {
+			for (Future<?> task : tasks)
+				task.get();
+		}
+		catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException("Could not remap the exponential map!", e);
+		}
+	}
+
+	/**
+	 * @return the pixels of the specified image in {@link BufferedImage#TYPE_INT_ARGB} format, without copying them if
+	 *         the image already stores them like that
+	 */
+	private static int[] getPixels(final BufferedImage image) {
+		if (image.getType() == BufferedImage.TYPE_INT_ARGB && image.getRaster().getParent() == null)
+			return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+
+	@Override
+	public void awaitCalculation() {
+		if (zoomer != null)
+			try {
+				zoomer.join();
+			}
+			catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+	}
+
+	@Override
+	public void addCalculationFinishedListener(final ActionListener listener) {
+		new Thread() {
+			@Override
+			public void run() {
+				awaitCalculation();
+				listener.actionPerformed(null);
+			}
+		}.start();
+	}
+}
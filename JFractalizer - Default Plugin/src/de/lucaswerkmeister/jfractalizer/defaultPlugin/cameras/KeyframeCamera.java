@@ -0,0 +1,384 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cameras;
+
+import static de.lucaswerkmeister.jfractalizer.framework.Log.log;
+
+import java.awt.Dimension;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import de.lucaswerkmeister.jfractalizer.core.Core;
+import de.lucaswerkmeister.jfractalizer.defaultPlugin.DefaultPlugin;
+import de.lucaswerkmeister.jfractalizer.framework.Camera;
+import de.lucaswerkmeister.jfractalizer.framework.IllegalCommandLineException;
+import de.lucaswerkmeister.jfractalizer.framework.Output;
+import de.lucaswerkmeister.jfractalizer.framework.ZoomableFractal;
+
+/**
+ * A {@link Camera} that films the same zoom as the {@link Steadicam}, but only calculates keyframes: one for each step
+ * of <code>keyframeZoom</code> (by default, each time the view doubles in size), at <code>keyframeZoom</code> times
+ * the size of the frames. All frames are synthesized from the two keyframes around them: the outer keyframe is scaled
+ * and cropped to the view of the frame, and the inner keyframe, which has more detail, is scaled down into its middle.
+ * <p>
+ * Each output pixel is the average of the keyframe pixels under it, weighted by how much of them it covers; since
+ * keyframes are never scaled up, this doesn't blur the frames. The rows of each frame are resampled in parallel on the
+ * {@link Core#getThreadPool() thread pool}, while the next keyframe is being calculated.
+ * <p>
+ * The film differs from that of the Steadicam in two ways, because each keyframe is zoomed out of the last one with
+ * {@link ZoomableFractal#zoom(int, int, double)} instead of {@link ZoomableFractal#zoomToStart(int, int, double)}:
+ * Frames can only be synthesized if all keyframes share the same center, so views that reach the border of the start
+ * area aren't moved back into it. And maxPasses is lowered once per keyframe instead of once per frame, which doesn't
+ * compound to quite the same number of passes.
+ *
+ * @author Lucas Werkmeister
+ */
+public class KeyframeCamera implements Camera {
+	private final Set<Output>	outputs				= new HashSet<>();
+	private double				zoom				= 1.05;
+	private double				keyframeZoom		= 2;
+	private Thread				zoomer;
+	public static final int		LOG_CLASS_PREFIX	= DefaultPlugin.LOG_PLUGIN_PREFIX + (((5 << 5) + (1 << 0)) << 8);
+	public static final int		LOG_ADDED_OUTPUT	= LOG_CLASS_PREFIX + 0;
+	public static final int		LOG_START_FILMING	= LOG_CLASS_PREFIX + 1;
+	public static final int		LOG_START_KEYFRAME	= LOG_CLASS_PREFIX + 2;
+	public static final int		LOG_END_KEYFRAME	= LOG_CLASS_PREFIX + 3;
+	public static final int		LOG_START_WRITE		= LOG_CLASS_PREFIX + 4;
+	public static final int		LOG_END_WRITE		= LOG_CLASS_PREFIX + 5;
+
+	/**
+	 * Frames are resampled in bands of this many rows.
+	 */
+	private static final int	BAND_HEIGHT			= 16;
+	/**
+	 * Frames whose size differs from that of a keyframe by less than this factor are considered to have that size.
+	 */
+	private static final double	EPSILON				= 1e-9;
+	/**
+	 * Output pixels that extend beyond a keyframe by less than this fraction of a keyframe pixel are still drawn from
+	 * it.
+	 */
+	private static final double	PIXEL_TOLERANCE		= 1e-3;
+
+	@Override
+	public String getName() {
+		return "Keyframe Camera";
+	}
+
+	@Override
+	public void handleCommandLineOption(String option, String optionName, String optionContent) {
+		final double value;
+		try {
+			value = Double.parseDouble(optionContent);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalCommandLineException("Illegal value \"" + optionContent + "\" for option \"" + optionName
+					+ "\", was expecting a number!", e);
+		}
+		if (value <= 1)
+			throw new IllegalCommandLineException("Option \"" + optionName + "\" must be greater than 1!");
+		switch (optionName) {
+			case "zoom":
+				zoom = value;
+				return;
+			case "keyframeZoom":
+				keyframeZoom = value;
+				return;
+			default:
+				throw new IllegalCommandLineException("Unknown option \"" + option + "\" for Keyframe Camera!");
+		}
+	}
+
+	@Override
+	public void addOutput(Output output) {
+		outputs.add(output);
+		log(LOG_ADDED_OUTPUT, output);
+	}
+
+	@Override
+	public void startFilming(final ZoomableFractal fractal) {
+		final int framesCount = (int) Math.ceil(Math.log(fractal.getZoomFactor()) / Math.log(zoom));
+		zoomer = new Thread("zoomer") {
+			@Override
+			public void run() {
+				film(fractal, framesCount);
+			}
+		};
+		zoomer.setPriority((int) Math.round((Thread.MAX_PRIORITY - Thread.MIN_PRIORITY) * 0.75 + Thread.MIN_PRIORITY));
+		zoomer.start();
+		log(LOG_START_FILMING, fractal);
+	}
+
+	/**
+	 * Films the zoom out of the current view of the specified fractal, which is the last frame of the film.
+	 */
+	private void film(final ZoomableFractal fractal, final int framesCount) {
+		for (Output o : outputs)
+			o.setNumbers(Steadicam.getCountdown(framesCount, 0, 1));
+		if (framesCount <= 0)
+			return;
+		final Dimension size = fractal.getImageSize();
+		final Dimension keyframeSize = new Dimension((int) Math.round(size.width * keyframeZoom),
+				(int) Math.round(size.height * keyframeZoom));
+		final int centerX = size.width / 2;
+		final int centerY = size.height / 2;
+		// keyframe k is keyframeZoom^k times as large as the first frame, and is needed for the frames between
+		// keyframes k - 1 and k + 1
+		final int lastKeyframe = getKeyframe(framesCount - 1) + 1;
+		final List<Keyframe> keyframes = new ArrayList<>();
+		final int[] frame = new int[size.width * size.height];
+		BufferedImage image = null;
+		for (int i = 0; i < framesCount; i++) {
+			final int k = getKeyframe(i);
+			// the keyframes of this frame, and the one after them, are calculated (or queued) while it is synthesized
+			while (keyframes.size() <= Math.min(k + 2, lastKeyframe)) {
+				keyframes.add(new Keyframe(fractal, keyframes.size(), Math.pow(keyframeZoom, keyframes.size()),
+						keyframeSize));
+				// not zoomToStart, which might move the keyframe off the center of the frames (see above)
+				fractal.zoom(centerX, centerY, keyframeZoom);
+			}
+			if (k > 0)
+				// not needed anymore
+				keyframes.set(k - 1, null);
+			final double frameSize = Math.pow(zoom, i);
+			final Keyframe inner = keyframes.get(k);
+			if (frameSize > inner.size * (1 + EPSILON))
+				resample(keyframes.get(k + 1), frameSize, frame, size, false);
+			resample(inner, frameSize, frame, size, true);
+			if (image == null)
+				image = new BufferedImage(size.width, size.height, inner.type);
+			image.setRGB(0, 0, size.width, size.height, frame, 0, size.width);
+
+			final int number = framesCount - i;
+			log(LOG_START_WRITE, number);
+			for (Output o : outputs)
+				try {
+					o.writeImage(image);
+				}
+				catch (IOException e) {
+					e.printStackTrace();
+				}
+			log(LOG_END_WRITE, number);
+		}
+	}
+
+	/**
+	 * @return the index of the largest keyframe that isn't larger than the frame with the specified index
+	 */
+	private int getKeyframe(final int frame) {
+		return (int) Math.floor(frame * Math.log(zoom) / Math.log(keyframeZoom) + EPSILON);
+	}
+
+	/**
+	 * Draws the specified keyframe into the specified frame.
+	 *
+	 * @param keyframe
+	 *            The keyframe.
+	 * @param frameSize
+	 *            The size of the view of the frame, relative to the first frame.
+	 * @param frame
+	 *            The pixels of the frame.
+	 * @param size
+	 *            The size of the frame in pixels.
+	 * @param clip
+	 *            Whether to draw only the pixels that lie inside the keyframe; otherwise, the keyframe must cover the
+	 *            whole frame.
+	 */
+	private static void resample(final Keyframe keyframe, final double frameSize, final int[] frame,
+			final Dimension size, final boolean clip) {
+		final int[] pixels = keyframe.getPixels();
+		// keyframe pixels per frame pixel, and the position of the frame in the keyframe, in keyframe pixels
+		final double scaleX = frameSize / keyframe.size * keyframe.width / size.width;
+		final double scaleY = frameSize / keyframe.size * keyframe.height / size.height;
+		final double offsetX = (keyframe.width - size.width * scaleX) / 2;
+		final double offsetY = (keyframe.height - size.height * scaleY) / 2;
+		final int minX, maxX, minY, maxY;
+		if (clip) {
+			minX = Math.max(0, (int) Math.ceil((-offsetX - PIXEL_TOLERANCE) / scaleX));
+			maxX = Math.min(size.width, (int) Math.floor((keyframe.width - offsetX + PIXEL_TOLERANCE) / scaleX));
+			minY = Math.max(0, (int) Math.ceil((-offsetY - PIXEL_TOLERANCE) / scaleY));
+			maxY = Math.min(size.height, (int) Math.floor((keyframe.height - offsetY + PIXEL_TOLERANCE) / scaleY));
+			if (minX >= maxX || minY >= maxY)
+				return;
+		}
+		else {
+			minX = minY = 0;
+			maxX = size.width;
+			maxY = size.height;
+		}
+		final Filter columns = new Filter(minX, maxX, offsetX, scaleX, keyframe.width);
+		final Filter rows = new Filter(minY, maxY, offsetY, scaleY, keyframe.height);
+
+		final ForkJoinPool threadPool = Core.getThreadPool();
+		final List<Future<?>> tasks = new ArrayList<>();
+		for (int band = minY; band < maxY; band += BAND_HEIGHT) {
+			final int firstRow = band;
+			final int lastRow = Math.min(maxY, band + BAND_HEIGHT);
+			tasks.add(threadPool.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int y = firstRow; y < lastRow; y++) {
+						final int firstY = rows.first[y - minY];
+						final double[] weightsY = rows.weights[y - minY];
+						for (int x = minX; x < maxX; x++) {
+							final int firstX = columns.first[x - minX];
+							final double[] weightsX = columns.weights[x - minX];
+							double red = 0, green = 0, blue = 0;
+							for (int j = 0; j < weightsY.length; j++) {
+								final int row = (firstY + j) * keyframe.width + firstX;
+								for (int i = 0; i < weightsX.length; i++) {
+									final int pixel = pixels[row + i];
+									final double weight = weightsY[j] * weightsX[i];
+									red += weight * ((pixel >> 16) & 0xFF);
+									green += weight * ((pixel >> 8) & 0xFF);
+									blue += weight * (pixel & 0xFF);
+								}
+							}
+							frame[y * size.width + x] = 0xFF000000 | (int) Math.round(red) << 16
+									| (int) Math.round(green) << 8 | (int) Math.round(blue);
+						}
+					}
+				}
+			}));
+		}
+		try {
+			for (Future<?> task : tasks)
+				task.get();
+		}
+		catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException("Could not resample keyframe " + keyframe.index + "!", e);
+		}
+	}
+
+	@Override
+	public void awaitCalculation() {
+		if (zoomer != null)
+			try {
+				zoomer.join();
+			}
+			catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+	}
+
+	@Override
+	public void addCalculationFinishedListener(final ActionListener listener) {
+		new Thread() {
+			@Override
+			public void run() {
+				awaitCalculation();
+				listener.actionPerformed(null);
+			}
+		}.start();
+	}
+
+	/**
+	 * A keyframe, which is calculated on its own copy of the fractal.
+	 */
+	private static final class Keyframe {
+		final int				index;
+		/**
+		 * The size of the view, relative to the first frame.
+		 */
+		final double			size;
+		final int				width, height;
+		int						type;
+		private ZoomableFractal	fractal;
+		private int[]			pixels;
+
+		/**
+		 * Starts the calculation of the current view of the specified fractal at the specified size.
+		 */
+		Keyframe(final ZoomableFractal view, final int index, final double size, final Dimension imageSize) {
+			this.index = index;
+			this.size = size;
+			width = imageSize.width;
+			height = imageSize.height;
+			fractal = view.copy();
+			fractal.setImageSize(imageSize);
+			log(LOG_START_KEYFRAME, index);
+			fractal.startCalculation();
+		}
+
+		/**
+		 * Waits until the keyframe is calculated.
+		 *
+		 * @return The pixels of the keyframe, in {@link BufferedImage#TYPE_INT_ARGB} format.
+		 */
+		synchronized int[] getPixels() {
+			if (pixels == null) {
+				fractal.awaitCalculation();
+				log(LOG_END_KEYFRAME, index);
+				final BufferedImage image = fractal.getImage();
+				type = image.getType();
+				pixels = image.getRGB(0, 0, width, height, null, 0, width);
+				fractal = null;
+			}
+			return pixels;
+		}
+	}
+
+	/**
+	 * The weights of the keyframe pixels under each output pixel along one axis.
+	 */
+	private static final class Filter {
+		/**
+		 * The first keyframe pixel under each output pixel, and the weights of it and the following pixels.
+		 */
+		final int[]			first;
+		final double[][]	weights;
+
+		/**
+		 * @param min
+		 *            The first output pixel.
+		 * @param max
+		 *            The output pixel after the last one.
+		 * @param offset
+		 *            The position of output pixel <code>0</code> in keyframe pixels.
+		 * @param scale
+		 *            The number of keyframe pixels per output pixel.
+		 * @param length
+		 *            The number of keyframe pixels.
+		 */
+		Filter(final int min, final int max, final double offset, final double scale, final int length) {
+			first = new int[max - min];
+			weights = new double[max - min][];
+			for (int i = min; i < max; i++) {
+				final double start = Math.max(0, offset + i * scale);
+				final double end = Math.min(length, offset + (i + 1) * scale);
+				final int firstPixel = Math.min(length - 1, (int) Math.floor(start));
+				final int lastPixel = Math.max(firstPixel, Math.min(length - 1, (int) Math.ceil(end) - 1));
+				final double[] pixelWeights = new double[lastPixel - firstPixel + 1];
+				double sum = 0;
+				for (int pixel = firstPixel; pixel <= lastPixel; pixel++) {
+					final double overlap = Math.min(end, pixel + 1) - Math.max(start, pixel);
+					pixelWeights[pixel - firstPixel] = Math.max(0, overlap);
+					sum += pixelWeights[pixel - firstPixel];
+				}
+				for (int pixel = 0; pixel < pixelWeights.length; pixel++)
+					pixelWeights[pixel] = sum > 0 ? pixelWeights[pixel] / sum : 1.0 / pixelWeights.length;
+				first[i - min] = firstPixel;
+				weights[i - min] = pixelWeights;
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cameras;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Passes items that are produced in any order by several threads on to a consumer in the order of their indices.
+ * Items that arrive early wait in the buffer until all items before them were taken. Producers that get too far ahead
+ * of the consumer are blocked, so that the buffer never holds more than a fixed number of items.
+ * <p>
+ * A consumer that stops before it took all items closes the buffer, which turns the producers away.
+ *
+ * @author Lucas Werkmeister
+ */
+final class ReorderBuffer<T> {
+	private final Map<Integer, T>	items	= new HashMap<>();
+	private final int				capacity;
+	private int						next	= 0;
+	private boolean					closed	= false;
+
+	/**
+	 * Creates a new reorder buffer.
+	 *
+	 * @param capacity
+	 *            How far the indices of the items may be ahead of the next item that the consumer takes. It must be at
+	 *            least <code>1</code>.
+	 */
+	ReorderBuffer(final int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Adds the item with the specified index, waiting until the consumer has taken all items up to
+	 * <code>index - capacity</code>. Each index from <code>0</code> on must be added exactly once.
+	 *
+	 * @return <code>true</code> if the item was added, <code>false</code> if the buffer was closed, in which case the
+	 *         producer should stop.
+	 */
+	synchronized boolean put(final int index, final T item) throws InterruptedException {
+		while (!closed && index >= next + capacity)
+			wait();
+		finish(index, item);
+		return !closed;
+	}
+
+	/**
+	 * Adds the item with the specified index without waiting, even if that exceeds the capacity. This is meant for the
+	 * item that marks the end, after which no more items are added. If the buffer was closed, the item is dropped.
+	 */
+	synchronized void finish(final int index, final T item) {
+		if (closed)
+			return;
+		items.put(index, item);
+		notifyAll();
+	}
+
+	/**
+	 * Removes the next item, waiting until it was added.
+	 *
+	 * @return The item with the lowest index that wasn't taken yet.
+	 */
+	synchronized T take() throws InterruptedException {
+		while (!items.containsKey(next))
+			wait();
+		notifyAll();
+		return items.remove(next++);
+	}
+
+	/**
+	 * Closes the buffer when the consumer stops taking items: The items that weren't taken are dropped, and all
+	 * producers, including those that are waiting, are turned away.
+	 */
+	synchronized void close() {
+		closed = true;
+		items.clear();
+		notifyAll();
+	}
+
+	/**
+	 * @return <code>true</code> if the buffer was {@link #close() closed}, <code>false</code> otherwise
+	 */
+	synchronized boolean isClosed() {
+		return closed;
+	}
+}
@@ -5,12 +5,15 @@ import static de.lucaswerkmeister.jfractalizer.framework.Log.log;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import de.lucaswerkmeister.jfractalizer.core.Core;
 import de.lucaswerkmeister.jfractalizer.defaultPlugin.DefaultPlugin;
 import de.lucaswerkmeister.jfractalizer.framework.Camera;
 import de.lucaswerkmeister.jfractalizer.framework.IllegalCommandLineException;
@@ -23,7 +26,14 @@ public class Steadicam implements Camera {
 	private double				zoom				= 1.05;
 	private int					frame				= 0;
 	private int					modulus				= 1;
+	/**
+	 * How many frames are calculated at once, each by its own {@link ZoomableFractal#copy() copy} of the fractal, so
+	 * that the threads that finished their tiles of one frame can already work on the next ones; or <code>0</code> to
+	 * use up to four, but not more than there are threads.
+	 */
+	private int					parallelFrames		= 0;
 	private Thread				zoomer;
+	private Thread				sender;
 	public static final int		LOG_CLASS_PREFIX	= DefaultPlugin.LOG_PLUGIN_PREFIX + (((5 << 5) + (0 << 0)) << 8);
 	public static final int		LOG_ADDED_OUTPUT	= LOG_CLASS_PREFIX + 0;
 	public static final int		LOG_START_FILMING	= LOG_CLASS_PREFIX + 1;
@@ -31,7 +41,7 @@ public class Steadicam implements Camera {
 	public static final int		LOG_END_FRAME		= LOG_CLASS_PREFIX + 3;
 	public static final int		LOG_START_WRITE		= LOG_CLASS_PREFIX + 4;
 	public static final int		LOG_END_WRITE		= LOG_CLASS_PREFIX + 5;
-	public static final int		LOG_GC				= LOG_CLASS_PREFIX + 6;
+	public static final int		LOG_PARALLEL_FRAMES	= LOG_CLASS_PREFIX + 7;
 
 	@Override
 	public String getName() {
@@ -66,6 +76,16 @@ public class Steadicam implements Camera {
 					}
 				}
 				throw new IllegalCommandLineException("Wrong usage of option \"frames\", must contain a '%' character!");
+			case "parallelFrames":
+				try {
+					parallelFrames = Integer.parseInt(optionContent);
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalCommandLineException("Could not parse \"parallelFrames\" option!", e);
+				}
+				if (parallelFrames < 1)
+					throw new IllegalCommandLineException("At least one frame must be calculated at once!");
+				return;
 			default:
 				throw new IllegalCommandLineException("Unknown option \"" + option + "\" for Steadicam!");
 		}
@@ -79,7 +99,13 @@ public class Steadicam implements Camera {
 
 	@Override
 	public void startFilming(final ZoomableFractal fractal) {
-		final BlockingQueue<BufferedImage> images = new LinkedBlockingQueue<>();
+		final int copies = parallelFrames > 0 ? parallelFrames : Math.min(4, Core.getThreadPool().getParallelism());
+		// the frames are passed to the sender by their index in the countdown, and end with lastImage; each copy of the
+		// fractal may be one frame ahead of the sender besides the frame it's calculating
+		final ReorderBuffer<BufferedImage> images = new ReorderBuffer<>(2 * copies);
+		// the frames that the sender has written, which are reused for the next frames; together with the capacity
+		// of the reorder buffer, this keeps the number of frames constant
+		final Queue<BufferedImage> buffers = new ConcurrentLinkedQueue<>();
 		final BufferedImage lastImage = new BufferedImage(1, 1, BufferedImage.TYPE_3BYTE_BGR);
 		final int framesCount = (int) Math.ceil(Math.log(fractal.getZoomFactor()) / Math.log(zoom));
 
@@ -88,35 +114,75 @@ public class Steadicam implements Camera {
 			public void run() {
 				for (Output o : outputs)
 					o.setNumbers(getCountdown(framesCount, frame, modulus));
-				int centerX = fractal.getImageSize().width / 2;
-				int centerY = fractal.getImageSize().height / 2;
+				final int centerX = fractal.getImageSize().width / 2;
+				final int centerY = fractal.getImageSize().height / 2;
 				for (int i = 0; i < frame; i++)
 					fractal.zoomToStart(centerX, centerY, zoom);
-				double myZoom = Math.pow(zoom, modulus);
-				Iterator<Integer> countdown = getCountdown(framesCount, frame, modulus);
-				while (countdown.hasNext()) {
-					int number = countdown.next();
-					log(LOG_START_FRAME, number);
-					fractal.startCalculation();
-					fractal.awaitCalculation();
-					log(LOG_END_FRAME, number);
-					try {
-						images.put(fractal.getImage());
-					}
-					catch (InterruptedException e) {
-						e.printStackTrace();
-					}
-					fractal.zoomToStart(centerX, centerY, myZoom);
-				}
-				try {
-					images.put(lastImage);
+				final double myZoom = Math.pow(zoom, modulus);
+				final List<Integer> numbers = new ArrayList<>();
+				for (Iterator<Integer> countdown = getCountdown(framesCount, frame, modulus); countdown.hasNext();)
+					numbers.add(countdown.next());
+				final int fractalsCount = Math.max(1, Math.min(numbers.size(), copies));
+				log(LOG_PARALLEL_FRAMES, fractalsCount);
+				// copy n calculates every fractalsCount-th frame from frame n on; zooming it by the same steps as a
+				// single fractal would be zoomed yields exactly the same views
+				final ZoomableFractal[] fractals = new ZoomableFractal[fractalsCount];
+				fractals[0] = fractal;
+				for (int n = 1; n < fractalsCount; n++) {
+					fractals[n] = fractal.copy();
+					for (int i = 0; i < n; i++)
+						fractals[n].zoomToStart(centerX, centerY, myZoom);
 				}
-				catch (InterruptedException e) {
-					e.printStackTrace();
+				final Thread[] cameramen = new Thread[fractalsCount];
+				for (int n = 0; n < fractalsCount; n++) {
+					final ZoomableFractal copy = fractals[n];
+					final int first = n;
+					cameramen[n] = new Thread("zoomer " + (n + 1)) {
+						@Override
+						public void run() {
+							int index = first;
+							boolean finished = false;
+							try {
+								for (; index < numbers.size() && !images.isClosed(); index += fractalsCount) {
+									if (index > first)
+										for (int i = 0; i < fractalsCount; i++)
+											copy.zoomToStart(centerX, centerY, myZoom);
+									final int number = numbers.get(index);
+									log(LOG_START_FRAME, number);
+									copy.startCalculation();
+									copy.awaitCalculation();
+									log(LOG_END_FRAME, number);
+									if (!images.put(index, copy.getImage(buffers.poll())))
+										break;
+								}
+								finished = index >= numbers.size();
+							}
+							catch (InterruptedException e) {
+								e.printStackTrace();
+							}
+							finally {
+								if (!finished)
+									// the sender writes the frames before this one and stops
+									images.finish(index, lastImage);
+							}
+						}
+					};
+					cameramen[n].start();
 				}
+				for (Thread cameraman : cameramen)
+					while (cameraman.isAlive())
+						try {
+							cameraman.join();
+						}
+						catch (InterruptedException e) {
+							// the sender stopped early, so the frames that are still being calculated are dropped
+							for (ZoomableFractal copy : fractals)
+								copy.stopCalculation();
+						}
+				images.finish(numbers.size(), lastImage);
 			}
 		};
-		final Thread sender = new Thread("sender") {
+		sender = new Thread("sender") {
 			@Override
 			public void run() {
 				Iterator<Integer> countdown = getCountdown(framesCount, frame, modulus);
@@ -125,8 +191,12 @@ public class Steadicam implements Camera {
 					try {
 						image = images.take();
 						int number = countdown.next();
-						if (image == lastImage)
+						if (image == lastImage) {
+							// a cameraman failed, or all frames were written; the other cameramen stop
+							images.close();
+							zoomer.interrupt();
 							return;
+						}
 						log(LOG_START_WRITE, number);
 						for (Output o : outputs)
 							try {
@@ -136,10 +206,7 @@ public class Steadicam implements Camera {
 								e.printStackTrace();
 							}
 						log(LOG_END_WRITE, number);
-						if (number % 100 == 0) {
-							System.gc();
-							log(LOG_GC);
-						}
+						buffers.offer(image);
 					}
 					catch (InterruptedException e1) {
 						e1.printStackTrace();
@@ -155,7 +222,7 @@ public class Steadicam implements Camera {
 		sender.start();
 	}
 
-	private static Iterator<Integer> getCountdown(final int start, final int offset, final int modulus) {
+	static Iterator<Integer> getCountdown(final int start, final int offset, final int modulus) {
 		return new Iterator<Integer>() {
 			int	current	= start - offset + modulus;
 
@@ -181,6 +248,8 @@ public class Steadicam implements Camera {
 		if (zoomer != null)
 			try {
 				zoomer.join();
+				// the last frames are only written when the sender is done
+				sender.join();
 			}
 			catch (InterruptedException e) {
 				e.printStackTrace();
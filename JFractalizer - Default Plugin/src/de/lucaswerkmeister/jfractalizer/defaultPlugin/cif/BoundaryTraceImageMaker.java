@@ -0,0 +1,279 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * This implementation of a CifImageMaker traces the boundaries of all regions of equal passes, and then fills their
+ * insides without calculating them.
+ * <p>
+ * Starting with the border of the image, each traced pixel calculates its four neighbors; where a neighbor has
+ * different passes, both lie on a boundary, and the neighbor (and the diagonal neighbors next to it) are traced as
+ * well. Afterwards, every pixel that was not calculated lies inside a region, and gets the passes of its left
+ * neighbor.
+ * <p>
+ * The regions of equal passes are usually rings around the fractal, so the boundary on the inside of a ring is not
+ * connected to the one on its outside. To find it, a sparse grid of pixels is calculated first, and each row of
+ * pixels that are about to be filled is checked against the calculated pixel at its end. If they differ, the row
+ * crosses a boundary that wasn't traced yet; it is calculated up to that boundary, which is then traced as well.
+ * Structures that fit between the grid pixels and the traced boundaries might be missed.
+ *
+ * @author Lucas Werkmeister
+ *
+ */
+public abstract class BoundaryTraceImageMaker extends CifImageMaker {
+	/**
+	 * Marks a pixel whose SuperSampling samples have different passes. Such a pixel differs from all other pixels,
+	 * including other mixed pixels.
+	 */
+	private static final int	MIXED		= Integer.MIN_VALUE;
+	private static final byte	CALCULATED	= 1, TRACED = 2;
+	/**
+	 * The distance between the pixels of the grid that is calculated before tracing.
+	 */
+	private static final int	GRID_SPACING	= 8;
+
+	/**
+	 * The state of each pixel (<code>y * width + x</code>): a combination of {@link #CALCULATED} and {@link #TRACED}.
+	 */
+	private final byte[]		states;
+	/**
+	 * The passes of each pixel, or {@link #MIXED}. Only valid if the pixel is {@link #CALCULATED}.
+	 */
+	private final int[]			pixels;
+	/**
+	 * The pixels that still need to be traced, as indices into {@link #pixels}.
+	 */
+	private int[]				stack;
+	private int					stackSize;
+
+	private double				factorR, factorI, deltaR, deltaI, rangeR, rangeI;
+
+	/**
+	 * Creates a new instance of the BoundaryTraceImageMaker with specified bounds.
+	 *
+	 * @param width
+	 *            The width of the generated image.
+	 * @param height
+	 *            The height of the generated image.
+	 * @param minReal
+	 *            The lower value on the real scale (left boundary).
+	 * @param maxReal
+	 *            The higher value on the real scale (right boundary).
+	 * @param minImag
+	 *            The lower value on the imaginary scale (<b>lower</b> boundary).
+	 * @param maxImag
+	 *            The higher value on the imaginary scale (upper boundary).
+	 * @param maxPasses
+	 *            The number of iterations that a complex number has to pass before it is considered a member of the
+	 *            fractal.
+	 * @param target
+	 *            The BufferedImage to which the calculation results will be drawn.
+	 * @param targetX
+	 *            The x coordinate on the target image to which the generated image will be written.
+	 * @param targetY
+	 *            The y coordinate on the target image to which the generated image will be written.
+	 * @param palette
+	 *            The palette.
+	 * @param superSamplingFactor
+	 *            The AntiAliasing SuperSampling factor.
+	 * @param fractal
+	 *            The fractal.
+	 */
+	public BoundaryTraceImageMaker(final int width, final int height, final double minReal, final double maxReal,
+			final double minImag, final double maxImag, final int maxPasses, final BufferedImage target,
+			final int targetX, final int targetY, final ColorPalette palette, final byte superSamplingFactor,
+			CifFractal fractal) {
+		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
+				superSamplingFactor, fractal);
+		states = new byte[width * height];
+		pixels = new int[width * height];
+		stack = new int[2 * (width + height)];
+	}
+
+	@Override
+	public void run() {
+		factorR = (maxReal - minReal) / width;
+		factorI = (minImag - maxImag) / height; // imaginary scale goes up, but computer graphics y goes down, so min-
+												// and maxImag have to be swapped
+		deltaR = factorR / superSamplingFactor;
+		deltaI = factorI / superSamplingFactor;
+		final byte lessSuperSamplingFactor = (byte) (superSamplingFactor - 1);
+		rangeR = lessSuperSamplingFactor * deltaR / 2;
+		rangeI = lessSuperSamplingFactor * deltaI / 2;
+
+		for (int y = GRID_SPACING / 2; y < height; y += GRID_SPACING)
+			for (int x = GRID_SPACING / 2; x < width; x += GRID_SPACING)
+				calculatePixel(y * width + x, x, y);
+
+		// trace the boundaries, starting with the border of the image
+		for (int x = 0; x < width; x++) {
+			push(x);
+			push((height - 1) * width + x);
+		}
+		for (int y = 0; y < height; y++) {
+			push(y * width);
+			push(y * width + width - 1);
+		}
+		if (!traceAll())
+			return;
+
+		// find the boundaries that weren't traced yet; the first and last pixel of each row are calculated
+		for (int y = 0; y < height; y++) {
+			final int rowStart = y * width;
+			int x = 1;
+			while (x < width) {
+				if ((states[rowStart + x] & CALCULATED) != 0) {
+					x++;
+					continue;
+				}
+				final int passes = pixels[rowStart + x - 1];
+				int end = x;
+				while ((states[rowStart + end] & CALCULATED) == 0)
+					end++;
+				if (differ(passes, pixels[rowStart + end])) {
+					int boundary = x;
+					while (boundary < end && !differ(passes, calculatePixel(rowStart + boundary, boundary, y)))
+						boundary++;
+					push(rowStart + boundary);
+					if (!traceAll())
+						return;
+				}
+				else
+					x = end;
+			}
+		}
+
+		// fill the insides of the regions, row by row
+		for (int y = 0; y < height; y++) {
+			final int rowStart = y * width;
+			int x = 1;
+			while (x < width) {
+				if ((states[rowStart + x] & CALCULATED) != 0) {
+					x++;
+					continue;
+				}
+				final int passes = pixels[rowStart + x - 1];
+				int end = x;
+				while ((states[rowStart + end] & CALCULATED) == 0)
+					end++;
+				for (int i = rowStart + x; i < rowStart + end; i++) {
+					pixels[i] = passes;
+					states[i] |= CALCULATED;
+				}
+				fillPixels(x, y, end - x, 1, colors[passes + 1]);
+				fillPasses(x, y, end - x, 1, passes);
+				x = end;
+			}
+		}
+	}
+
+	/**
+	 * Traces all pixels on the stack.
+	 * 
+	 * @return <code>false</code> if the image maker was interrupted, <code>true</code> otherwise.
+	 */
+	private boolean traceAll() {
+		while (stackSize > 0) {
+			if (isInterrupted())
+				return false;
+			trace(stack[--stackSize]);
+		}
+		return true;
+	}
+
+	/**
+	 * Calculates the neighbors of the specified pixel, and pushes those that lie on a boundary with it.
+	 */
+	private void trace(final int index) {
+		final int x = index % width, y = index / width;
+		final int center = calculatePixel(index, x, y);
+		final boolean hasLeft = x > 0, hasRight = x < width - 1, hasUp = y > 0, hasDown = y < height - 1;
+		final boolean left = hasLeft && differ(center, calculatePixel(index - 1, x - 1, y));
+		final boolean right = hasRight && differ(center, calculatePixel(index + 1, x + 1, y));
+		final boolean up = hasUp && differ(center, calculatePixel(index - width, x, y - 1));
+		final boolean down = hasDown && differ(center, calculatePixel(index + width, x, y + 1));
+		if (left)
+			push(index - 1);
+		if (right)
+			push(index + 1);
+		if (up)
+			push(index - width);
+		if (down)
+			push(index + width);
+		// the boundary might continue diagonally
+		if (hasUp && hasLeft && (up || left))
+			push(index - width - 1);
+		if (hasUp && hasRight && (up || right))
+			push(index - width + 1);
+		if (hasDown && hasLeft && (down || left))
+			push(index + width - 1);
+		if (hasDown && hasRight && (down || right))
+			push(index + width + 1);
+	}
+
+	private static boolean differ(final int passes1, final int passes2) {
+		return passes1 != passes2 || passes1 == MIXED;
+	}
+
+	private void push(final int index) {
+		if ((states[index] & TRACED) != 0)
+			return;
+		states[index] |= TRACED;
+		if (stackSize == stack.length)
+			stack = Arrays.copyOf(stack, 2 * stackSize);
+		stack[stackSize++] = index;
+	}
+
+	/**
+	 * Calculates and draws the specified pixel, unless it was already calculated.
+	 *
+	 * @return The passes of the pixel, or {@link #MIXED}.
+	 */
+	private int calculatePixel(final int index, final int x, final int y) {
+		if ((states[index] & CALCULATED) != 0)
+			return pixels[index];
+		states[index] |= CALCULATED;
+
+		int averageR = 0, averageG = 0, averageB = 0;
+		int averageDenominator = 0; // counting the denominator up is needed because, due to rounding errors,
+									// sometimes the SuperSampling loop runs less than superSamplingFactor² times.
+		int pixelPasses = 0;
+		final double centerR = x * factorR + minReal;
+		final double centerI = y * factorI + maxImag;
+		final double borderR = centerR + rangeR;
+		final double borderI = centerI - rangeI;
+		for (double r = centerR - rangeR; r <= borderR; r += deltaR)
+			for (double i = centerI + rangeI; i <= borderI; i -= deltaI) {
+				final int passes = samplePasses(r, i);
+				storePasses(x, y, averageDenominator, passes);
+				if (averageDenominator == 0)
+					pixelPasses = passes;
+				else if (pixelPasses != passes)
+					pixelPasses = MIXED;
+				final int color = colors[passes + 1];
+				averageR += (color >> 16) & 0xFF;
+				averageG += (color >> 8) & 0xFF;
+				averageB += color & 0xFF;
+				averageDenominator++;
+			}
+		drawPixel(x, y, rgb(averageR / averageDenominator, averageG / averageDenominator, averageB
+				/ averageDenominator));
+		return pixels[index] = pixelPasses;
+	}
+}
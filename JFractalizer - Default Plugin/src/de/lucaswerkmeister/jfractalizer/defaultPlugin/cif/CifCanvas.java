@@ -17,8 +17,11 @@ import static de.lucaswerkmeister.jfractalizer.framework.Log.log;
 
 import java.awt.Canvas;
 import java.awt.Graphics;
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
 import de.lucaswerkmeister.jfractalizer.defaultPlugin.DefaultPlugin;
 
@@ -28,10 +31,15 @@ public class CifCanvas<T extends CifImageMaker> extends Canvas {
 	public static final int		LOG_CLASS_PREFIX		= DefaultPlugin.LOG_PLUGIN_PREFIX
 																+ (((0 << 5) + (3 << 0)) << 8);
 	public static final int		LOG_GO_TO_SELECTED_AREA	= LOG_CLASS_PREFIX + 0;
+	public static final int		LOG_PAN					= LOG_CLASS_PREFIX + 1;
 
 	private final CifFractal	fractal;
 	CifMouseListener			mouseListener;
 	private Rectangle			selectedArea;
+	/**
+	 * The offset by which the image is drawn while the user drags it, or <code>null</code>.
+	 */
+	private Point				panOffset;
 	private BufferedImage		invertedImage			= null;
 
 	// this defines how fast the maxPasses will grow with increasing zoom.
@@ -51,23 +59,35 @@ public class CifCanvas<T extends CifImageMaker> extends Canvas {
 	public void paint(final Graphics g) {
 		boolean triggerRepaint = fractal.isRunning();
 
-		BufferedImage image = fractal.getImage();
-
-		if (invertedImage == null || invertedImage.getWidth() != image.getWidth()
-				|| invertedImage.getHeight() != image.getHeight())
-			invertedImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-		int[] pixels = image.getRaster().getPixels(0, 0, image.getWidth(), image.getHeight(), (int[]) null);
-		if (selectedArea != null && image.getType() == BufferedImage.TYPE_INT_ARGB)
-			for (int x = selectedArea.x; x < selectedArea.x + selectedArea.width; x++)
-				for (int y = selectedArea.y; y < selectedArea.y + selectedArea.height; y++) {
-					int index = (y * image.getWidth() + x) * 4;
-					pixels[index] = 255 - pixels[index];
-					pixels[index + 1] = 255 - pixels[index + 1];
-					pixels[index + 2] = 255 - pixels[index + 2];
-					// pixels[index + 3] = 255 - pixels[index + 3]; // don't invert the alpha channel
-				}
-		invertedImage.getRaster().setPixels(0, 0, invertedImage.getWidth(), invertedImage.getHeight(), pixels);
-		g.drawImage(invertedImage, 0, 0, null);
+		// draw the image that the image makers draw into (or the preview) directly, unless part of it must be inverted
+		BufferedImage image = fractal.getDisplayImage();
+		if (image == null)
+			image = fractal.getImage();
+
+		if (panOffset != null) {
+			g.clearRect(0, 0, getWidth(), getHeight());
+			g.drawImage(image, panOffset.x, panOffset.y, null);
+		}
+		else if (selectedArea == null) {
+			g.drawImage(image, 0, 0, null);
+		}
+		else {
+			if (invertedImage == null || invertedImage.getWidth() != image.getWidth()
+					|| invertedImage.getHeight() != image.getHeight())
+				invertedImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+			final int[] pixels = CifImageMaker.getPixels(invertedImage);
+			final int[] imagePixels = CifImageMaker.getPixels(image);
+			if (imagePixels != null)
+				System.arraycopy(imagePixels, 0, pixels, 0, pixels.length);
+			else
+				image.getRGB(0, 0, image.getWidth(), image.getHeight(), pixels, 0, image.getWidth());
+			final Rectangle area = selectedArea
+					.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+			for (int y = area.y; y < area.y + area.height; y++)
+				for (int x = area.x; x < area.x + area.width; x++)
+					pixels[y * image.getWidth() + x] ^= 0x00FFFFFF; // don't invert the alpha channel
+			g.drawImage(invertedImage, 0, 0, null);
+		}
 
 		if (triggerRepaint)
 			repaint(50);
@@ -82,16 +102,21 @@ public class CifCanvas<T extends CifImageMaker> extends Canvas {
 		log(LOG_GO_TO_SELECTED_AREA, selectedArea);
 		fractal.stopCalculation();
 
-		final double currentWidth = fractal.getMaxReal() - fractal.getMinReal();
-		final double newWidth = currentWidth * ((double) selectedArea.width / fractal.getImageSize().width);
-		final double newMinReal = fractal.getMinReal() + ((double) selectedArea.x / fractal.getImageSize().width)
-				* currentWidth;
-		final double newMaxReal = newMinReal + newWidth;
-		final double currentHeight = fractal.getMaxImag() - fractal.getMinImag();
-		final double newHeight = currentHeight * ((double) selectedArea.height / fractal.getImageSize().height);
-		final double newMaxImag = fractal.getMaxImag() - ((double) selectedArea.y / fractal.getImageSize().height)
-				* currentHeight;
-		final double newMinImag = newMaxImag - newHeight;
+		final MathContext mathContext = fractal.getMathContext();
+		final BigDecimal currentWidth = fractal.getMaxReal().subtract(fractal.getMinReal());
+		final BigDecimal newWidth = currentWidth.multiply(
+				BigDecimal.valueOf((double) selectedArea.width / fractal.getImageSize().width), mathContext);
+		final BigDecimal newMinReal = fractal.getMinReal().add(
+				currentWidth.multiply(BigDecimal.valueOf((double) selectedArea.x / fractal.getImageSize().width)),
+				mathContext);
+		final BigDecimal newMaxReal = newMinReal.add(newWidth);
+		final BigDecimal currentHeight = fractal.getMaxImag().subtract(fractal.getMinImag());
+		final BigDecimal newHeight = currentHeight.multiply(
+				BigDecimal.valueOf((double) selectedArea.height / fractal.getImageSize().height), mathContext);
+		final BigDecimal newMaxImag = fractal.getMaxImag().subtract(
+				currentHeight.multiply(BigDecimal.valueOf((double) selectedArea.y / fractal.getImageSize().height)),
+				mathContext);
+		final BigDecimal newMinImag = newMaxImag.subtract(newHeight);
 		double maxPassesF = Math.max((double) fractal.getImageSize().width / selectedArea.width,
 				(double) fractal.getImageSize().height / selectedArea.height);
 		maxPassesF = ((maxPassesF - 1) / maxPassesFactor) + 1;
@@ -101,6 +126,40 @@ public class CifCanvas<T extends CifImageMaker> extends Canvas {
 		fractal.startCalculation();
 	}
 
+	/**
+	 * Moves the view so that the image appears shifted by the specified offset, and calculates the pixels that this
+	 * exposes. The fractal reuses the rest of the image.
+	 *
+	 * @param dx
+	 *            The horizontal offset in pixels; positive values move the image to the right.
+	 * @param dy
+	 *            The vertical offset in pixels; positive values move the image down.
+	 */
+	public void pan(final int dx, final int dy) {
+		log(LOG_PAN, dx, dy);
+		fractal.stopCalculation();
+
+		final MathContext mathContext = fractal.getMathContext();
+		final BigDecimal shiftReal = fractal.getMaxReal().subtract(fractal.getMinReal())
+				.multiply(BigDecimal.valueOf(dx)).divide(BigDecimal.valueOf(fractal.getImageSize().width), mathContext);
+		final BigDecimal shiftImag = fractal.getMaxImag().subtract(fractal.getMinImag())
+				.multiply(BigDecimal.valueOf(dy))
+				.divide(BigDecimal.valueOf(fractal.getImageSize().height), mathContext);
+		fractal.setParams(new CifParams(fractal.getMinReal().subtract(shiftReal), fractal.getMaxReal().subtract(
+				shiftReal), fractal.getMinImag().add(shiftImag), fractal.getMaxImag().add(shiftImag), fractal
+				.getMaxPasses(), fractal.getSuperSamplingFactor()));
+		fractal.startCalculation();
+	}
+
+	/**
+	 * @param panOffset
+	 *            the offset by which the image is drawn while the user drags it, or <code>null</code>
+	 */
+	public void setPanOffset(final Point panOffset) {
+		this.panOffset = panOffset;
+		repaint();
+	}
+
 	/**
 	 * @param selectedArea
 	 *            the selectedArea to set
@@ -14,6 +14,7 @@
 package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
 
 import java.awt.Dimension;
+import java.math.BigDecimal;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -67,13 +68,13 @@ public class CifFractXmlLoader extends FractXmlLoader {
 		else if (currentQName.equals("height"))
 			fractal.setImageSize(new Dimension(fractal.getCanvas().getWidth(), Integer.parseInt(asString)));
 		else if (currentQName.equals("minReal"))
-			fractal.setMinReal(Double.parseDouble(asString));
+			fractal.setMinReal(new BigDecimal(asString.trim()));
 		else if (currentQName.equals("maxReal"))
-			fractal.setMaxReal(Double.parseDouble(asString));
+			fractal.setMaxReal(new BigDecimal(asString.trim()));
 		else if (currentQName.equals("minImag"))
-			fractal.setMinImag(Double.parseDouble(asString));
+			fractal.setMinImag(new BigDecimal(asString.trim()));
 		else if (currentQName.equals("maxImag"))
-			fractal.setMaxImag(Double.parseDouble(asString));
+			fractal.setMaxImag(new BigDecimal(asString.trim()));
 		else if (currentQName.equals("maxPasses"))
 			fractal.setMaxPasses(Integer.parseInt(asString));
 		else if (currentQName.equals("superSamplingFactor"))
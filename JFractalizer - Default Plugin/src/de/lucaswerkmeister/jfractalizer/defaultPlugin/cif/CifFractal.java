@@ -16,27 +16,39 @@ package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
 import static de.lucaswerkmeister.jfractalizer.framework.Log.log;
 
 import java.awt.Canvas;
-import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Menu;
 import java.awt.MenuItem;
 import java.awt.MenuShortcut;
+import java.awt.Point;
 import java.awt.PopupMenu;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.transform.sax.TransformerHandler;
 
@@ -66,30 +78,151 @@ public abstract class CifFractal implements ZoomableFractal {
 	public static final int							LOG_ZOOM					= LOG_CLASS_PREFIX + 6;
 	public static final int							LOG_ZOOM_TO_START			= LOG_CLASS_PREFIX + 7;
 	public static final int							LOG_SHUTDOWN				= LOG_CLASS_PREFIX + 8;
+	public static final int							LOG_SAVED_PASSES			= LOG_CLASS_PREFIX + 9;
+	public static final int							LOG_DEEP_ZOOM				= LOG_CLASS_PREFIX + 10;
+	public static final int							LOG_FULL_PRECISION			= LOG_CLASS_PREFIX + 11;
+	public static final int							LOG_DOUBLE_DOUBLE			= LOG_CLASS_PREFIX + 12;
+	public static final int							LOG_MIRRORED				= LOG_CLASS_PREFIX + 13;
+	public static final int							LOG_RECOLORED				= LOG_CLASS_PREFIX + 14;
+	public static final int							LOG_PREVIEW					= LOG_CLASS_PREFIX + 15;
+	public static final int							LOG_ADAPTIVE				= LOG_CLASS_PREFIX + 16;
+	public static final int							LOG_SHIFTED					= LOG_CLASS_PREFIX + 17;
+	public static final int							LOG_REUSED					= LOG_CLASS_PREFIX + 18;
+	public static final int							LOG_CACHED					= LOG_CLASS_PREFIX + 19;
+	public static final int							LOG_TILE_CACHE				= LOG_CLASS_PREFIX + 20;
+	public static final int							LOG_FRAME_HINT				= LOG_CLASS_PREFIX + 21;
 
 	public static final int							START_WIDTH					= 960;
 	public static final int							START_HEIGHT				= 540;
+	/**
+	 * The render cache, which is shared by all fractals, with a default budget of 128 MiB, but no more than a quarter
+	 * of the heap, so that small heaps (e.&nbsp;g. for films, where views are never calculated twice) aren't filled
+	 * with cached samples.
+	 */
+	private static final RenderCache				renderCache					= new RenderCache(Math.min(128L << 20,
+			Runtime.getRuntime().maxMemory() / 4));
+	/**
+	 * The tile cache, which is shared by all fractals, or <code>null</code> if tiles aren't cached on disk; and the
+	 * budget for it, which defaults to 1 GiB.
+	 */
+	private static volatile TileCache				tileCache;
+	private static long								tileCacheSize				= 1L << 30;
 	private int										width						= START_WIDTH;
 	private int										height						= START_HEIGHT;
-	private double									minReal, maxReal, minImag, maxImag;
+	private BigDecimal								minReal, maxReal, minImag, maxImag;
 	ColorPalette									palette;
 	private byte									superSamplingFactor;
-	private ExecutorService							executorService;
 	private List<Future<?>>							runningTasks;
+	private List<CifImageMaker>						runningMakers;
 	private int										maxPasses;
+	private boolean									periodicityChecking			= true;
+	/**
+	 * Whether calculations for the canvas start with a {@link Preview preview}.
+	 */
+	private boolean									progressive					= true;
+	/**
+	 * Whether only the edge pixels are supersampled, see {@link Refinement}.
+	 */
+	private boolean									adaptiveSuperSampling		= false;
+	/**
+	 * The preview of the current calculation, or <code>null</code> if it has none.
+	 */
+	private volatile Preview						preview;
+	/**
+	 * The image that all image makers draw into, at the offsets of their sub images. It is always of type
+	 * {@link BufferedImage#TYPE_INT_ARGB}, so that they can write its pixels directly.
+	 */
+	private BufferedImage							image;
 	SubImage[]										subImages;
-	private final Class<? extends CifImageMaker>	imageMakerClass;
+	/**
+	 * Whether the last calculation finished, i.&nbsp;e. whether the sub images have the passes of all their samples.
+	 */
+	private volatile boolean						passesComplete;
+	/**
+	 * The view of the last calculation, the palette that its pixels have, the image maker class it used, and its other
+	 * settings; see {@link #findShift(double, double)} and {@link SampleReuse}.
+	 */
+	private CifParams								imageParams;
+	private ColorPalette							imagePalette;
+	private Class<? extends CifImageMaker>			imageMakerClassUsed;
+	private List<Object>							imageSettings;
+	/**
+	 * The {@link RenderCache} key of the last calculation, until its samples are cached.
+	 */
+	private List<Object>							imageKey;
+	/**
+	 * The compiled palette of the current calculation, and the palette and maxPasses it was compiled for; see
+	 * {@link #getColors(ColorPalette, int)}.
+	 */
+	private int[]									colors;
+	private ColorPalette							colorsPalette;
+	private int										colorsMaxPasses;
+	private Class<? extends CifImageMaker>			imageMakerClass;
+	private boolean									imageMakerChosen;
+	private final Class<? extends CifImageMaker>	doubleDoubleImageMakerClass;
+	private final Class<? extends CifImageMaker>	deepZoomImageMakerClass;
+	private DoubleDouble							originReal, originImag;
+	private ReferenceOrbit							referenceOrbit;
+	private NoHolesTrace							noHolesTrace;
+	private Refinement								refinement;
+	private SampleReuse								sampleReuse, previewReuse;
+	private FrameHint								frameHint;
 	private int										imageType					= BufferedImage.TYPE_INT_ARGB;
 	History<CifParams>								history;
 	private long									startTime, stopTime;
 	private final Set<ActionListener>				calculationFinishedListeners;
 
-	private static final boolean					USE_MORE_THREADS_THAN_CORES	= true;								// TODO
-																														// cc
-																														// #5
+	/**
+	 * The image is cut into tiles of at most this many pixels square, which are calculated by one image maker each.
+	 * There are many more tiles than threads, so that threads that finish their tiles early can take more tiles while
+	 * the others are still busy with the tiles that contain a lot of boundary detail.
+	 */
+	static final int								TILE_SIZE					= 64;
+	/**
+	 * If the distance between two samples, relative to the magnitude of the coordinates (which is at most 2 for all
+	 * interesting points), drops below this limit, <code>double</code> precision is no longer sufficient, and the
+	 * double-double image maker is used.
+	 */
+	static final double								DOUBLE_PRECISION_LIMIT		= 0x1p-44;
+	/**
+	 * Like {@link #DOUBLE_PRECISION_LIMIT}, for double-double precision: Below this limit, the deep zoom image maker
+	 * is used. It leaves the same margin of nine bits below the 106 bits of double-double.
+	 */
+	static final double								DOUBLE_DOUBLE_LIMIT			= 0x1p-97;
+	/**
+	 * If the view was moved by a whole number of pixels, give or take this fraction of a pixel, the pixels of the last
+	 * image are reused.
+	 */
+	private static final double						SHIFT_TOLERANCE				= 1e-6;
+	/**
+	 * The number of decimal digits that calculations on the boundaries carry beyond the size of a pixel.
+	 */
+	private static final int						GUARD_DIGITS				= 20;
 
 	protected CifFractal(Class<? extends CifImageMaker> imageMakerClass) {
+		this(imageMakerClass, null, null);
+	}
+
+	/**
+	 * Creates a new CifFractal.
+	 * 
+	 * @param imageMakerClass
+	 *            The class of the image makers.
+	 * @param doubleDoubleImageMakerClass
+	 *            The class of the image makers for views that are slightly too deep for <code>double</code>
+	 *            precision, usually a {@link DoubleDoubleImageMaker}, or <code>null</code>.
+	 * @param deepZoomImageMakerClass
+	 *            The class of the image makers for views that are too deep for double-double precision, usually a
+	 *            {@link PerturbationImageMaker}, or <code>null</code> if the fractal doesn't support deep zooms. If
+	 *            it isn't <code>null</code>,
+	 *            {@link #calculateReferenceOrbit(BigDecimal, BigDecimal, int, MathContext)} must be overridden.
+	 */
+	protected CifFractal(Class<? extends CifImageMaker> imageMakerClass,
+			Class<? extends CifImageMaker> doubleDoubleImageMakerClass,
+			Class<? extends CifImageMaker> deepZoomImageMakerClass) {
 		this.imageMakerClass = imageMakerClass;
+		this.doubleDoubleImageMakerClass = doubleDoubleImageMakerClass;
+		this.deepZoomImageMakerClass = deepZoomImageMakerClass;
 		this.calculationFinishedListeners = new HashSet<>();
 		initDefaultValues();
 	}
@@ -110,18 +243,64 @@ public abstract class CifFractal implements ZoomableFractal {
 		return canvas;
 	}
 
+	/**
+	 * Returns a copy of the current image, which is not affected by further calculations.
+	 */
 	@Override
 	public BufferedImage getImage() {
-		BufferedImage ret = new BufferedImage(width, height, imageType);
-		Graphics g = ret.getGraphics();
+		return getImage(null);
+	}
+
+	@Override
+	public BufferedImage getImage(final BufferedImage reuse) {
+		final BufferedImage image = this.image;
+		final BufferedImage ret;
+		if (reuse != null && reuse.getWidth() == width && reuse.getHeight() == height && reuse.getType() == imageType)
+			ret = reuse;
+		else
+			ret = new BufferedImage(width, height, imageType);
+		if (image != null && image.getWidth() == width && image.getHeight() == height
+				&& imageType == BufferedImage.TYPE_INT_ARGB) {
+			final int[] pixels = CifImageMaker.getPixels(image);
+			System.arraycopy(pixels, 0, CifImageMaker.getPixels(ret), 0, pixels.length);
+			return ret;
+		}
+		final Graphics g = ret.getGraphics();
 		g.setColor(palette.getColor(-1));
 		g.fillRect(0, 0, width, height);
-		if (subImages != null)
-			for (SubImage img : subImages)
-				ret.getGraphics().drawImage(img.subImage, img.offsetX, img.offsetY, null);
+		if (image != null)
+			g.drawImage(image, 0, 0, null);
+		g.dispose();
 		return ret;
 	}
 
+	/**
+	 * Returns the image that the image makers draw into, without copying it; it changes while a calculation is
+	 * running. Callers must not modify it.
+	 * 
+	 * @return The image, or <code>null</code> if nothing was calculated yet.
+	 */
+	BufferedImage getFramebuffer() {
+		return image;
+	}
+
+	/**
+	 * Returns the image that the canvas should show: While a calculation is running, the finest finished
+	 * {@link Preview preview} with the calculated sections of the image on top of it, otherwise the
+	 * {@link #getFramebuffer() framebuffer}. Callers must not modify it.
+	 * 
+	 * @return The image, or <code>null</code> if nothing was calculated yet.
+	 */
+	BufferedImage getDisplayImage() {
+		final Preview preview = this.preview;
+		if (preview != null && isRunning()) {
+			final BufferedImage display = preview.draw(subImages);
+			if (display != null)
+				return display;
+		}
+		return image;
+	}
+
 	@Override
 	public void suggestImageType(int imageType) {
 		log(LOG_CHANGED_IMAGE_TYPE, this, imageType);
@@ -145,22 +324,22 @@ public abstract class CifFractal implements ZoomableFractal {
 		handler.endElement("", "", "height");
 
 		handler.startElement("", "", "minReal", noAtts);
-		final char[] minReal = Double.toString(this.getMinReal()).toCharArray();
+		final char[] minReal = this.getMinReal().toString().toCharArray();
 		handler.characters(minReal, 0, minReal.length);
 		handler.endElement("", "", "minReal");
 
 		handler.startElement("", "", "maxReal", noAtts);
-		final char[] maxReal = Double.toString(this.getMaxReal()).toCharArray();
+		final char[] maxReal = this.getMaxReal().toString().toCharArray();
 		handler.characters(maxReal, 0, maxReal.length);
 		handler.endElement("", "", "maxReal");
 
 		handler.startElement("", "", "minImag", noAtts);
-		final char[] minImag = Double.toString(this.getMinImag()).toCharArray();
+		final char[] minImag = this.getMinImag().toString().toCharArray();
 		handler.characters(minImag, 0, minImag.length);
 		handler.endElement("", "", "minImag");
 
 		handler.startElement("", "", "maxImag", noAtts);
-		final char[] maxImag = Double.toString(this.getMaxImag()).toCharArray();
+		final char[] maxImag = this.getMaxImag().toString().toCharArray();
 		handler.characters(maxImag, 0, maxImag.length);
 		handler.endElement("", "", "maxImag");
 
@@ -185,6 +364,38 @@ public abstract class CifFractal implements ZoomableFractal {
 		palette = newPalette;
 	}
 
+	/**
+	 * Recolors the sub images from the passes of their samples, in parallel.
+	 */
+	@Override
+	public boolean recolor(final ColorPalette newPalette) {
+		if (!passesComplete || subImages == null || isRunning())
+			return false;
+		final long start = System.nanoTime();
+		palette = newPalette;
+		final int[] colors = newPalette.compile(maxPasses);
+		final List<Future<?>> tasks = new ArrayList<>(subImages.length);
+		for (final SubImage subImage : subImages)
+			tasks.add(Core.getThreadPool().submit(new Runnable() {
+				@Override
+				public void run() {
+					subImage.resolve(colors, newPalette);
+				}
+			}));
+		try {
+			for (Future<?> f : tasks)
+				f.get();
+		}
+		catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException("Could not recolor the image!", e);
+		}
+		imagePalette = newPalette;
+		log(LOG_RECOLORED, this, newPalette, (System.nanoTime() - start) / 1000000);
+		if (canvas != null)
+			canvas.repaint();
+		return true;
+	}
+
 	@Override
 	public void startCalculation() {
 		log(LOG_START_CALCULATION, this);
@@ -196,10 +407,19 @@ public abstract class CifFractal implements ZoomableFractal {
 	@Override
 	public void stopCalculation() {
 		log(LOG_STOP_CALCULATION, this);
+		cacheImage();
 		if (runningTasks != null) {
 			for (Future<?> f : runningTasks)
 				f.cancel(true);
-			runningTasks.clear();
+			// not cleared, the CalculationTimeSetter might still be iterating over it
+			runningTasks = new LinkedList<>();
+		}
+		if (runningMakers != null) {
+			for (CifImageMaker maker : runningMakers)
+				maker.cancel();
+			// the image makers that are already running draw into the image, which the next calculation reuses
+			for (CifImageMaker maker : runningMakers)
+				maker.awaitReturn();
 		}
 	}
 
@@ -239,16 +459,19 @@ public abstract class CifFractal implements ZoomableFractal {
 	public void zoom(final int x, final int y, final double factor) {
 		log(LOG_ZOOM, this, x, y, factor);
 
-		final double currentWidth = (getMaxReal() - getMinReal());
-		final double currentHeight = (getMaxImag() - getMinImag());
-		final double centerR = getMinReal() + currentWidth * ((double) x / getImageSize().width);
-		final double centerI = getMinImag() + currentHeight * (1 - ((double) y / getImageSize().height));
-		final double halfSizeR = currentWidth * factor / 2;
-		final double halfSizeI = currentHeight * factor / 2;
-		setMinReal(centerR - halfSizeR);
-		setMaxReal(centerR + halfSizeR);
-		setMinImag(centerI - halfSizeI);
-		setMaxImag(centerI + halfSizeI);
+		final MathContext mathContext = getMathContext();
+		final BigDecimal currentWidth = getMaxReal().subtract(getMinReal());
+		final BigDecimal currentHeight = getMaxImag().subtract(getMinImag());
+		final BigDecimal centerR = getMinReal().add(
+				currentWidth.multiply(BigDecimal.valueOf((double) x / getImageSize().width)), mathContext);
+		final BigDecimal centerI = getMinImag().add(
+				currentHeight.multiply(BigDecimal.valueOf(1 - ((double) y / getImageSize().height))), mathContext);
+		final BigDecimal halfSizeR = currentWidth.multiply(BigDecimal.valueOf(factor / 2), mathContext);
+		final BigDecimal halfSizeI = currentHeight.multiply(BigDecimal.valueOf(factor / 2), mathContext);
+		setMinReal(centerR.subtract(halfSizeR));
+		setMaxReal(centerR.add(halfSizeR));
+		setMinImag(centerI.subtract(halfSizeI));
+		setMaxImag(centerI.add(halfSizeI));
 		double maxPassesF = 1 / factor;
 		maxPassesF = ((maxPassesF - 1) / CifCanvas.maxPassesFactor) + 1;
 		setMaxPasses((int) Math.round(getMaxPasses() * maxPassesF));
@@ -260,155 +483,791 @@ public abstract class CifFractal implements ZoomableFractal {
 
 		zoom(x, y, factor);
 		Rectangle2D.Double start = getStartArea();
-		double realSize = getMaxReal() - getMinReal();
-		double imagSize = getMaxImag() - getMinImag();
+		BigDecimal realSize = getMaxReal().subtract(getMinReal());
+		BigDecimal imagSize = getMaxImag().subtract(getMinImag());
 		final boolean CENTER_WHEN_BIGGER = false; // Disabled
-		if (realSize < start.width) {
+		if (realSize.doubleValue() < start.width) {
 			// move horizontally
-			if (getMaxReal() > start.getMaxX()) {
+			if (getMaxReal().compareTo(BigDecimal.valueOf(start.getMaxX())) > 0) {
 				// clamp to east edge
-				setMaxReal(start.getMaxX());
-				setMinReal(start.getMaxX() - realSize);
+				setMaxReal(BigDecimal.valueOf(start.getMaxX()));
+				setMinReal(BigDecimal.valueOf(start.getMaxX()).subtract(realSize));
 			}
-			else if (getMinReal() < start.getMinX()) {
+			else if (getMinReal().compareTo(BigDecimal.valueOf(start.getMinX())) < 0) {
 				// clamp to west edge
-				setMinReal(start.getMinX());
-				setMaxReal(start.getMinX() + realSize);
+				setMinReal(BigDecimal.valueOf(start.getMinX()));
+				setMaxReal(BigDecimal.valueOf(start.getMinX()).add(realSize));
 			}
 		}
 		else if (CENTER_WHEN_BIGGER) {
 			// center horizontally
-			setMinReal(start.getCenterX() - realSize / 2);
-			setMaxReal(start.getCenterX() + realSize / 2);
+			setMinReal(BigDecimal.valueOf(start.getCenterX()).subtract(realSize.divide(BigDecimal.valueOf(2))));
+			setMaxReal(BigDecimal.valueOf(start.getCenterX()).add(realSize.divide(BigDecimal.valueOf(2))));
 		}
-		if (imagSize < start.height) {
+		if (imagSize.doubleValue() < start.height) {
 			// move vertically
-			if (getMaxImag() > start.getMaxY()) {
+			if (getMaxImag().compareTo(BigDecimal.valueOf(start.getMaxY())) > 0) {
 				// clamp to north edge
-				setMaxImag(start.getMaxY());
-				setMinImag(start.getMaxY() - imagSize);
+				setMaxImag(BigDecimal.valueOf(start.getMaxY()));
+				setMinImag(BigDecimal.valueOf(start.getMaxY()).subtract(imagSize));
 			}
-			else if (getMinImag() < start.getMinY()) {
+			else if (getMinImag().compareTo(BigDecimal.valueOf(start.getMinY())) < 0) {
 				// clamp to south edge
-				setMinImag(start.getMinY());
-				setMaxImag(start.getMinY() + imagSize);
+				setMinImag(BigDecimal.valueOf(start.getMinY()));
+				setMaxImag(BigDecimal.valueOf(start.getMinY()).add(imagSize));
 			}
 		}
 		else if (CENTER_WHEN_BIGGER) {
 			// center vertically
-			setMinImag(start.getCenterY() - imagSize / 2);
-			setMaxImag(start.getCenterY() + imagSize / 2);
+			setMinImag(BigDecimal.valueOf(start.getCenterY()).subtract(imagSize.divide(BigDecimal.valueOf(2))));
+			setMaxImag(BigDecimal.valueOf(start.getCenterY()).add(imagSize.divide(BigDecimal.valueOf(2))));
 		}
 	}
 
 	@Override
 	public double getZoomFactor() {
 		Rectangle2D.Double start = getStartArea();
-		double xZoomFactor = start.width / (getMaxReal() - getMinReal());
-		double yZoomFactor = start.height / (getMaxImag() - getMinImag());
+		double xZoomFactor = start.width / getMaxReal().subtract(getMinReal()).doubleValue();
+		double yZoomFactor = start.height / getMaxImag().subtract(getMinImag()).doubleValue();
 		return Math.max(xZoomFactor, yZoomFactor);
 	}
 
+	/**
+	 * Creates a new instance of this class with the default constructor, and copies the view and all settings to it.
+	 * Subclasses with settings of their own must override this method to copy them too.
+	 */
+	@Override
+	public CifFractal copy() {
+		final CifFractal copy;
+		try {
+			copy = getClass().getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Can't create a copy of fractal " + getClass().getSimpleName()
+					+ "!", e);
+		}
+		copy.width = width;
+		copy.height = height;
+		copy.setParams(getParams(), false);
+		copy.palette = palette;
+		copy.periodicityChecking = periodicityChecking;
+		copy.progressive = progressive;
+		copy.adaptiveSuperSampling = adaptiveSuperSampling;
+		copy.imageMakerClass = imageMakerClass;
+		copy.imageMakerChosen = imageMakerChosen;
+		copy.imageType = imageType;
+		return copy;
+	}
+
+	/**
+	 * Calculates the strip on a copy of this fractal, in parallel bands of {@link #TILE_SIZE} rows on the
+	 * {@link Core#getThreadPool() thread pool}. Each band uses the image maker class that the distance between the
+	 * samples of its innermost row calls for; the deep zoom image makers work relative to the center, and the
+	 * reference orbit is calculated there once. The strip is calculated without SuperSampling, with the current palette
+	 * and maximum number of passes.
+	 */
+	@Override
+	public BufferedImage getExponentialMap(final int width, final int height, final double innerRadius) {
+		final BufferedImage map = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		final int[] pixels = CifImageMaker.getPixels(map);
+		final double angleStep = 2 * Math.PI / width;
+		final double firstRadius = innerRadius
+				* Math.hypot(maxReal.subtract(minReal).doubleValue(), maxImag.subtract(minImag).doubleValue()) / 2;
+		final double[] cos = new double[width], sin = new double[width];
+		for (int x = 0; x < width; x++) {
+			cos[x] = Math.cos(x * angleStep);
+			sin[x] = Math.sin(x * angleStep);
+		}
+		// the samples are as far apart along the rows as along the columns, and closest together in the first row
+		final MathContext mathContext = getMathContext(firstRadius * angleStep);
+		final BigDecimal two = BigDecimal.valueOf(2);
+		final BigDecimal centerReal = minReal.add(maxReal).divide(two, mathContext);
+		final BigDecimal centerImag = minImag.add(maxImag).divide(two, mathContext);
+		final double centerRealDouble = centerReal.doubleValue(), centerImagDouble = centerImag.doubleValue();
+		// the image makers read the origin and the reference orbit from a fractal of their own
+		final CifFractal fractal = copy();
+		final Class<? extends CifImageMaker> defaultMakerClass = getImageMakerClass();
+		final Class<? extends CifImageMaker> firstMakerClass = getImageMakerClass(firstRadius * angleStep);
+		if (firstMakerClass != defaultMakerClass && doubleDoubleImageMakerClass != null) {
+			fractal.originReal = new DoubleDouble(centerReal);
+			fractal.originImag = new DoubleDouble(centerImag);
+		}
+		if (firstMakerClass == deepZoomImageMakerClass)
+			fractal.referenceOrbit = fractal.calculateReferenceOrbit(centerReal, centerImag, maxPasses, mathContext);
+		final ColorPalette palette = this.palette;
+		final int maxPasses = this.maxPasses;
+		final int[] colors = fractal.getColors(palette, maxPasses);
+
+		final ForkJoinPool threadPool = Core.getThreadPool();
+		final List<Future<?>> tasks = new ArrayList<>();
+		try {
+			for (int band = 0; band < height; band += TILE_SIZE) {
+				final int firstRow = band;
+				final int rows = Math.min(TILE_SIZE, height - band);
+				final double spacing = firstRadius * Math.exp(firstRow * angleStep) * angleStep;
+				final Class<? extends CifImageMaker> makerClass = getImageMakerClass(spacing);
+				final boolean relative = makerClass != defaultMakerClass;
+				// the bounds only determine the tolerance of the periodicity checking
+				final CifImageMaker maker = makerClass.getConstructor(int.class, int.class, double.class,
+						double.class, double.class, double.class, int.class, BufferedImage.class, int.class,
+						int.class, ColorPalette.class, byte.class, CifFractal.class).newInstance(width, rows,
+						-spacing * width / 2, spacing * width / 2, -spacing * rows / 2, spacing * rows / 2, maxPasses,
+						map, 0, firstRow, palette, (byte) 1, fractal);
+				tasks.add(threadPool.submit(new Runnable() {
+					@Override
+					public void run() {
+						final double[] real = new double[width * rows];
+						final double[] imag = new double[width * rows];
+						final int[] passes = new int[width * rows];
+						Arrays.fill(passes, SubImage.NO_SAMPLE);
+						for (int y = 0; y < rows; y++) {
+							final double radius = firstRadius * Math.exp((firstRow + y) * angleStep);
+							for (int x = 0; x < width; x++) {
+								real[y * width + x] = (relative ? 0 : centerRealDouble) + radius * cos[x];
+								imag[y * width + x] = (relative ? 0 : centerImagDouble) + radius * sin[x];
+							}
+						}
+						maker.calculateSamples(real, imag, passes);
+						for (int sample = 0; sample < passes.length; sample++)
+							pixels[firstRow * width + sample] = colors[passes[sample] + 1];
+					}
+				}));
+			}
+			for (Future<?> task : tasks)
+				task.get();
+		}
+		catch (ReflectiveOperationException | InterruptedException | ExecutionException e) {
+			throw new RuntimeException("Could not calculate the exponential map!", e);
+		}
+		return map;
+	}
+
 	@Override
 	public void addCalculationFinishedListener(final ActionListener listener) {
 		calculationFinishedListeners.add(listener);
 	}
 
 	private void initThreads() {
-		final int cpuCount = Runtime.getRuntime().availableProcessors();
-		if (executorService == null)
-			executorService = Executors.newFixedThreadPool(cpuCount);
+		final ForkJoinPool threadPool = Core.getThreadPool();
 		runningTasks = new LinkedList<>();
+		runningMakers = new LinkedList<>();
+		cacheImage();
+		final boolean lastComplete = passesComplete;
+		passesComplete = false;
+		synchronized (this) {
+			// the palette might have changed since it was compiled
+			colors = null;
+		}
 		if (checkValues()) {
 			Core.setStatus("Calculating...");
 			startTime = System.nanoTime();
-			int lessSections = (int) Math.sqrt(cpuCount);
-			int moreSections = (lessSections == 1) ? cpuCount : cpuCount / lessSections;
-			if (USE_MORE_THREADS_THAN_CORES) {
-				final int temp = lessSections;
-				lessSections = moreSections;
-				moreSections = 2 * temp;
+			final double realSize = this.maxReal.subtract(this.minReal).doubleValue();
+			final double imagSize = this.maxImag.subtract(this.minImag).doubleValue();
+			final double pixelWidth = realSize / width;
+			final double pixelHeight = imagSize / height;
+			final double sampleSize = Math.min(pixelWidth, pixelHeight) / superSamplingFactor;
+			final Class<? extends CifImageMaker> makerClass = getImageMakerClass(sampleSize);
+			final boolean deepZoom = makerClass != getImageMakerClass();
+			// the image makers trace the whole image together instead of cutting it into tiles
+			final boolean noHoles = NoHolesImageMaker.class.isAssignableFrom(makerClass);
+			// the last calculation can only be reused for the same fractal at the same size
+			final List<Object> imageSettings = Arrays.<Object> asList(width, height, periodicityChecking,
+					adaptiveSuperSampling, getFormulaParams());
+			// cached samples are only drawn again for the same image maker, which decides which samples are
+			// calculated and how precisely
+			final List<Object> imageKey = Arrays.<Object> asList(getClass(), getParams(), imageSettings, makerClass);
+			if (image == null || image.getWidth() != width || image.getHeight() != height)
+				image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			// views that were calculated before are only drawn again
+			final SubImage[] cached = renderCache.get(imageKey, image);
+			if (cached != null) {
+				log(LOG_CACHED, this, renderCache.getCount(), renderCache.getSize() >> 20);
+				imageParams = getParams();
+				imagePalette = palette;
+				imageMakerClassUsed = makerClass;
+				this.imageSettings = imageSettings;
+				this.imageKey = null;
+				preview = null;
+				subImages = cached;
+				final ColorPalette palette = this.palette;
+				final int[] colors = getColors(palette, maxPasses);
+				for (final SubImage subImage : cached)
+					runningTasks.add(threadPool.submit(new Runnable() {
+						@Override
+						public void run() {
+							subImage.resolve(colors, palette);
+							subImage.calculated = true;
+						}
+					}));
+				finishCalculation(runningTasks, runningMakers, 0);
+				return;
 			}
-			int horSections, verSections;
-			if (width >= height) {
-				horSections = moreSections;
-				verSections = lessSections;
+			final double minReal, maxReal, minImag, maxImag;
+			if (deepZoom) {
+				// the image makers work relative to the origin (or reference point) in the center of the view
+				final MathContext mathContext = getMathContext();
+				final BigDecimal two = BigDecimal.valueOf(2);
+				final BigDecimal centerReal = this.minReal.add(this.maxReal).divide(two, mathContext);
+				final BigDecimal centerImag = this.minImag.add(this.maxImag).divide(two, mathContext);
+				if (makerClass == doubleDoubleImageMakerClass) {
+					originReal = new DoubleDouble(centerReal);
+					originImag = new DoubleDouble(centerImag);
+					referenceOrbit = null;
+					log(LOG_DOUBLE_DOUBLE, this, originReal, originImag);
+				}
+				else {
+					originReal = originImag = null;
+					referenceOrbit = calculateReferenceOrbit(centerReal, centerImag, maxPasses, mathContext);
+					log(LOG_DEEP_ZOOM, this, referenceOrbit.length - 1, mathContext.getPrecision());
+				}
+				minReal = this.minReal.subtract(centerReal).doubleValue();
+				maxReal = this.maxReal.subtract(centerReal).doubleValue();
+				minImag = this.minImag.subtract(centerImag).doubleValue();
+				maxImag = this.maxImag.subtract(centerImag).doubleValue();
 			}
 			else {
-				horSections = lessSections;
-				verSections = moreSections;
+				originReal = originImag = null;
+				referenceOrbit = null;
+				minReal = this.minReal.doubleValue();
+				maxReal = this.maxReal.doubleValue();
+				minImag = this.minImag.doubleValue();
+				maxImag = this.maxImag.doubleValue();
 			}
-			final double realWidth = (maxReal - minReal) / horSections;
-			final double imagHeight = (maxImag - minImag) / verSections;
-			final int sectionWidth = width / horSections;
-			final int sectionHeight = height / verSections;
-			boolean canRecycleSubimages = subImages != null && subImages.length == horSections * verSections;
-			if (canRecycleSubimages) {
-				outer: for (int x = 0; x < horSections; x++)
-					for (int y = 0; y < verSections; y++) {
-						SubImage img = subImages[x * verSections + y];
-						if (!(img != null && img.offsetX == x * sectionWidth && img.offsetY == (verSections - y - 1)
-								* sectionHeight)) {
-							canRecycleSubimages = false;
-							break outer;
-						}
-					}
+			final CifParams lastParams = imageParams;
+			final boolean reusable = lastComplete && imageSettings.equals(this.imageSettings);
+			final boolean sameSamples = reusable && makerClass == imageMakerClassUsed
+					&& superSamplingFactor == lastParams.superSamplingFactor;
+			// if the view was only moved by whole pixels, the pixels that stay in the image are reused
+			final Point shift = sameSamples && maxPasses == lastParams.maxPasses && palette == imagePalette
+					? findShift(pixelWidth, pixelHeight) : null;
+			final Rectangle reusedArea = shift == null ? null : new Rectangle(-shift.x, -shift.y, width, height)
+					.intersection(new Rectangle(0, 0, width, height));
+			// if only maxPasses changed, the sub images are resumed (see CifImageMaker#resume) where possible
+			final boolean resume = sameSamples && !adaptiveSuperSampling && maxPasses != lastParams.maxPasses
+					&& isView(lastParams);
+			// the other sections take over the new samples that lie on the centers of the old pixels (see SampleReuse)
+			final SampleReuse sampleReuse;
+			if (reusable && shift == null && !adaptiveSuperSampling
+					&& !(superSamplingFactor == lastParams.superSamplingFactor && maxPasses == lastParams.maxPasses
+					&& isView(lastParams))) {
+				// the old bounds in the coordinates of the new image makers, which may be relative to the center
+				final double lastMinReal = minReal + lastParams.minReal.subtract(this.minReal).doubleValue();
+				final double lastMaxImag = maxImag + lastParams.maxImag.subtract(this.maxImag).doubleValue();
+				sampleReuse = SampleReuse.find(subImages, width, height, lastMinReal, lastMaxImag, lastParams.maxReal
+						.subtract(lastParams.minReal).doubleValue() / width, lastParams.maxImag.subtract(
+						lastParams.minImag).doubleValue()
+						/ height, lastParams.superSamplingFactor, lastParams.maxPasses, minReal, maxImag, pixelWidth,
+						pixelHeight, superSamplingFactor, maxPasses, !deepZoom);
+			}
+			else
+				sampleReuse = null;
+			// batch calculations and vector image makers predict the passes of the new pixels from the last image (see
+			// FrameHint)
+			final FrameHint frameHint;
+			if (reusable && shift == null && !isView(lastParams)
+					&& (canvas == null || VectorImageMaker.class.isAssignableFrom(makerClass))) {
+				frameHint = FrameHint.find(subImages, width, height,
+						minReal + lastParams.minReal.subtract(this.minReal).doubleValue(),
+						maxImag + lastParams.maxImag.subtract(this.maxImag).doubleValue(),
+						lastParams.maxReal.subtract(lastParams.minReal).doubleValue() / width,
+						lastParams.maxImag.subtract(lastParams.minImag).doubleValue() / height, minReal, maxImag,
+						pixelWidth, pixelHeight, maxPasses);
+				log(LOG_FRAME_HINT, this, frameHint.getKnownPixels() * 100L / (width * height));
 			}
-			if (canRecycleSubimages)
-				// clear subImages
-				for (SubImage subImage : subImages) {
-					Graphics g = subImage.subImage.getGraphics();
-					g.setColor(Color.black);
-					g.fillRect(0, 0, subImage.subImage.getWidth(null), subImage.subImage.getHeight(null));
-				}
 			else
-				subImages = new SubImage[horSections * verSections];
+				frameHint = null;
+			final int lastMaxPasses = lastParams == null ? 0 : lastParams.maxPasses;
+			imageParams = getParams();
+			imagePalette = palette;
+			this.imageKey = imageKey;
+			imageMakerClassUsed = makerClass;
+			this.imageSettings = imageSettings;
+			final MirroredArea mirroredArea = deepZoom || reusedArea != null
+					|| !(isMirrorSymmetric() || isPointSymmetric()) ? null : MirroredArea.find(width, height, minReal,
+					maxImag, pixelWidth, pixelHeight, isPointSymmetric());
+			final List<Rectangle> sections = new ArrayList<>();
+			if (reusedArea != null) {
+				log(LOG_SHIFTED, this, shift.x, shift.y, reusedArea.width * reusedArea.height);
+				// the strips that the shift exposed, above or below and left or right of the reused area
+				if (reusedArea.y > 0)
+					addSections(sections, new Rectangle(0, 0, width, reusedArea.y), !noHoles);
+				if (reusedArea.y + reusedArea.height < height)
+					addSections(sections, new Rectangle(0, reusedArea.y + reusedArea.height, width, height
+							- reusedArea.y - reusedArea.height), !noHoles);
+				if (reusedArea.x > 0)
+					addSections(sections, new Rectangle(0, reusedArea.y, reusedArea.x, reusedArea.height), !noHoles);
+				if (reusedArea.x + reusedArea.width < width)
+					addSections(sections, new Rectangle(reusedArea.x + reusedArea.width, reusedArea.y, width
+							- reusedArea.x - reusedArea.width, reusedArea.height), !noHoles);
+			}
+			else if (mirroredArea == null)
+				addSections(sections, new Rectangle(0, 0, width, height), !noHoles);
+			else {
+				log(LOG_MIRRORED, this, mirroredArea);
+				addSections(sections, mirroredArea.calculatedArea, !noHoles);
+				// the strips next to the mirrored area, whose mirror images lie outside the image
+				final Rectangle area = mirroredArea.area;
+				if (area.x > 0)
+					addSections(sections, new Rectangle(0, area.y, area.x, area.height), !noHoles);
+				if (area.x + area.width < width)
+					addSections(sections, new Rectangle(area.x + area.width, area.y, width - area.x - area.width,
+							area.height), !noHoles);
+			}
+			if (!noHoles)
+				sortCenterOut(sections);
+			final SubImage[] oldSubImages = subImages;
+			final int samplesPerPixel = superSamplingFactor * superSamplingFactor;
+			subImages = new SubImage[mirroredArea == null && reusedArea == null ? sections.size()
+					: sections.size() + 1];
+			if (reusedArea != null) {
+				// before the old sub images are recycled
+				final SubImage reused = new SubImage(image, reusedArea, samplesPerPixel);
+				reused.copyShifted(oldSubImages, shift.x, shift.y);
+				reused.resumable = false;
+				reused.calculated = true;
+				subImages[sections.size()] = reused;
+			}
+			// pixels that the image makers didn't draw yet, and sections inside the fractal, have the color of -1
+			final int[] pixels = CifImageMaker.getPixels(image);
+			if (reusedArea == null)
+				Arrays.fill(pixels, palette.getRgb(-1));
+			else
+				for (Rectangle section : sections)
+					for (int y = section.y; y < section.y + section.height; y++)
+						Arrays.fill(pixels, y * width + section.x, y * width + section.x + section.width,
+								palette.getRgb(-1));
+			// the old sub images are kept if they are resumed, and mustn't be recycled while their samples are reused
+			for (int i = 0; i < sections.size(); i++)
+				if (resume && i < oldSubImages.length && oldSubImages[i].resumable
+						&& oldSubImages[i].covers(image, sections.get(i), samplesPerPixel))
+					subImages[i] = oldSubImages[i];
+				else
+					subImages[i] = recycleSubImage(sampleReuse == null ? oldSubImages : null, i, sections.get(i),
+							samplesPerPixel);
+			if (mirroredArea != null) {
+				subImages[sections.size()] = recycleSubImage(sampleReuse == null ? oldSubImages : null,
+						sections.size(), mirroredArea.area, samplesPerPixel);
+				// the copied samples have no orbits
+				subImages[sections.size()].resumable = false;
+				subImages[sections.size()].filledIn = noHoles;
+			}
+			// the number of pixels whose image makers supersample them adaptively
+			long refinedArea = 0;
 			try {
-				for (int x = 0; x < horSections; x++)
-					for (int y = 0; y < verSections; y++) {
-						// TODO check if zoom settings will cause rounding
-						// errors due to limited computational accuracy
-						int currentWidth = x == horSections - 1 ? sectionWidth + width % horSections : sectionWidth;
-						int currentHeight = y == 0 ? sectionHeight + height % verSections : sectionHeight;
-						SubImage subImage;
-						if (canRecycleSubimages)
-							subImage = subImages[x * verSections + y];
-						else {
-							BufferedImage image = new BufferedImage(currentWidth, currentHeight, imageType);
-							subImage = new SubImage(x * sectionWidth, (verSections - y - 1) * sectionHeight, image);
+				final Constructor<? extends CifImageMaker> makerConstructor = makerClass.getConstructor(int.class,
+						int.class, double.class, double.class, double.class, double.class, int.class,
+						BufferedImage.class, int.class, int.class, ColorPalette.class, byte.class, CifFractal.class);
+				if (progressive && canvas != null && reusedArea == null && !resume) {
+					// calculate the previews first, they are cheap
+					// with adaptive SuperSampling, the image makers calculate the full resolution preview themselves
+					final Preview preview = new Preview(width, height, superSamplingFactor > 1
+							&& !adaptiveSuperSampling ? 1 : 2);
+					// the image makers of the lattices find their sub images in the preview
+					this.preview = preview;
+					for (final Preview.Lattice lattice : preview.lattices) {
+						final double latticeMinReal = minReal + lattice.offsetX * pixelWidth;
+						final double latticeMaxImag = maxImag - lattice.offsetY * pixelHeight;
+						final CifImageMaker maker = makerConstructor.newInstance(lattice.width, lattice.height,
+								latticeMinReal, latticeMinReal + lattice.width * lattice.spacing * pixelWidth,
+								latticeMaxImag - lattice.height * lattice.spacing * pixelHeight, latticeMaxImag,
+								maxPasses, lattice.image, 0, 0, palette, (byte) 1, this);
+						runningTasks.add(threadPool.submit(new Runnable() {
+							@Override
+							public void run() {
+								maker.calculate();
+								if (!maker.isInterrupted()) {
+									lattice.subImage.calculated = true;
+									final int spacing = preview.finished(lattice);
+									if (spacing != 0)
+										log(LOG_PREVIEW, CifFractal.this, spacing,
+												(System.nanoTime() - startTime) / 1000000);
+								}
+							}
+						}));
+						runningMakers.add(maker);
+					}
+					// the image makers take over the preview samples that lie on the centers of their pixels, unless
+					// the samples were guessed at the coarser spacing of the lattices
+					if ((superSamplingFactor % 2 == 1 || adaptiveSuperSampling)
+							&& !RectanglesImageMaker.class.isAssignableFrom(makerClass)
+							&& !BoundaryTraceImageMaker.class.isAssignableFrom(makerClass))
+						this.previewReuse = SampleReuse.ofPreview(preview, minReal, maxImag, pixelWidth, pixelHeight,
+								maxPasses);
+				}
+				else
+					preview = null;
+				this.sampleReuse = sampleReuse;
+				this.frameHint = frameHint;
+				final boolean adaptive = adaptiveSuperSampling && superSamplingFactor > 1;
+				// adaptive tiles compare their border pixels with those of their neighbors, see Refinement; they are
+				// only calculated once all of them are linked
+				final List<Refinement> refinements = new ArrayList<>();
+				final List<Runnable> linkedTasks = new ArrayList<>();
+				final List<FutureTask<?>> refineTasks = new ArrayList<>();
+				// the mirrored area is copied once the rest of the image is calculated, started by the last task of
+				// the calculation (see countDown)
+				final AtomicInteger pendingTasks = mirroredArea == null ? null : new AtomicInteger(1);
+				final FutureTask<?> mirrorCopy;
+				if (mirroredArea == null)
+					mirrorCopy = null;
+				else {
+					final SubImage[] sources = subImages;
+					final SubImage target = sources[sources.length - 1];
+					mirrorCopy = new FutureTask<>(new Runnable() {
+						@Override
+						public void run() {
+							// the calculation was stopped
+							for (SubImage source : sources)
+								if (source != target && !source.calculated)
+									return;
+							mirroredArea.copy(sources, target);
+							target.calculated = true;
+						}
+					}, null);
+				}
+				final TileCache tileCache = CifFractal.tileCache;
+				int loadedTiles = 0;
+				// batch calculations start with the sections that are predicted to take longest, so that no thread is
+				// left with a long one at the end; the sub images keep the order of the sections
+				final List<Integer> order = new ArrayList<>(sections.size());
+				for (int i = 0; i < sections.size(); i++)
+					order.add(i);
+				if (frameHint != null && canvas == null) {
+					final long[] costs = new long[sections.size()];
+					for (int i = 0; i < sections.size(); i++)
+						costs[i] = frameHint.cost(sections.get(i));
+					Collections.sort(order, new Comparator<Integer>() {
+						@Override
+						public int compare(final Integer section1, final Integer section2) {
+							return Long.compare(costs[section2], costs[section1]);
 						}
-						final CifImageMaker maker = imageMakerClass.getConstructor(int.class, int.class, double.class,
-								double.class, double.class, double.class, int.class, BufferedImage.class, int.class,
-								int.class, ColorPalette.class, byte.class, CifFractal.class).newInstance(currentWidth,
-								currentHeight, minReal + x * realWidth,
-								x == horSections - 1 ? maxReal : minReal + (x + 1) * realWidth,
-								minImag + y * imagHeight,
-								y == verSections - 1 ? maxImag : minImag + (y + 1) * imagHeight, maxPasses,
-								subImage.subImage, 0, 0, palette, superSamplingFactor, this);
-						runningTasks.add(executorService.submit(maker));
-						if (!canRecycleSubimages)
-							subImages[x * verSections + y] = subImage;
+					});
+				}
+				for (final int i : order) {
+					final Rectangle section = sections.get(i);
+					final SubImage subImage = subImages[i];
+					// like the render cache, the tile cache is keyed by the image maker, see TileCache
+					final String tileKey = tileCache == null ? null : imageKey + " " + section;
+					// the samples of pixel (x, y) are centered on (minReal + x * pixelWidth, maxImag - y * pixelHeight)
+					final double currentMinReal = minReal + section.x * pixelWidth;
+					final double currentMaxReal = minReal + (section.x + section.width) * pixelWidth;
+					final double currentMinImag = maxImag - (section.y + section.height) * pixelHeight;
+					final double currentMaxImag = maxImag - section.y * pixelHeight;
+					if (resume && subImage.calculated) {
+						// resumed sub images are the old ones, which were calculated
+						final SampleOrbits orbits = subImage.orbits;
+						subImage.orbits = new SampleOrbits();
+						subImage.calculated = false;
+						final CifImageMaker maker = makerConstructor.newInstance(section.width, section.height,
+								currentMinReal, currentMaxReal, currentMinImag, currentMaxImag, maxPasses, image,
+								section.x, section.y, palette, superSamplingFactor, this);
+						runningTasks.add(threadPool.submit(countDown(new Runnable() {
+							@Override
+							public void run() {
+								maker.resume(orbits, lastMaxPasses);
+								if (!maker.isInterrupted()) {
+									subImage.calculated = true;
+									if (tileCache != null)
+										tileCache.store(tileKey, subImage);
+								}
+							}
+						}, pendingTasks, mirrorCopy)));
+						runningMakers.add(maker);
 					}
-			}
-			catch (Exception e) {
-				e.printStackTrace();
-			}
-			new Thread(new Runnable() {
-				@Override
-				public void run() {
-					if (awaitCalculation()) {
-						stopTime = System.nanoTime();
-						for (ActionListener listener : calculationFinishedListeners)
-							listener.actionPerformed(null);
+					// SuperSampling samples may lie up to half a pixel outside the section
+					else if (!deepZoom
+							&& isInsideFractal(currentMinReal - pixelWidth, currentMaxReal + pixelWidth,
+									currentMinImag - pixelHeight, currentMaxImag + pixelHeight)) {
+						Arrays.fill(subImage.passes, -1);
+						subImage.calculated = true;
+						if (adaptive && !noHoles) {
+							final Refinement inside = new Refinement(superSamplingFactor, section);
+							inside.getFirstPasses(subImage.passes, samplesPerPixel);
+							refinements.add(inside);
+						}
+					}
+					else if (tileCache != null && tileCache.load(tileKey, subImage)) {
+						// drawn like a recolored sub image; its orbits weren't cached
+						loadedTiles++;
+						subImage.resumable = false;
+						// the tile cache is keyed by the image maker
+						subImage.filledIn = noHoles;
+						final ColorPalette palette = this.palette;
+						final int[] colors = getColors(palette, maxPasses);
+						runningTasks.add(threadPool.submit(countDown(new Runnable() {
+							@Override
+							public void run() {
+								subImage.resolve(colors, palette);
+								subImage.calculated = true;
+							}
+						}, pendingTasks, mirrorCopy)));
+					}
+					else {
+						int makerCount = 1;
+						if (noHoles) {
+							// the image makers share the trace, see NoHolesTrace; the strips next to a mirrored area
+							// are too narrow to share
+							if (i == 0)
+								makerCount = threadPool.getParallelism();
+							noHolesTrace = new NoHolesTrace(section, frameHint);
+							// the image makers only draw and store the passes of the pixels that they calculate
+							Arrays.fill(subImage.passes, -1);
+							subImage.resumable = false;
+							subImage.filledIn = true;
+						}
+						if (adaptive) {
+							refinement = new Refinement(superSamplingFactor, section);
+							refinedArea += section.width * section.height;
+						}
+						// the whole image of NoHoles image makers has no neighbors
+						final boolean linked = adaptive && !noHoles;
+						final AtomicInteger pendingMakers = new AtomicInteger(makerCount);
+						for (int j = 0; j < makerCount; j++) {
+							final CifImageMaker maker = makerConstructor.newInstance(section.width, section.height,
+									currentMinReal, currentMaxReal, currentMinImag, currentMaxImag, maxPasses, image,
+									section.x, section.y, palette, superSamplingFactor, this);
+							final Runnable task = new Runnable() {
+								@Override
+								public void run() {
+									maker.calculate();
+									if (!linked && !maker.isInterrupted() && pendingMakers.decrementAndGet() == 0) {
+										subImage.calculated = true;
+										if (tileCache != null)
+											tileCache.store(tileKey, subImage);
+									}
+								}
+							};
+							if (linked) {
+								final FutureTask<?> refine = new FutureTask<>(countDown(new Runnable() {
+									@Override
+									public void run() {
+										maker.refineSection();
+										if (!maker.isInterrupted()) {
+											subImage.calculated = true;
+											if (tileCache != null)
+												tileCache.store(tileKey, subImage);
+										}
+									}
+								}, pendingTasks, mirrorCopy), null);
+								refinement.refineWith(refine);
+								refinements.add(refinement);
+								linkedTasks.add(task);
+								refineTasks.add(refine);
+							}
+							else
+								runningTasks.add(threadPool.submit(countDown(task, pendingTasks, mirrorCopy)));
+							runningMakers.add(maker);
+						}
+						noHolesTrace = null;
+						refinement = null;
 					}
 				}
-			}, "CalculationTimeSetter").start();
+				Refinement.link(refinements);
+				for (Runnable task : linkedTasks)
+					runningTasks.add(threadPool.submit(task));
+				// a refinement never starts if the first samples of a neighbor failed, which is noticed first
+				runningTasks.addAll(refineTasks);
+				if (mirrorCopy != null) {
+					runningTasks.add(mirrorCopy);
+					if (pendingTasks.decrementAndGet() == 0)
+						threadPool.execute(mirrorCopy);
+				}
+				if (tileCache != null)
+					log(LOG_TILE_CACHE, this, loadedTiles, sections.size());
+			}
+			catch (ReflectiveOperationException e) {
+				throw new RuntimeException("Could not start the image makers!", e);
+			}
+			this.sampleReuse = null;
+			this.previewReuse = null;
+			this.frameHint = null;
+			finishCalculation(runningTasks, runningMakers, refinedArea);
 		}
 		else {
 			throw new IllegalStateException("Invalid values!");
 		}
 	}
 
+	/**
+	 * Wraps the specified task of a calculation so that the dependent task is started on the
+	 * {@link Core#getThreadPool() thread pool} once the last of the wrapped tasks finished, unless one of them failed.
+	 * Without pending tasks to count, the task is returned unchanged.
+	 *
+	 * @param task
+	 *            The task of the calculation.
+	 * @param pendingTasks
+	 *            The number of wrapped tasks that didn't finish yet, plus one until all of them are wrapped; or
+	 *            <code>null</code>.
+	 * @param dependent
+	 *            The task that waits for the calculation.
+	 */
+	private static Runnable countDown(final Runnable task, final AtomicInteger pendingTasks, final Runnable dependent) {
+		if (pendingTasks == null)
+			return task;
+		pendingTasks.incrementAndGet();
+		return new Runnable() {
+			@Override
+			public void run() {
+				task.run();
+				if (pendingTasks.decrementAndGet() == 0)
+					Core.getThreadPool().execute(dependent);
+			}
+		};
+	}
+
+	/**
+	 * Starts the CalculationTimeSetter, which waits for the specified tasks of the calculation, and then marks the
+	 * calculation as finished, logs the statistics of the image makers, and notifies the listeners.
+	 *
+	 * @param area
+	 *            The number of pixels whose image makers supersample them adaptively.
+	 */
+	private void finishCalculation(final List<Future<?>> tasks, final List<CifImageMaker> makers, final long area) {
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				if (await(tasks)) {
+					stopTime = System.nanoTime();
+					passesComplete = true;
+					if (periodicityChecking && !makers.isEmpty()) {
+						long savedPasses = 0;
+						for (CifImageMaker maker : makers)
+							savedPasses += maker.savedPasses;
+						log(LOG_SAVED_PASSES, CifFractal.this, savedPasses);
+					}
+					if (area > 0) {
+						long refinedPixels = 0;
+						for (CifImageMaker maker : makers)
+							refinedPixels += maker.refinedPixels;
+						log(LOG_ADAPTIVE, CifFractal.this, refinedPixels, area);
+					}
+					long reusedSamples = 0, continuedOrbits = 0;
+					for (CifImageMaker maker : makers) {
+						reusedSamples += maker.reusedSamples;
+						continuedOrbits += maker.continuedOrbits;
+					}
+					if (reusedSamples > 0)
+						log(LOG_REUSED, CifFractal.this, reusedSamples, continuedOrbits);
+					long fullPrecisionSamples = 0;
+					for (CifImageMaker maker : makers)
+						fullPrecisionSamples += maker.fullPrecisionSamples;
+					if (fullPrecisionSamples > 0)
+						log(LOG_FULL_PRECISION, CifFractal.this, fullPrecisionSamples);
+					for (ActionListener listener : calculationFinishedListeners)
+						listener.actionPerformed(null);
+				}
+			}
+		}, "CalculationTimeSetter").start();
+	}
+
+	/**
+	 * Puts the samples of the last calculation into the {@link RenderCache} if it finished and they aren't cached yet.
+	 * This happens before the next calculation recycles the sub images, so that they can't change while they are
+	 * copied.
+	 */
+	private void cacheImage() {
+		if (passesComplete && imageKey != null) {
+			renderCache.put(imageKey, subImages);
+			imageKey = null;
+		}
+	}
+
+	/**
+	 * Adds the specified area of the image to the sections, cut into tiles of at most {@link #TILE_SIZE} pixels
+	 * square of (almost) equal size if <code>tiled</code> is <code>true</code>, or as a whole otherwise.
+	 */
+	private static void addSections(final List<Rectangle> sections, final Rectangle area, final boolean tiled) {
+		final int columns = tiled ? (area.width + TILE_SIZE - 1) / TILE_SIZE : 1;
+		final int rows = tiled ? (area.height + TILE_SIZE - 1) / TILE_SIZE : 1;
+		for (int row = 0; row < rows; row++) {
+			final int minY = area.y + row * area.height / rows;
+			final int maxY = area.y + (row + 1) * area.height / rows;
+			for (int column = 0; column < columns; column++) {
+				final int minX = area.x + column * area.width / columns;
+				final int maxX = area.x + (column + 1) * area.width / columns;
+				sections.add(new Rectangle(minX, minY, maxX - minX, maxY - minY));
+			}
+		}
+	}
+
+	/**
+	 * Sorts the sections by the distance of their centers from the center of the image, which is usually the
+	 * interesting part of it, so that it is calculated first. The order only depends on the sections, so that the sub
+	 * images can be {@link #recycleSubImage(SubImage[], int, Rectangle, int) recycled}.
+	 */
+	private void sortCenterOut(final List<Rectangle> sections) {
+		final int width = this.width, height = this.height;
+		Collections.sort(sections, new Comparator<Rectangle>() {
+			@Override
+			public int compare(final Rectangle section1, final Rectangle section2) {
+				return Long.compare(distance(section1), distance(section2));
+			}
+
+			/**
+			 * @return the square of twice the distance, which is an integer
+			 */
+			private long distance(final Rectangle section) {
+				final long dx = 2 * section.x + section.width - width;
+				final long dy = 2 * section.y + section.height - height;
+				return dx * dx + dy * dy;
+			}
+		});
+	}
+
+	/**
+	 * Determines whether the current view is the view of the last calculation, moved by a whole number of pixels, so
+	 * that the pixels of the last image can be reused. The other settings must be checked by the caller.
+	 *
+	 * @return The shift of the view in pixels, so that pixel <code>(x, y)</code> of the current image is pixel
+	 *         <code>(x + shift.x, y + shift.y)</code> of the last image; or <code>null</code> if the view wasn't moved
+	 *         by whole pixels, or not at all, or so far that none of the last image remains.
+	 */
+	private Point findShift(final double pixelWidth, final double pixelHeight) {
+		if (imageParams == null)
+			return null;
+		// the shifts of opposite boundaries only agree if the size of the pixels didn't change
+		final double shiftX = minReal.subtract(imageParams.minReal).doubleValue() / pixelWidth;
+		final double shiftX2 = maxReal.subtract(imageParams.maxReal).doubleValue() / pixelWidth;
+		final double shiftY = imageParams.maxImag.subtract(maxImag).doubleValue() / pixelHeight;
+		final double shiftY2 = imageParams.minImag.subtract(minImag).doubleValue() / pixelHeight;
+		final long x = Math.round(shiftX), y = Math.round(shiftY);
+		if (Math.abs(shiftX - x) > SHIFT_TOLERANCE || Math.abs(shiftX2 - x) > SHIFT_TOLERANCE
+				|| Math.abs(shiftY - y) > SHIFT_TOLERANCE || Math.abs(shiftY2 - y) > SHIFT_TOLERANCE)
+			return null;
+		if (x == 0 && y == 0 || Math.abs(x) >= width || Math.abs(y) >= height)
+			return null;
+		return new Point((int) x, (int) y);
+	}
+
+	/**
+	 * @return <code>true</code> if the specified parameters have the bounds of the current view, <code>false</code>
+	 *         otherwise
+	 */
+	private boolean isView(final CifParams params) {
+		return minReal.compareTo(params.minReal) == 0 && maxReal.compareTo(params.maxReal) == 0
+				&& minImag.compareTo(params.minImag) == 0 && maxImag.compareTo(params.maxImag) == 0;
+	}
+
+	/**
+	 * Returns the old sub image with the specified index, with its passes cleared, if it covers the specified section
+	 * of the current image, or a new sub image for the section otherwise.
+	 */
+	private SubImage recycleSubImage(final SubImage[] oldSubImages, final int index, final Rectangle section,
+			final int samplesPerPixel) {
+		if (oldSubImages != null && index < oldSubImages.length) {
+			final SubImage subImage = oldSubImages[index];
+			if (subImage != null && subImage.covers(image, section, samplesPerPixel)) {
+				Arrays.fill(subImage.passes, SubImage.NO_SAMPLE);
+				subImage.orbits = new SampleOrbits();
+				subImage.resumable = true;
+				subImage.filledIn = false;
+				subImage.calculated = false;
+				return subImage;
+			}
+		}
+		return new SubImage(image, section, samplesPerPixel);
+	}
+
 	boolean isRunning() {
 		if (runningTasks == null)
 			return false;
@@ -419,7 +1278,8 @@ public abstract class CifFractal implements ZoomableFractal {
 	}
 
 	private boolean checkValues() {
-		return maxReal > minReal && maxImag > minImag && superSamplingFactor > 0 && palette != null && maxPasses > 0;
+		return maxReal.compareTo(minReal) > 0 && maxImag.compareTo(minImag) > 0 && superSamplingFactor > 0
+				&& palette != null && maxPasses > 0;
 	}
 
 	@Override
@@ -433,16 +1293,16 @@ public abstract class CifFractal implements ZoomableFractal {
 				setImageSize(new Dimension(getImageSize().width, Integer.parseInt(optionContent)));
 				return;
 			case "minReal":
-				params = params.copyChangeMinReal(Double.parseDouble(optionContent));
+				params = params.copyChangeMinReal(new BigDecimal(optionContent));
 				break;
 			case "maxReal":
-				params = params.copyChangeMaxReal(Double.parseDouble(optionContent));
+				params = params.copyChangeMaxReal(new BigDecimal(optionContent));
 				break;
 			case "minImag":
-				params = params.copyChangeMinImag(Double.parseDouble(optionContent));
+				params = params.copyChangeMinImag(new BigDecimal(optionContent));
 				break;
 			case "maxImag":
-				params = params.copyChangeMaxImag(Double.parseDouble(optionContent));
+				params = params.copyChangeMaxImag(new BigDecimal(optionContent));
 				break;
 			case "maxPasses":
 				params = params.copyChangeMaxPasses(Integer.parseInt(optionContent));
@@ -450,17 +1310,100 @@ public abstract class CifFractal implements ZoomableFractal {
 			case "superSamplingFactor":
 				params = params.copyChangeSuperSamplingFactor(Byte.parseByte(optionContent));
 				break;
+			case "periodicityChecking":
+				setPeriodicityChecking(Boolean.parseBoolean(optionContent));
+				return;
+			case "imageMaker":
+				setImageMakerClass(optionContent);
+				return;
+			case "progressive":
+				setProgressive(Boolean.parseBoolean(optionContent));
+				return;
+			case "adaptiveSuperSampling":
+				setAdaptiveSuperSampling(Boolean.parseBoolean(optionContent));
+				return;
+			case "renderCacheSize":
+				setRenderCacheSize(Long.parseLong(optionContent) << 20);
+				return;
+			case "tileCacheDirectory":
+			case "tileCacheSize":
+				try {
+					if (optionName.equals("tileCacheDirectory"))
+						setTileCacheDirectory(Paths.get(optionContent));
+					else
+						setTileCacheSize(Long.parseLong(optionContent) << 20);
+				}
+				catch (IOException e) {
+					throw new IllegalCommandLineException("Can't use the tile cache directory!", e);
+				}
+				return;
 			default:
 				throw new IllegalCommandLineException(
 						"Unknown option \""
 								+ optionName
 								+ "\" for fractal "
 								+ getClass().getSimpleName()
-								+ "! Known options: width, height, minReal, maxReal, minImag, maxImag, maxPasses, superSamplingFactor");
+								+ "! Known options: width, height, minReal, maxReal, minImag, maxImag, maxPasses, superSamplingFactor,"
+								+ " periodicityChecking, imageMaker, progressive, adaptiveSuperSampling,"
+								+ " renderCacheSize, tileCacheDirectory, tileCacheSize");
 		}
 		setParams(params, false);
 	}
 
+	/**
+	 * Determines whether the specified area is known to lie completely inside the fractal, i.&nbsp;e. whether all points
+	 * in it would be colored with <code>palette.getColor(-1)</code>. Sections of the image for which this is the case
+	 * are filled directly, without starting an image maker for them.
+	 * <p>
+	 * Implementations must not return <code>true</code> unless they are sure. The default implementation always
+	 * returns <code>false</code>.
+	 * 
+	 * @return <code>true</code> if the area lies completely inside the fractal, <code>false</code> if it doesn't or if
+	 *         that's unknown.
+	 */
+	protected boolean isInsideFractal(double minReal, double maxReal, double minImag, double maxImag) {
+		return false;
+	}
+
+	/**
+	 * Determines whether the fractal is symmetric to the real axis. If it is, image makers only calculate one side of
+	 * the real axis, and the other side is copied.
+	 * <p>
+	 * The default implementation returns <code>false</code>.
+	 * 
+	 * @return <code>true</code> if the pixels <code>c</code> and <code>conj(c)</code> always get the same number of
+	 *         passes, <code>false</code> otherwise.
+	 */
+	protected boolean isMirrorSymmetric() {
+		return false;
+	}
+
+	/**
+	 * Determines whether the fractal is symmetric to the origin. If it is, image makers only calculate one side of the
+	 * real axis, and the other side is copied.
+	 * <p>
+	 * The default implementation returns <code>false</code>.
+	 * 
+	 * @return <code>true</code> if the pixels <code>z</code> and <code>-z</code> always get the same number of passes,
+	 *         <code>false</code> otherwise.
+	 */
+	protected boolean isPointSymmetric() {
+		return false;
+	}
+
+	/**
+	 * Returns the parameters of the formula of the fractal, other than the boundaries, as an object that is equal to
+	 * the result of a later call if and only if the parameters didn't change in between. The pixels of an image are
+	 * only reused for the next calculation if the parameters are the same.
+	 * <p>
+	 * The default implementation returns <code>null</code>, for fractals without such parameters.
+	 *
+	 * @return The parameters of the formula.
+	 */
+	protected Object getFormulaParams() {
+		return null;
+	}
+
 	/**
 	 * Determines the area that should be included in the start area.
 	 * <p>
@@ -474,34 +1417,35 @@ public abstract class CifFractal implements ZoomableFractal {
 	@Override
 	public void shutdown() {
 		log(LOG_SHUTDOWN, this);
-		executorService.shutdown();
+		// the thread pool is shared by all fractals, and its threads don't keep the JVM alive
+		stopCalculation();
 	}
 
 	/**
 	 * @return the minReal
 	 */
-	double getMinReal() {
+	BigDecimal getMinReal() {
 		return minReal;
 	}
 
 	/**
 	 * @return the maxReal
 	 */
-	double getMaxReal() {
+	BigDecimal getMaxReal() {
 		return maxReal;
 	}
 
 	/**
 	 * @return the minImag
 	 */
-	double getMinImag() {
+	BigDecimal getMinImag() {
 		return minImag;
 	}
 
 	/**
 	 * @return the maxImag
 	 */
-	double getMaxImag() {
+	BigDecimal getMaxImag() {
 		return maxImag;
 	}
 
@@ -526,11 +1470,18 @@ public abstract class CifFractal implements ZoomableFractal {
 		return maxPasses;
 	}
 
+	/**
+	 * @return whether the image makers should use periodicity checking
+	 */
+	boolean isPeriodicityChecking() {
+		return periodicityChecking;
+	}
+
 	/**
 	 * @param minReal
 	 *            the minReal to set
 	 */
-	void setMinReal(final double minReal) {
+	void setMinReal(final BigDecimal minReal) {
 		this.minReal = minReal;
 	}
 
@@ -538,7 +1489,7 @@ public abstract class CifFractal implements ZoomableFractal {
 	 * @param maxReal
 	 *            the maxReal to set
 	 */
-	void setMaxReal(final double maxReal) {
+	void setMaxReal(final BigDecimal maxReal) {
 		this.maxReal = maxReal;
 	}
 
@@ -546,7 +1497,7 @@ public abstract class CifFractal implements ZoomableFractal {
 	 * @param minImag
 	 *            the minImag to set
 	 */
-	void setMinImag(final double minImag) {
+	void setMinImag(final BigDecimal minImag) {
 		this.minImag = minImag;
 	}
 
@@ -554,10 +1505,140 @@ public abstract class CifFractal implements ZoomableFractal {
 	 * @param maxImag
 	 *            the maxImag to set
 	 */
-	void setMaxImag(final double maxImag) {
+	void setMaxImag(final BigDecimal maxImag) {
 		this.maxImag = maxImag;
 	}
 
+	/**
+	 * Determines the precision for calculations on the boundaries: enough digits to resolve a pixel, plus some guard
+	 * digits.
+	 * 
+	 * @return the math context
+	 */
+	MathContext getMathContext() {
+		return getMathContext(Math.min(maxReal.subtract(minReal).doubleValue() / width, maxImag.subtract(minImag)
+				.doubleValue() / height));
+	}
+
+	/**
+	 * Determines the precision for calculations on samples that are the specified distance apart.
+	 */
+	private static MathContext getMathContext(final double pixelSize) {
+		final int pixelDigits = pixelSize > 0 ? Math.max(0, (int) Math.ceil(-Math.log10(pixelSize))) : 0;
+		return new MathContext(GUARD_DIGITS + pixelDigits);
+	}
+
+	/**
+	 * @return the real part of the origin of the current calculation, or <code>null</code> if it doesn't use one
+	 */
+	DoubleDouble getOriginReal() {
+		return originReal;
+	}
+
+	/**
+	 * @return the imaginary part of the origin of the current calculation, or <code>null</code> if it doesn't use one
+	 */
+	DoubleDouble getOriginImag() {
+		return originImag;
+	}
+
+	/**
+	 * @return the reference orbit of the current calculation, or <code>null</code> if it doesn't use one
+	 */
+	ReferenceOrbit getReferenceOrbit() {
+		return referenceOrbit;
+	}
+
+	/**
+	 * @return the sub image that covers the specified area of the specified image, or <code>null</code> if there is no
+	 *         such sub image; the image may also be a {@link Preview.Lattice lattice} of the preview
+	 */
+	SubImage getSubImage(final BufferedImage image, final int x, final int y, final int width, final int height) {
+		final SubImage[] subImages = this.subImages;
+		if (subImages != null)
+			for (SubImage subImage : subImages)
+				if (subImage != null && subImage.image == image && subImage.offsetX == x && subImage.offsetY == y
+						&& subImage.width == width && subImage.height == height)
+					return subImage;
+		final Preview preview = this.preview;
+		if (preview != null)
+			for (Preview.Lattice lattice : preview.lattices)
+				if (lattice.image == image)
+					return lattice.subImage;
+		return null;
+	}
+
+	/**
+	 * Gets the {@link ColorPalette#compile(int) compiled} palette. The palette is only compiled once per calculation,
+	 * and shared by all image makers.
+	 */
+	synchronized int[] getColors(final ColorPalette palette, final int maxPasses) {
+		if (colors == null || colorsPalette != palette || colorsMaxPasses != maxPasses) {
+			colors = palette.compile(maxPasses);
+			colorsPalette = palette;
+			colorsMaxPasses = maxPasses;
+		}
+		return colors;
+	}
+
+	/**
+	 * @return the trace that is shared by the {@link NoHolesImageMaker}s that are being created, or <code>null</code>
+	 *         if they don't share one
+	 */
+	NoHolesTrace getNoHolesTrace() {
+		return noHolesTrace;
+	}
+
+	/**
+	 * @return the adaptive SuperSampling of the section whose image makers are being created, or <code>null</code> if
+	 *         all their pixels are supersampled
+	 */
+	Refinement getRefinement() {
+		return refinement;
+	}
+
+	/**
+	 * @return the samples of the last calculation that the image makers that are being created can take over, or
+	 *         <code>null</code> if there are none
+	 */
+	SampleReuse getSampleReuse() {
+		return sampleReuse;
+	}
+
+	/**
+	 * @return the samples of the preview that the image makers that are being created can take over, or
+	 *         <code>null</code> if there are none
+	 */
+	SampleReuse getPreviewReuse() {
+		return previewReuse;
+	}
+
+	/**
+	 * @return the prediction of the passes of the pixels that the image makers that are being created can use, or
+	 *         <code>null</code> if there is none
+	 */
+	FrameHint getFrameHint() {
+		return frameHint;
+	}
+
+	/**
+	 * Calculates the orbit of the specified point with arbitrary precision. Only needs to be implemented by fractals
+	 * that support deep zooms.
+	 * 
+	 * @param real
+	 *            The real part of the point.
+	 * @param imag
+	 *            The imaginary part of the point.
+	 * @param maxPasses
+	 *            The maximum number of passes.
+	 * @param mathContext
+	 *            The precision.
+	 * @return The orbit of the point.
+	 */
+	ReferenceOrbit calculateReferenceOrbit(BigDecimal real, BigDecimal imag, int maxPasses, MathContext mathContext) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support deep zooms");
+	}
+
 	/**
 	 * @param palette
 	 *            the palette to set
@@ -582,6 +1663,170 @@ public abstract class CifFractal implements ZoomableFractal {
 		this.maxPasses = maxPasses;
 	}
 
+	/**
+	 * @param periodicityChecking
+	 *            whether the image makers should use periodicity checking
+	 */
+	void setPeriodicityChecking(final boolean periodicityChecking) {
+		this.periodicityChecking = periodicityChecking;
+	}
+
+	/**
+	 * @return whether calculations for the canvas start with a {@link Preview preview}
+	 */
+	boolean isProgressive() {
+		return progressive;
+	}
+
+	/**
+	 * @param progressive
+	 *            whether calculations for the canvas should start with a {@link Preview preview}
+	 */
+	void setProgressive(final boolean progressive) {
+		this.progressive = progressive;
+	}
+
+	/**
+	 * @return whether only the edge pixels are supersampled (see {@link Refinement})
+	 */
+	boolean isAdaptiveSuperSampling() {
+		return adaptiveSuperSampling;
+	}
+
+	/**
+	 * @param adaptiveSuperSampling
+	 *            whether only the edge pixels should be supersampled (see {@link Refinement})
+	 */
+	void setAdaptiveSuperSampling(final boolean adaptiveSuperSampling) {
+		this.adaptiveSuperSampling = adaptiveSuperSampling;
+	}
+
+	/**
+	 * @return the budget of the {@link RenderCache}, which is shared by all fractals, in bytes
+	 */
+	static long getRenderCacheSize() {
+		return renderCache.getBudget();
+	}
+
+	/**
+	 * @param bytes
+	 *            the budget of the {@link RenderCache}, which is shared by all fractals, in bytes; <code>0</code>
+	 *            disables it
+	 */
+	static void setRenderCacheSize(final long bytes) {
+		renderCache.setBudget(bytes);
+	}
+
+	/**
+	 * @return the directory of the {@link TileCache}, which is shared by all fractals, or <code>null</code> if tiles
+	 *         aren't cached on disk
+	 */
+	static Path getTileCacheDirectory() {
+		final TileCache tileCache = CifFractal.tileCache;
+		return tileCache == null ? null : tileCache.getDirectory();
+	}
+
+	/**
+	 * @param directory
+	 *            the directory of the {@link TileCache}, which is shared by all fractals, or <code>null</code> to stop
+	 *            caching tiles on disk
+	 * @throws IOException
+	 *             If the directory can't be created or read.
+	 */
+	static synchronized void setTileCacheDirectory(final Path directory) throws IOException {
+		tileCache = directory == null ? null : new TileCache(directory, tileCacheSize);
+	}
+
+	/**
+	 * @return the budget of the {@link TileCache} in bytes
+	 */
+	static synchronized long getTileCacheSize() {
+		return tileCacheSize;
+	}
+
+	/**
+	 * @param bytes
+	 *            the budget of the {@link TileCache} in bytes
+	 * @throws IOException
+	 *             If the files of the cache can't be read or evicted.
+	 */
+	static synchronized void setTileCacheSize(final long bytes) throws IOException {
+		tileCacheSize = bytes;
+		if (tileCache != null)
+			tileCache = new TileCache(tileCache.getDirectory(), bytes);
+	}
+
+	/**
+	 * Returns the class of the image makers for views that <code>double</code> precision can handle. Subclasses may
+	 * override this to choose a faster image maker for the current parameters, unless {@link #isImageMakerChosen() the
+	 * image maker was chosen} explicitly.
+	 * 
+	 * @return the image maker class
+	 */
+	Class<? extends CifImageMaker> getImageMakerClass() {
+		return imageMakerClass;
+	}
+
+	/**
+	 * @return the class of the image makers for samples that are the specified distance apart: the
+	 *         {@link #getImageMakerClass() default one}, or one of the classes for deeper zooms if <code>double</code>
+	 *         precision can't handle the distance
+	 */
+	private Class<? extends CifImageMaker> getImageMakerClass(final double sampleSize) {
+		if (sampleSize >= DOUBLE_PRECISION_LIMIT
+				|| (doubleDoubleImageMakerClass == null && deepZoomImageMakerClass == null))
+			return getImageMakerClass();
+		if (doubleDoubleImageMakerClass != null
+				&& (sampleSize >= DOUBLE_DOUBLE_LIMIT || deepZoomImageMakerClass == null))
+			return doubleDoubleImageMakerClass;
+		return deepZoomImageMakerClass;
+	}
+
+	/**
+	 * @return whether the image maker class was set explicitly with {@link #setImageMakerClass(String)}
+	 */
+	boolean isImageMakerChosen() {
+		return imageMakerChosen;
+	}
+
+	/**
+	 * Sets the class of the image makers for views that <code>double</code> precision can handle.
+	 * 
+	 * @param name
+	 *            The fully qualified name of the class, or the name of one of the image makers of this fractal without
+	 *            the prefix that they share, e. g. <code>BoundaryTrace</code> for
+	 *            <code>MandelbrotImageMaker_BoundaryTrace</code>.
+	 * @throws IllegalCommandLineException
+	 *             If there is no such image maker, or if it is one of the image makers for deeper zooms, which are
+	 *             chosen automatically by the size of the samples.
+	 */
+	void setImageMakerClass(final String name) {
+		final String className;
+		if (name.contains("."))
+			className = name;
+		else {
+			// MandelbrotImageMaker_NoHoles -> MandelbrotImageMaker_
+			final String defaultName = imageMakerClass.getName();
+			className = defaultName.substring(0, defaultName.lastIndexOf('_') + 1) + name;
+		}
+		final Class<? extends CifImageMaker> makerClass;
+		try {
+			makerClass = Class.forName(className).asSubclass(CifImageMaker.class);
+		}
+		catch (ClassNotFoundException | ClassCastException e) {
+			throw new IllegalCommandLineException("Unknown image maker \"" + name + "\" for fractal "
+					+ getClass().getSimpleName() + "!", e);
+		}
+		// they work relative to an origin or a reference orbit, which only deep zooms calculate
+		if (DoubleDoubleImageMaker.class.isAssignableFrom(makerClass)
+				|| PerturbationImageMaker.class.isAssignableFrom(makerClass))
+			throw new IllegalCommandLineException("Image maker \"" + name
+					+ "\" is only used for deep zooms, where it is chosen automatically!");
+		imageMakerClass = makerClass;
+		imageMakerChosen = true;
+	}
+
+	@Override
 	public void setImageSize(Dimension d) {
 		width = d.width;
 		height = d.height;
@@ -621,10 +1866,19 @@ public abstract class CifFractal implements ZoomableFractal {
 
 	@Override
 	public boolean awaitCalculation() {
-		if (runningTasks == null)
+		return await(runningTasks);
+	}
+
+	/**
+	 * Waits until the specified tasks are done.
+	 * 
+	 * @return <code>true</code> if all tasks finished, <code>false</code> if any of them was cancelled or failed.
+	 */
+	private static boolean await(final List<Future<?>> tasks) {
+		if (tasks == null)
 			return true;
 		try {
-			for (Future<?> f : runningTasks)
+			for (Future<?> f : tasks)
 				f.get();
 			return true;
 		}
@@ -648,25 +1902,12 @@ public abstract class CifFractal implements ZoomableFractal {
 			start.width = targetAR * start.height;
 			start.x = startCenter - start.width / 2;
 		}
-		minReal = start.x;
-		maxReal = start.x + start.width;
-		minImag = start.y;
-		maxImag = start.y + start.height;
+		minReal = BigDecimal.valueOf(start.x);
+		maxReal = BigDecimal.valueOf(start.x + start.width);
+		minImag = BigDecimal.valueOf(start.y);
+		maxImag = BigDecimal.valueOf(start.y + start.height);
 		palette = new SimplePalette();
 		superSamplingFactor = 1;
 		maxPasses = 1000;
 	}
 }
-
-class SubImage {
-	final int			offsetX;
-	final int			offsetY;
-	final BufferedImage	subImage;
-
-	SubImage(int offsetX, int offsetY, BufferedImage subImage) {
-		super();
-		this.offsetX = offsetX;
-		this.offsetY = offsetY;
-		this.subImage = subImage;
-	}
-}
\ No newline at end of file
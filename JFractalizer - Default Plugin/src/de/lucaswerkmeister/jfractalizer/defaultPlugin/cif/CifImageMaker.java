@@ -13,7 +13,11 @@
  */
 package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
 
+import java.awt.Color;
+import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 
 import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
 
@@ -25,6 +29,19 @@ import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
  * 
  */
 public abstract class CifImageMaker extends Thread {
+	/**
+	 * The tolerance of the periodicity checking, relative to the distance between two samples: If an orbit comes closer
+	 * than this to a previously saved point of the orbit, it is considered periodic.
+	 */
+	static final double	PERIODICITY_TOLERANCE_FACTOR	= 1.0 / 1024;
+	/**
+	 * What is known about the orbit of the last sample that didn't escape: nothing, that it never escapes, or that it
+	 * ran out of passes (see {@link #storePasses(int, int, int, int)}).
+	 */
+	static final int	ORBIT_UNKNOWN					= 0;
+	static final int	ORBIT_BOUNDED					= 1;
+	static final int	ORBIT_SUSPENDED					= 2;
+
 	final int			width;
 	final int			height;
 	final double		minReal;
@@ -36,8 +53,80 @@ public abstract class CifImageMaker extends Thread {
 	final int			targetX;
 	final int			targetY;
 	final ColorPalette	palette;
+	/**
+	 * The {@link ColorPalette#compile(int) compiled} palette: The RGB value for <code>passes</code> is
+	 * <code>colors[passes + 1]</code>.
+	 */
+	final int[]			colors;
 	final byte			superSamplingFactor;
 	final CifFractal	fractal;
+	final boolean		periodicityChecking;
+	final double		periodicityTolerance;
+	/**
+	 * The number of passes that were skipped because periodicity checking detected a periodic orbit.
+	 */
+	long				savedPasses						= 0;
+	/**
+	 * The number of pixels that were supersampled by the {@link #refinement}.
+	 */
+	long				refinedPixels					= 0;
+	/**
+	 * The number of samples that perturbation couldn't calculate, which were iterated with arbitrary precision instead
+	 * (see {@link PerturbationImageMaker}).
+	 */
+	long				fullPrecisionSamples			= 0;
+	/**
+	 * The number of samples that were taken over from the last calculation, and the number of suspended orbits among
+	 * them that were continued.
+	 */
+	long				reusedSamples					= 0;
+	long				continuedOrbits					= 0;
+	/**
+	 * The sub image of the fractal that is the generated image, or <code>null</code> if there is none.
+	 */
+	final SubImage		subImage;
+	/**
+	 * The passes of each sample of the generated image (see {@link SubImage#passes}), or <code>null</code> if the
+	 * generated image is not a sub image of the fractal.
+	 */
+	private final int[]	passesBuffer;
+	/**
+	 * The samples of the last calculation that can be taken over, or <code>null</code>.
+	 */
+	final SampleReuse	reuse;
+	/**
+	 * The samples of the {@link Preview previews} of the fractal's image that can be taken over, or <code>null</code>.
+	 */
+	final SampleReuse	previewReuse;
+	/**
+	 * The predicted passes of the pixels of the fractal's image, or <code>null</code>.
+	 */
+	final FrameHint		hint;
+	private int			orbitState						= ORBIT_UNKNOWN;
+	private double		orbitZReal, orbitZImag, orbitCReal, orbitCImag;
+	final int			samplesPerPixel;
+	/**
+	 * The number of samples per pixel in the {@link #passesBuffer}, which is larger than {@link #samplesPerPixel} if
+	 * the pixels are {@link #refinement refined}.
+	 */
+	private final int	bufferSamplesPerPixel;
+	/**
+	 * The adaptive SuperSampling of the generated image, or <code>null</code> if all pixels are supersampled. If it is
+	 * set, the {@link #superSamplingFactor} of the image maker is <code>1</code>, and the edge pixels are supersampled
+	 * afterwards.
+	 */
+	final Refinement	refinement;
+	/**
+	 * The pixels of the target image (see {@link #getPixels(BufferedImage)}), or <code>null</code> if they can't be
+	 * accessed directly.
+	 */
+	private final int[]	targetPixels;
+	private final int	targetWidth;
+	volatile boolean	cancelled						= false;
+	/**
+	 * Held while the image maker {@link #calculate() runs}.
+	 */
+	final Object		runLock							= new Object();
 
 	/**
 	 * Creates a new instance of the CifImageMaker with specified bounds.
@@ -83,11 +172,393 @@ public abstract class CifImageMaker extends Thread {
 		this.targetX = targetX;
 		this.targetY = targetY;
 		this.palette = palette;
-		this.superSamplingFactor = superSamplingFactor;
+		this.colors = fractal.getColors(palette, maxPasses);
+		this.refinement = fractal.getRefinement();
+		this.superSamplingFactor = refinement == null ? superSamplingFactor : 1;
 		this.fractal = fractal;
+		this.periodicityChecking = fractal.isPeriodicityChecking();
+		this.periodicityTolerance = Math.min((maxReal - minReal) / width, (maxImag - minImag) / height)
+				/ superSamplingFactor * PERIODICITY_TOLERANCE_FACTOR;
+		this.subImage = fractal.getSubImage(targetImage, targetX, targetY, width, height);
+		this.passesBuffer = subImage == null ? null : subImage.passes;
+		this.reuse = subImage == null ? null : fractal.getSampleReuse();
+		this.previewReuse = subImage == null ? null : fractal.getPreviewReuse();
+		this.hint = subImage == null ? null : fractal.getFrameHint();
+		this.samplesPerPixel = this.superSamplingFactor * this.superSamplingFactor;
+		this.bufferSamplesPerPixel = superSamplingFactor * superSamplingFactor;
+		this.targetPixels = getPixels(targetImage);
+		this.targetWidth = targetImage.getWidth();
+	}
+
+	/**
+	 * Calculates the passes of a sample.
+	 * 
+	 * @param real
+	 *            The real part of the sample, in the coordinates of {@link #minReal} and {@link #maxReal}.
+	 * @param imag
+	 *            The imaginary part of the sample, in the coordinates of {@link #minImag} and {@link #maxImag}.
+	 * @return The number of passes, or <code>-1</code> if the sample didn't escape.
+	 */
+	protected abstract int calculatePasses(double real, double imag);
+
+	/**
+	 * Calculates the passes of several samples like {@link #calculatePasses(double, double)}, except for those whose
+	 * passes are already known. Subclasses may override this method to calculate the samples together.
+	 *
+	 * @param real
+	 *            The real parts of the samples.
+	 * @param imag
+	 *            The imaginary parts of the samples.
+	 * @param passes
+	 *            The passes of the samples, which are calculated where they are {@link SubImage#NO_SAMPLE}.
+	 */
+	void calculateSamples(final double[] real, final double[] imag, final int[] passes) {
+		for (int sample = 0; sample < passes.length; sample++)
+			if (passes[sample] == SubImage.NO_SAMPLE)
+				passes[sample] = calculatePasses(real[sample], imag[sample]);
+	}
+
+	/**
+	 * Calculates the passes of a sample like {@link #calculatePasses(double, double)}, unless they can be taken over
+	 * from the last calculation or the previews (see {@link SampleReuse}). Image makers that
+	 * {@link #storePasses(int, int, int, int) store} the passes of each sample right after calculating it should use
+	 * this method.
+	 */
+	final int samplePasses(final double real, final double imag) {
+		final int passes = reusedPasses(real, imag, false);
+		return passes != SubImage.NO_SAMPLE ? passes : calculatePasses(real, imag);
+	}
+
+	/**
+	 * Takes over the passes of a sample from the last calculation or the previews if it escaped, for image makers that
+	 * calculate many samples before they store their passes.
+	 *
+	 * @return The passes, or {@link SubImage#NO_SAMPLE} if the sample must be calculated.
+	 */
+	final int reusedPasses(final double real, final double imag) {
+		return reusedPasses(real, imag, true);
+	}
+
+	private int reusedPasses(final double real, final double imag, final boolean escapedOnly) {
+		int passes = reuse == null ? SubImage.NO_SAMPLE : reuse.passes(real, imag, this, escapedOnly);
+		if (passes == SubImage.NO_SAMPLE && previewReuse != null)
+			passes = previewReuse.passes(real, imag, this, escapedOnly);
+		if (passes != SubImage.NO_SAMPLE)
+			reusedSamples++;
+		return passes;
+	}
+
+	/**
+	 * Notes that the sample whose passes are stored next never escapes.
+	 */
+	final void orbitBounded() {
+		orbitState = ORBIT_BOUNDED;
+	}
+
+	/**
+	 * Notes that the sample whose passes are stored next ran out of passes at the specified point of its orbit.
+	 */
+	final void orbitSuspended(final double zReal, final double zImag, final double cReal, final double cImag) {
+		orbitState = ORBIT_SUSPENDED;
+		orbitZReal = zReal;
+		orbitZImag = zImag;
+		orbitCReal = cReal;
+		orbitCImag = cImag;
+	}
+
+	/**
+	 * Forgets what is known about the orbit of the last sample, for image makers that calculate many samples before
+	 * they store their passes.
+	 */
+	final void discardOrbit() {
+		orbitState = ORBIT_UNKNOWN;
+	}
+
+	/**
+	 * Continues a suspended orbit of the last calculation for the additional passes of this one.
+	 *
+	 * @param lastMaxPasses
+	 *            The maximum number of passes of the last calculation, after which the orbit was suspended.
+	 * @return The passes of the sample, or <code>-1</code> if it didn't escape.
+	 */
+	final int continueOrbit(final double zReal, final double zImag, final double cReal, final double cImag,
+			final int lastMaxPasses) {
+		continuedOrbits++;
+		final int passes = juliaPassesPeriodic(zReal, zImag, cReal, cImag, maxPasses - lastMaxPasses);
+		return passes == -1 ? -1 : lastMaxPasses + passes;
+	}
+
+	/**
+	 * Generates the image from the passes that its sub image kept from the last calculation, which had the same view
+	 * and samples, but a different maximum number of passes: Samples that escaped after the new maximum become
+	 * members of the fractal, and if the maximum was raised, the suspended orbits are continued for the additional
+	 * passes. Like {@link #calculate()}, this does nothing if the image maker was {@link #cancel() cancelled}.
+	 *
+	 * @param orbits
+	 *            The orbits of the samples of the last calculation.
+	 * @param lastMaxPasses
+	 *            The maximum number of passes of the last calculation.
+	 */
+	final void resume(final SampleOrbits orbits, final int lastMaxPasses) {
+		synchronized (runLock) {
+			if (cancelled)
+				return;
+			for (int sample = 0; sample < passesBuffer.length; sample++)
+				if (passesBuffer[sample] > maxPasses) {
+					passesBuffer[sample] = -1;
+					// but its orbit at the new maximum is unknown
+					subImage.resumable = false;
+				}
+			for (int number = 0; number < orbits.boundedSize(); number++)
+				subImage.orbits.addBounded(orbits.boundedSample(number));
+			if (maxPasses > lastMaxPasses)
+				for (int orbit = 0; orbit < orbits.size(); orbit++) {
+					if (orbit % width == 0 && isInterrupted())
+						return;
+					final int sample = orbits.sample(orbit);
+					passesBuffer[sample] = continueOrbit(orbits.state(orbit, 0), orbits.state(orbit, 1),
+							orbits.state(orbit, 2), orbits.state(orbit, 3), lastMaxPasses);
+					if (passesBuffer[sample] == -1)
+						keepOrbit(sample);
+					orbitState = ORBIT_UNKNOWN;
+				}
+			else if (orbits.size() > 0)
+				subImage.resumable = false;
+			reusedSamples += passesBuffer.length;
+			subImage.resolve(colors, palette);
+		}
+	}
+
+	/**
+	 * Runs the image maker on the calling thread, unless it was {@link #cancel() cancelled} before, and
+	 * {@link #refine() refines} the generated image if SuperSampling is adaptive, unless the refinement
+	 * {@link Refinement#waitsForNeighbors() waits for the neighboring sections}.
+	 */
+	final void calculate() {
+		synchronized (runLock) {
+			if (cancelled)
+				return;
+			run();
+			if (refinement != null && !refinement.waitsForNeighbors() && !isInterrupted())
+				refine();
+		}
+		if (refinement != null && refinement.waitsForNeighbors() && !isInterrupted())
+			refinement.firstPassesDone(passesBuffer, bufferSamplesPerPixel);
+	}
+
+	/**
+	 * {@link #refine() Refines} the generated image once the first samples of the neighboring sections are known as
+	 * well (see {@link Refinement#refineWith(Runnable)}), unless the image maker was {@link #cancel() cancelled}.
+	 */
+	final void refineSection() {
+		synchronized (runLock) {
+			if (!cancelled)
+				refine();
+		}
+	}
+
+	/**
+	 * Supersamples the edge pixels of the generated image (see {@link Refinement}), after {@link #run()} calculated
+	 * their first samples. The samples are placed like those of a SuperSampling image maker, and replace the passes
+	 * and the color of the pixel.
+	 */
+	private void refine() {
+		// copies the first samples before any pixel is supersampled
+		refinement.getFirstPasses(passesBuffer, bufferSamplesPerPixel);
+		final int factor = refinement.superSamplingFactor;
+		final double pixelWidth = (maxReal - minReal) / width;
+		final double pixelHeight = (maxImag - minImag) / height;
+		final double firstSubOffset = -(factor - 1) / 2.0 / factor;
+		for (int y = refinement.nextRow(); y < height; y = refinement.nextRow()) {
+			if (isInterrupted())
+				return;
+			for (int x = 0; x < width; x++) {
+				if (!refinement.isEdge(colors, x, y))
+					continue;
+				int averageR = 0, averageG = 0, averageB = 0;
+				for (int subX = 0; subX < factor; subX++) {
+					final double real = minReal + pixelWidth * (x + firstSubOffset + (double) subX / factor);
+					for (int subY = 0; subY < factor; subY++) {
+						final int samplePasses = samplePasses(real, maxImag - pixelHeight
+								* (y + firstSubOffset + (double) subY / factor));
+						storePasses(x, y, subX * factor + subY, samplePasses);
+						final int sampleColor = colors[samplePasses + 1];
+						averageR += (sampleColor >> 16) & 0xFF;
+						averageG += (sampleColor >> 8) & 0xFF;
+						averageB += sampleColor & 0xFF;
+					}
+				}
+				drawPixel(x, y, rgb(averageR / bufferSamplesPerPixel, averageG / bufferSamplesPerPixel, averageB
+						/ bufferSamplesPerPixel));
+				refinedPixels++;
+			}
+		}
+	}
+
+	/**
+	 * Asks the image maker to stop. Image makers are not started as threads, but run on the
+	 * {@link de.lucaswerkmeister.jfractalizer.core.Core#getThreadPool() thread pool}, which doesn't interrupt its
+	 * tasks, so this is how they are stopped; implementations check {@link #isInterrupted()} regularly.
+	 */
+	void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Waits until the image maker has returned, if it is {@link #calculate() running}.
+	 */
+	void awaitReturn() {
+		synchronized (runLock) {
+			// nothing to do, the image maker holds the lock while it runs
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the image maker was {@link #cancel() cancelled} or interrupted
+	 */
+	@Override
+	public boolean isInterrupted() {
+		return cancelled || super.isInterrupted();
+	}
+
+	/**
+	 * Gets the pixel array of the specified image, if it is an <code>int</code> array that holds the RGB value of
+	 * pixel <code>(x, y)</code> at index <code>y * width + x</code>.
+	 * 
+	 * @return The pixels, or <code>null</code> if the image doesn't store its pixels like that.
+	 */
+	static int[] getPixels(final BufferedImage image) {
+		if ((image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_RGB)
+				&& image.getRaster().getParent() == null)
+			return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		return null;
+	}
+
+	/**
+	 * Packs the specified color components into an opaque RGB value, like {@link java.awt.Color#getRGB()}.
+	 */
+	static int rgb(final int red, final int green, final int blue) {
+		return 0xFF000000 | red << 16 | green << 8 | blue;
+	}
+
+	/**
+	 * Draws the specified pixel of the generated image, which is pixel <code>(x + targetX, y + targetY)</code> of the
+	 * target image.
+	 */
+	final void drawPixel(final int x, final int y, final int rgb) {
+		if (targetPixels != null)
+			targetPixels[(y + targetY) * targetWidth + x + targetX] = rgb;
+		else
+			targetImage.setRGB(x + targetX, y + targetY, rgb);
+	}
+
+	/**
+	 * Fills the specified rectangle of the generated image with the specified color.
+	 */
+	final void fillPixels(final int x, final int y, final int width, final int height, final int rgb) {
+		if (targetPixels != null)
+			for (int row = y + targetY; row < y + targetY + height; row++)
+				Arrays.fill(targetPixels, row * targetWidth + x + targetX, row * targetWidth + x + targetX + width,
+						rgb);
+		else {
+			final Graphics g = targetImage.createGraphics();
+			g.setColor(new Color(rgb, true));
+			g.fillRect(x + targetX, y + targetY, width, height);
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Stores the passes of a sample, so that the pixel can be {@link CifFractal#recolor(ColorPalette) recolored}
+	 * without calculating it again. Image makers must store the passes of all samples that they draw.
+	 * 
+	 * @param x
+	 *            The x coordinate of the pixel.
+	 * @param y
+	 *            The y coordinate of the pixel.
+	 * @param sample
+	 *            The index of the sample within the pixel, from <code>0</code> to
+	 *            <code>superSamplingFactor&sup2; - 1</code>.
+	 * @param passes
+	 *            The passes of the sample.
+	 */
+	final void storePasses(final int x, final int y, final int sample, final int passes) {
+		if (passesBuffer != null && sample < bufferSamplesPerPixel) {
+			final int index = (y * width + x) * bufferSamplesPerPixel + sample;
+			passesBuffer[index] = passes;
+			if (passes == -1)
+				keepOrbit(index);
+		}
+		orbitState = ORBIT_UNKNOWN;
+	}
+
+	/**
+	 * Keeps what is known about the orbit of the specified sample, which didn't escape, in the sub image: its
+	 * suspended orbit, or that it is bounded, or, if it is unknown whether the sample would escape with more passes,
+	 * that the sub image can't be {@link #resume(SampleOrbits, int) resumed}.
+	 */
+	private void keepOrbit(final int sample) {
+		if (orbitState == ORBIT_SUSPENDED)
+			subImage.orbits.add(sample, orbitZReal, orbitZImag, orbitCReal, orbitCImag);
+		else if (orbitState == ORBIT_BOUNDED)
+			subImage.orbits.addBounded(sample);
+		else
+			subImage.resumable = false;
+	}
+
+	/**
+	 * Stores the same passes for all samples of all pixels in the specified rectangle, which is filled with the color
+	 * of these passes.
+	 */
+	final void fillPasses(final int x, final int y, final int width, final int height, final int passes) {
+		if (passesBuffer == null)
+			return;
+		if (passes == -1)
+			// the samples weren't calculated, so it is unknown whether they would escape with more passes
+			subImage.resumable = false;
+		for (int row = y; row < y + height; row++) {
+			final int start = (row * this.width + x) * bufferSamplesPerPixel;
+			Arrays.fill(passesBuffer, start, start + width * bufferSamplesPerPixel, passes);
+		}
+	}
+
+	/**
+	 * Determines whether the specified point lies inside the main cardioid of the Mandelbrot Set. All points inside it
+	 * belong to the Mandelbrot Set, so they need not be iterated.
+	 * 
+	 * @param cReal
+	 *            The real part of the point.
+	 * @param cImag
+	 *            The imaginary part of the point.
+	 * @return <code>true</code> if the point lies inside (or on the border of) the main cardioid, <code>false</code>
+	 *         otherwise.
+	 */
+	static boolean isInMainCardioid(final double cReal, final double cImag) {
+		final double cImagSquared = cImag * cImag;
+		final double cRealShifted = cReal - 0.25;
+		final double q = cRealShifted * cRealShifted + cImagSquared;
+		return q * (q + cRealShifted) <= 0.25 * cImagSquared;
+	}
+
+	/**
+	 * Determines whether the specified point lies inside the period-2 bulb (the circle around -1 with radius 1/4) of the
+	 * Mandelbrot Set.
+	 * 
+	 * @param cReal
+	 *            The real part of the point.
+	 * @param cImag
+	 *            The imaginary part of the point.
+	 * @return <code>true</code> if the point lies inside (or on the border of) the period-2 bulb, <code>false</code>
+	 *         otherwise.
+	 */
+	static boolean isInPeriod2Bulb(final double cReal, final double cImag) {
+		final double cRealShifted = cReal + 1;
+		return cRealShifted * cRealShifted + cImag * cImag <= 0.0625;
 	}
 
 	protected static int mandelbrotPasses(final double cReal, final double cImag, final int maxPasses) {
+		if (isInMainCardioid(cReal, cImag) || isInPeriod2Bulb(cReal, cImag))
+			return -1;
 		double zReal = 0, zImag = 0, zRealNew = 0;
 		int passes = 0;
 		double zRealSquared = 0;
@@ -169,6 +640,82 @@ public abstract class CifImageMaker extends Thread {
 		return passes;
 	}
 
+	/**
+	 * Calculates the Mandelbrot passes like {@link #mandelbrotPasses(double, double, int)}, but uses Brent's cycle
+	 * detection to recognize periodic orbits early: The orbit is compared against a saved point, which is replaced in
+	 * exponentially growing intervals. If the orbit comes back to that point (within the {@link #periodicityTolerance}
+	 * ), it will never escape, and the remaining passes are skipped.
+	 */
+	protected final int mandelbrotPassesPeriodic(final double cReal, final double cImag, final int maxPasses) {
+		if (isInMainCardioid(cReal, cImag) || isInPeriod2Bulb(cReal, cImag)) {
+			orbitBounded();
+			return -1;
+		}
+		double zReal = 0, zImag = 0;
+		double zRealSquared = 0;
+		double zImagSquared = 0;
+		double savedReal = 0, savedImag = 0;
+		int period = 1, periodPasses = 0;
+		for (int passes = 1; passes <= maxPasses; passes++) {
+			zImag = 2 * zReal * zImag + cImag;
+			zReal = zRealSquared - zImagSquared + cReal;
+			zRealSquared = zReal * zReal;
+			zImagSquared = zImag * zImag;
+			if (zRealSquared + zImagSquared >= 4)
+				return passes;
+			if (Math.abs(zReal - savedReal) < periodicityTolerance
+					&& Math.abs(zImag - savedImag) < periodicityTolerance) {
+				savedPasses += maxPasses - passes;
+				orbitBounded();
+				return -1;
+			}
+			if (++periodPasses == period) {
+				savedReal = zReal;
+				savedImag = zImag;
+				periodPasses = 0;
+				period <<= 1;
+			}
+		}
+		orbitSuspended(zReal, zImag, cReal, cImag);
+		return -1;
+	}
+
+	/**
+	 * Calculates the Julia passes like {@link #juliaPasses(double, double, double, double, int)}, but with periodicity
+	 * checking like {@link #mandelbrotPassesPeriodic(double, double, int)}.
+	 */
+	protected final int juliaPassesPeriodic(double zReal, double zImag, final double cReal, final double cImag,
+			final int maxPasses) {
+		double zRealSquared = zReal * zReal;
+		double zImagSquared = zImag * zImag;
+		if (zRealSquared + zImagSquared >= 4)
+			return 0;
+		double savedReal = zReal, savedImag = zImag;
+		int period = 1, periodPasses = 0;
+		for (int passes = 1; passes <= maxPasses; passes++) {
+			zImag = 2 * zReal * zImag + cImag;
+			zReal = zRealSquared - zImagSquared + cReal;
+			zRealSquared = zReal * zReal;
+			zImagSquared = zImag * zImag;
+			if (zRealSquared + zImagSquared >= 4)
+				return passes;
+			if (Math.abs(zReal - savedReal) < periodicityTolerance
+					&& Math.abs(zImag - savedImag) < periodicityTolerance) {
+				savedPasses += maxPasses - passes;
+				orbitBounded();
+				return -1;
+			}
+			if (++periodPasses == period) {
+				savedReal = zReal;
+				savedImag = zImag;
+				periodPasses = 0;
+				period <<= 1;
+			}
+		}
+		orbitSuspended(zReal, zImag, cReal, cImag);
+		return -1;
+	}
+
 	@Override
 	public abstract void run();
 }
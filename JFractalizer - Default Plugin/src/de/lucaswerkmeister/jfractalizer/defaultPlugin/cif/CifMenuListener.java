@@ -34,6 +34,8 @@ import java.awt.event.KeyListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
@@ -89,22 +91,22 @@ public class CifMenuListener implements ActionListener {
 				editBoundariesDialog = new Dialog((Frame) fractal.getCanvas().getParent(), "Edit boundaries", true);
 				editBoundariesDialog.setLayout(new BorderLayout());
 				final Panel interval = new Panel(new BorderLayout());
-				final TextField maxImag = new TextField(((Double) fractal.getMaxImag()).toString());
+				final TextField maxImag = new TextField(fractal.getMaxImag().toString());
 				maxImag.addKeyListener(okCancelListener);
 				Panel p = new Panel(new GridBagLayout());
 				p.add(maxImag);
 				interval.add(p, BorderLayout.NORTH);
-				final TextField minReal = new TextField(((Double) fractal.getMinReal()).toString());
+				final TextField minReal = new TextField(fractal.getMinReal().toString());
 				p = new Panel(new GridBagLayout());
 				minReal.addKeyListener(okCancelListener);
 				p.add(minReal);
 				interval.add(p, BorderLayout.WEST);
-				final TextField maxReal = new TextField(((Double) fractal.getMaxReal()).toString());
+				final TextField maxReal = new TextField(fractal.getMaxReal().toString());
 				maxReal.addKeyListener(okCancelListener);
 				p = new Panel(new GridBagLayout());
 				p.add(maxReal);
 				interval.add(p, BorderLayout.EAST);
-				final TextField minImag = new TextField(((Double) fractal.getMinImag()).toString());
+				final TextField minImag = new TextField(fractal.getMinImag().toString());
 				minImag.addKeyListener(okCancelListener);
 				p = new Panel(new GridBagLayout());
 				p.add(minImag);
@@ -138,9 +140,9 @@ public class CifMenuListener implements ActionListener {
 				editBoundariesDialog.pack();
 				editBoundariesDialog.setVisible(true);
 				if (okClicked) {
-					CifParams params = new CifParams(Double.parseDouble(minReal.getText()), Double.parseDouble(maxReal
-							.getText()), Double.parseDouble(minImag.getText()), Double.parseDouble(maxImag.getText()),
-							fractal.getMaxPasses(), fractal.getSuperSamplingFactor());
+					CifParams params = new CifParams(new BigDecimal(minReal.getText().trim()), new BigDecimal(maxReal
+							.getText().trim()), new BigDecimal(minImag.getText().trim()), new BigDecimal(maxImag.getText()
+							.trim()), fractal.getMaxPasses(), fractal.getSuperSamplingFactor());
 					Dimension size = new Dimension(Integer.parseInt(width.getText()),
 							Integer.parseInt(height.getText()));
 					params = fixAspectRatio(fractal.getParams(),fractal.getImageSize(),  params, size);
@@ -260,22 +262,26 @@ public class CifMenuListener implements ActionListener {
 		double oldHeightPx = oldSize.getHeight();
 		double newWidthPx = newSize.getWidth();
 		double newHeightPx = newSize.getHeight();
-		double oldWidthReal = oldParams.maxReal - oldParams.minReal;
-		double oldHeightImag = oldParams.maxImag - oldParams.minImag;
+		BigDecimal oldWidthReal = oldParams.maxReal.subtract(oldParams.minReal);
+		BigDecimal oldHeightImag = oldParams.maxImag.subtract(oldParams.minImag);
+		BigDecimal two = BigDecimal.valueOf(2);
+		MathContext mathContext = fractal.getMathContext();
 
 		double aspectRatioChange = (newWidthPx / newHeightPx) / (oldWidthPx / oldHeightPx);
 		if (aspectRatioChange > 1.0) {
 			// image got wider, increase newParams on the real axis
-			double middleReal = oldParams.minReal + oldWidthReal / 2.0;
-			double newWidthReal = oldWidthReal * aspectRatioChange;
-			return newParams.copyChangeMinReal(middleReal - newWidthReal / 2.0)
-					.copyChangeMaxReal(middleReal + newWidthReal / 2.0);
+			BigDecimal middleReal = oldParams.minReal.add(oldWidthReal.divide(two));
+			BigDecimal newHalfWidthReal = oldWidthReal.multiply(BigDecimal.valueOf(aspectRatioChange / 2.0),
+					mathContext);
+			return newParams.copyChangeMinReal(middleReal.subtract(newHalfWidthReal))
+					.copyChangeMaxReal(middleReal.add(newHalfWidthReal));
 		} else if (aspectRatioChange < 1.0) {
 			// image got taller, increase newParams on the imag axis
-			double middleImag = oldParams.minImag + oldHeightImag / 2.0;
-			double newHeightImag = oldHeightImag / aspectRatioChange;
-			return newParams.copyChangeMinImag(middleImag - newHeightImag / 2.0)
-					.copyChangeMaxImag(middleImag + newHeightImag / 2.0);
+			BigDecimal middleImag = oldParams.minImag.add(oldHeightImag.divide(two));
+			BigDecimal newHalfHeightImag = oldHeightImag.multiply(BigDecimal.valueOf(1 / aspectRatioChange / 2.0),
+					mathContext);
+			return newParams.copyChangeMinImag(middleImag.subtract(newHalfHeightImag))
+					.copyChangeMaxImag(middleImag.add(newHalfHeightImag));
 		} else {
 			return newParams;
 		}
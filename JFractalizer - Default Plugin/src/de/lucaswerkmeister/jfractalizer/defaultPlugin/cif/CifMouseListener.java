@@ -21,6 +21,10 @@ import java.awt.event.MouseEvent;
 public class CifMouseListener extends MouseAdapter {
 	private final CifCanvas<?>		canvas;
 	private Point					clickStart;
+	/**
+	 * Where the user started dragging the image with the middle mouse button, or <code>null</code>.
+	 */
+	private Point					panStart;
 	private static final boolean	keepRatio	= true; // TODO make this configurable
 
 	public CifMouseListener(final CifCanvas<?> canvas) {
@@ -36,6 +40,8 @@ public class CifMouseListener extends MouseAdapter {
 	public void mousePressed(final MouseEvent e) {
 		if (e.getButton() == MouseEvent.BUTTON1)
 			clickStart = e.getPoint();
+		else if (e.getButton() == MouseEvent.BUTTON2)
+			panStart = e.getPoint();
 	}
 
 	/*
@@ -52,6 +58,12 @@ public class CifMouseListener extends MouseAdapter {
 			}
 			canvas.setSelectedArea(null);
 		}
+		else if (e.getButton() == MouseEvent.BUTTON2 && panStart != null) {
+			canvas.setPanOffset(null);
+			if (e.getX() != panStart.x || e.getY() != panStart.y)
+				canvas.pan(e.getX() - panStart.x, e.getY() - panStart.y);
+			panStart = null;
+		}
 	}
 
 	/*
@@ -63,7 +75,10 @@ public class CifMouseListener extends MouseAdapter {
 	public void mouseDragged(final MouseEvent e) {
 		// if (e.getButton() == MouseEvent.BUTTON1) //for some odd reason
 		// e.getButton() returns 0 and not 1
-		canvas.setSelectedArea(makeArea(e.getX(), e.getY()));
+		if (panStart != null)
+			canvas.setPanOffset(new Point(e.getX() - panStart.x, e.getY() - panStart.y));
+		else
+			canvas.setSelectedArea(makeArea(e.getX(), e.getY()));
 	}
 
 	private Rectangle makeArea(final int mouseX, final int mouseY) {
@@ -1,15 +1,20 @@
 package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
 
+import java.math.BigDecimal;
 import java.util.Objects;
 
+/**
+ * The parameters of a CIF view. The boundaries are stored with arbitrary precision, so that views far beyond the
+ * precision of <code>double</code> can be represented.
+ */
 public final class CifParams {
-	public final double	minReal, maxReal, minImag, maxImag;
-	public final byte	superSamplingFactor;
-	public final int	maxPasses;
+	public final BigDecimal	minReal, maxReal, minImag, maxImag;
+	public final byte		superSamplingFactor;
+	public final int		maxPasses;
 
 	/**
 	 * Creates a new CIFParams with the specified arguments.
-	 * 
+	 *
 	 * @param minReal
 	 *            The left boundary.
 	 * @param maxReal
@@ -25,6 +30,28 @@ public final class CifParams {
 	 */
 	public CifParams(final double minReal, final double maxReal, final double minImag, final double maxImag,
 			final int maxPasses, final byte superSamplingFactor) {
+		this(BigDecimal.valueOf(minReal), BigDecimal.valueOf(maxReal), BigDecimal.valueOf(minImag), BigDecimal
+				.valueOf(maxImag), maxPasses, superSamplingFactor);
+	}
+
+	/**
+	 * Creates a new CIFParams with the specified arguments.
+	 *
+	 * @param minReal
+	 *            The left boundary.
+	 * @param maxReal
+	 *            The right boundary.
+	 * @param minImag
+	 *            The bottom boundary.
+	 * @param maxImag
+	 *            The top boundary.
+	 * @param maxPasses
+	 *            The number of iterations after which a point is considered part of the fractal.
+	 * @param superSamplingFactor
+	 *            The SuperSampling-factor.
+	 */
+	public CifParams(final BigDecimal minReal, final BigDecimal maxReal, final BigDecimal minImag,
+			final BigDecimal maxImag, final int maxPasses, final byte superSamplingFactor) {
 		this.minReal = minReal;
 		this.maxReal = maxReal;
 		this.minImag = minImag;
@@ -33,19 +60,19 @@ public final class CifParams {
 		this.superSamplingFactor = superSamplingFactor;
 	}
 
-	public CifParams copyChangeMinReal(double minReal) {
+	public CifParams copyChangeMinReal(BigDecimal minReal) {
 		return new CifParams(minReal, maxReal, minImag, maxImag, maxPasses, superSamplingFactor);
 	}
 
-	public CifParams copyChangeMaxReal(double maxReal) {
+	public CifParams copyChangeMaxReal(BigDecimal maxReal) {
 		return new CifParams(minReal, maxReal, minImag, maxImag, maxPasses, superSamplingFactor);
 	}
 
-	public CifParams copyChangeMinImag(double minImag) {
+	public CifParams copyChangeMinImag(BigDecimal minImag) {
 		return new CifParams(minReal, maxReal, minImag, maxImag, maxPasses, superSamplingFactor);
 	}
 
-	public CifParams copyChangeMaxImag(double maxImag) {
+	public CifParams copyChangeMaxImag(BigDecimal maxImag) {
 		return new CifParams(minReal, maxReal, minImag, maxImag, maxPasses, superSamplingFactor);
 	}
 
@@ -77,11 +104,8 @@ public final class CifParams {
 		if (getClass() != obj.getClass())
 			return false;
 		CifParams other = (CifParams) obj;
-		return Double.doubleToLongBits(maxImag) == Double.doubleToLongBits(other.maxImag)
-				&& maxPasses == other.maxPasses
-				&& Double.doubleToLongBits(maxReal) == Double.doubleToLongBits(other.maxReal)
-				&& Double.doubleToLongBits(minImag) == Double.doubleToLongBits(other.minImag)
-				&& Double.doubleToLongBits(minReal) == Double.doubleToLongBits(other.minReal)
+		return maxImag.equals(other.maxImag) && maxPasses == other.maxPasses && maxReal.equals(other.maxReal)
+				&& minImag.equals(other.minImag) && minReal.equals(other.minReal)
 				&& superSamplingFactor == other.superSamplingFactor;
 	}
 }
@@ -0,0 +1,45 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.math.BigDecimal;
+
+/**
+ * A number in double-double representation: the unevaluated sum of a high and a low <code>double</code>, where the low
+ * part is at most half an ulp of the high part. This gives about 106 bits of precision.
+ * <p>
+ * This class only carries values into the {@link DoubleDoubleImageMaker double-double image makers}; the arithmetic
+ * is written out in their kernels, which must not allocate any objects.
+ *
+ * @author Lucas Werkmeister
+ */
+final class DoubleDouble {
+	final double	hi, lo;
+
+	/**
+	 * Rounds the specified value to double-double precision.
+	 *
+	 * @param value
+	 *            The value.
+	 */
+	DoubleDouble(final BigDecimal value) {
+		hi = value.doubleValue();
+		lo = value.subtract(new BigDecimal(hi)).doubleValue();
+	}
+
+	@Override
+	public String toString() {
+		return new BigDecimal(hi).add(new BigDecimal(lo)).toString();
+	}
+}
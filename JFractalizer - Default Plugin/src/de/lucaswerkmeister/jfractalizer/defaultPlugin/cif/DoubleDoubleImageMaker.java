@@ -0,0 +1,218 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.image.BufferedImage;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * This implementation of a CifImageMaker is used for views that are slightly too deep for <code>double</code>
+ * precision. All samples are iterated in {@link DoubleDouble double-double} arithmetic, which is a few times slower
+ * than <code>double</code>, but still much faster than arbitrary precision.
+ * <p>
+ * The boundaries of a DoubleDoubleImageMaker are <b>relative to the {@link CifFractal#getOriginReal() origin}</b> of
+ * the fractal, which is stored in double-double precision; since the boundaries are small, <code>double</code>
+ * precision is enough for them.
+ *
+ * @author Lucas Werkmeister
+ *
+ */
+public abstract class DoubleDoubleImageMaker extends CifImageMaker {
+	final double	originRealHi, originRealLo, originImagHi, originImagLo;
+
+	/**
+	 * Creates a new instance of the DoubleDoubleImageMaker with specified bounds.
+	 *
+	 * @param width
+	 *            The width of the generated image.
+	 * @param height
+	 *            The height of the generated image.
+	 * @param minReal
+	 *            The lower value on the real scale (left boundary), relative to the origin.
+	 * @param maxReal
+	 *            The higher value on the real scale (right boundary), relative to the origin.
+	 * @param minImag
+	 *            The lower value on the imaginary scale (<b>lower</b> boundary), relative to the origin.
+	 * @param maxImag
+	 *            The higher value on the imaginary scale (upper boundary), relative to the origin.
+	 * @param maxPasses
+	 *            The number of iterations that a complex number has to pass before it is considered a member of the
+	 *            fractal.
+	 * @param target
+	 *            The BufferedImage to which the calculation results will be drawn.
+	 * @param targetX
+	 *            The x coordinate on the target image to which the generated image will be written.
+	 * @param targetY
+	 *            The y coordinate on the target image to which the generated image will be written.
+	 * @param palette
+	 *            The palette.
+	 * @param superSamplingFactor
+	 *            The AntiAliasing SuperSampling factor.
+	 * @param fractal
+	 *            The fractal, which provides the origin.
+	 */
+	public DoubleDoubleImageMaker(final int width, final int height, final double minReal, final double maxReal,
+			final double minImag, final double maxImag, final int maxPasses, final BufferedImage target,
+			final int targetX, final int targetY, final ColorPalette palette, final byte superSamplingFactor,
+			CifFractal fractal) {
+		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
+				superSamplingFactor, fractal);
+		originRealHi = fractal.getOriginReal().hi;
+		originRealLo = fractal.getOriginReal().lo;
+		originImagHi = fractal.getOriginImag().hi;
+		originImagLo = fractal.getOriginImag().lo;
+	}
+
+	/**
+	 * Calculates the passes of a sample.
+	 *
+	 * @param realHi
+	 *            The high part of the real part of the sample.
+	 * @param realLo
+	 *            The low part of the real part of the sample.
+	 * @param imagHi
+	 *            The high part of the imaginary part of the sample.
+	 * @param imagLo
+	 *            The low part of the imaginary part of the sample.
+	 * @return The number of passes, or <code>-1</code> if the sample didn't escape.
+	 */
+	protected abstract int calculatePasses(double realHi, double realLo, double imagHi, double imagLo);
+
+	/**
+	 * Calculates the passes of the sample at the specified offset from the origin.
+	 */
+	@Override
+	protected final int calculatePasses(final double real, final double imag) {
+		// origin + offset, with exact sums of the high parts
+		final double sumReal = originRealHi + real;
+		final double bVirtualReal = sumReal - originRealHi;
+		final double errorReal = (originRealHi - (sumReal - bVirtualReal)) + (real - bVirtualReal) + originRealLo;
+		final double realHi = sumReal + errorReal;
+		final double sumImag = originImagHi + imag;
+		final double bVirtualImag = sumImag - originImagHi;
+		final double errorImag = (originImagHi - (sumImag - bVirtualImag)) + (imag - bVirtualImag) + originImagLo;
+		final double imagHi = sumImag + errorImag;
+		return calculatePasses(realHi, errorReal - (realHi - sumReal), imagHi, errorImag - (imagHi - sumImag));
+	}
+
+	/**
+	 * Calculates the passes like {@link #juliaPasses(double, double, double, double, int)}, but in double-double
+	 * arithmetic. If periodicity checking is enabled, periodic orbits are detected like in
+	 * {@link #juliaPassesPeriodic(double, double, double, double, int)}.
+	 * <p>
+	 * The products are calculated exactly with {@link Math#fma(double, double, double)}; the products of two low
+	 * parts are too small to matter and are left out.
+	 */
+	protected final int doubleDoublePasses(double zRealHi, double zRealLo, double zImagHi, double zImagLo,
+			final double cRealHi, final double cRealLo, final double cImagHi, final double cImagLo,
+			final int maxPasses) {
+		if (zRealHi * zRealHi + zImagHi * zImagHi >= 4)
+			return 0;
+		double savedRealHi = zRealHi, savedRealLo = zRealLo, savedImagHi = zImagHi, savedImagLo = zImagLo;
+		int period = 1, periodPasses = 0;
+		for (int passes = 1; passes <= maxPasses; passes++) {
+			// zReal * zReal, zImag * zImag and zReal * zImag, not normalized
+			final double realSquaredHi = zRealHi * zRealHi;
+			final double realSquaredLo = Math.fma(zRealHi, zRealHi, -realSquaredHi) + 2 * zRealHi * zRealLo;
+			final double imagSquaredHi = zImagHi * zImagHi;
+			final double imagSquaredLo = Math.fma(zImagHi, zImagHi, -imagSquaredHi) + 2 * zImagHi * zImagLo;
+			final double productHi = zRealHi * zImagHi;
+			final double productLo = Math.fma(zRealHi, zImagHi, -productHi) + zRealHi * zImagLo + zRealLo * zImagHi;
+
+			// zReal = realSquared - imagSquared + cReal, with two exact sums of the high parts
+			double sum = realSquaredHi - imagSquaredHi;
+			double bVirtual = sum - realSquaredHi;
+			double error = (realSquaredHi - (sum - bVirtual)) + (-imagSquaredHi - bVirtual);
+			double sum2 = sum + cRealHi;
+			bVirtual = sum2 - sum;
+			error += (sum - (sum2 - bVirtual)) + (cRealHi - bVirtual) + realSquaredLo - imagSquaredLo + cRealLo;
+			zRealHi = sum2 + error;
+			zRealLo = error - (zRealHi - sum2);
+
+			// zImag = 2 * product + cImag
+			sum = 2 * productHi + cImagHi;
+			bVirtual = sum - 2 * productHi;
+			error = (2 * productHi - (sum - bVirtual)) + (cImagHi - bVirtual) + 2 * productLo + cImagLo;
+			zImagHi = sum + error;
+			zImagLo = error - (zImagHi - sum);
+
+			if (zRealHi * zRealHi + zImagHi * zImagHi >= 4)
+				return passes;
+			if (periodicityChecking) {
+				// the differences of the high parts are exact because they are close
+				if (Math.abs((zRealHi - savedRealHi) + (zRealLo - savedRealLo)) < periodicityTolerance
+						&& Math.abs((zImagHi - savedImagHi) + (zImagLo - savedImagLo)) < periodicityTolerance) {
+					savedPasses += maxPasses - passes;
+					return -1;
+				}
+				if (++periodPasses == period) {
+					savedRealHi = zRealHi;
+					savedRealLo = zRealLo;
+					savedImagHi = zImagHi;
+					savedImagLo = zImagLo;
+					periodPasses = 0;
+					period <<= 1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void run() {
+		final double pixelWidth = (maxReal - minReal) / width;
+		final double pixelHeight = (maxImag - minImag) / height;
+		final double firstSubOffset = -(superSamplingFactor - 1) / 2.0 / superSamplingFactor;
+
+		int averageR, averageG, averageB;
+		int color;
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++) {
+				if (isInterrupted())
+					return;
+				averageR = averageG = averageB = 0;
+				for (int subX = 0; subX < superSamplingFactor; subX++) {
+					final double offsetReal = minReal + pixelWidth
+							* (x + firstSubOffset + (double) subX / superSamplingFactor);
+					// origin + offset, with an exact sum of the high parts
+					final double sumReal = originRealHi + offsetReal;
+					final double bVirtualReal = sumReal - originRealHi;
+					final double errorReal = (originRealHi - (sumReal - bVirtualReal)) + (offsetReal - bVirtualReal)
+							+ originRealLo;
+					final double realHi = sumReal + errorReal;
+					final double realLo = errorReal - (realHi - sumReal);
+					for (int subY = 0; subY < superSamplingFactor; subY++) {
+						final double offsetImag = maxImag - pixelHeight
+								* (y + firstSubOffset + (double) subY / superSamplingFactor);
+						final double sumImag = originImagHi + offsetImag;
+						final double bVirtualImag = sumImag - originImagHi;
+						final double errorImag = (originImagHi - (sumImag - bVirtualImag))
+								+ (offsetImag - bVirtualImag) + originImagLo;
+						final double imagHi = sumImag + errorImag;
+						final double imagLo = errorImag - (imagHi - sumImag);
+						final int passes = reuse == null ? calculatePasses(realHi, realLo, imagHi, imagLo)
+								: samplePasses(offsetReal, offsetImag);
+						storePasses(x, y, subX * superSamplingFactor + subY, passes);
+						color = colors[passes + 1];
+						averageR += (color >> 16) & 0xFF;
+						averageG += (color >> 8) & 0xFF;
+						averageB += color & 0xFF;
+					}
+				}
+				drawPixel(x, y, rgb(averageR / samplesPerPixel, averageG / samplesPerPixel, averageB
+						/ samplesPerPixel));
+			}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+/**
+ * Escape-time kernels that calculate the passes of several samples at once.
+ * <p>
+ * The {@link VectorImageMaker vector image makers} only reference this interface; the implementation that uses the
+ * Vector API is loaded by name, so that the rest of the plugin also compiles and runs without it.
+ *
+ * @author Lucas Werkmeister
+ */
+interface EscapeTimeKernels {
+	/**
+	 * Calculates the Mandelbrot passes for several samples.
+	 *
+	 * @param cReal
+	 *            The real parts of the samples.
+	 * @param cImag
+	 *            The imaginary parts of the samples.
+	 * @param count
+	 *            The number of samples.
+	 * @param maxPasses
+	 *            The maximum number of passes.
+	 * @param periodicityTolerance
+	 *            The tolerance for periodicity checking, or <code>0</code> to disable it.
+	 * @param passes
+	 *            The array to which the passes are written.
+	 * @return The number of passes that were saved by periodicity checking.
+	 */
+	long mandelbrotPasses(double[] cReal, double[] cImag, int count, int maxPasses, double periodicityTolerance,
+			int[] passes);
+
+	/**
+	 * Calculates the Julia passes for several samples.
+	 *
+	 * @param zReal
+	 *            The real parts of the samples.
+	 * @param zImag
+	 *            The imaginary parts of the samples.
+	 * @param count
+	 *            The number of samples.
+	 * @param cReal
+	 *            The real part of the Julia parameter.
+	 * @param cImag
+	 *            The imaginary part of the Julia parameter.
+	 * @param maxPasses
+	 *            The maximum number of passes.
+	 * @param periodicityTolerance
+	 *            The tolerance for periodicity checking, or <code>0</code> to disable it.
+	 * @param passes
+	 *            The array to which the passes are written.
+	 * @return The number of passes that were saved by periodicity checking.
+	 */
+	long juliaPasses(double[] zReal, double[] zImag, int count, double cReal, double cImag, int maxPasses,
+			double periodicityTolerance, int[] passes);
+}
@@ -0,0 +1,141 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.Rectangle;
+
+/**
+ * A prediction of how many passes the samples of each pixel will take, from the passes of the last calculation of a
+ * nearby view &ndash; usually the previous frame of a film, which differs from the current one by a small zoom: the
+ * inside of the fractal stays inside, and the passes outside of it change slowly, so each new pixel is predicted to
+ * take as many passes as the old pixel that it lies on.
+ * <p>
+ * The prediction only decides the order in which the samples are calculated, never whether they are, so the results
+ * don't depend on it: batch calculations start with the sections, and {@link NoHolesTrace}s with the chunks of seeds,
+ * that are predicted to take longest, and vector image makers sort their samples by it. It doesn't seed the trace of
+ * the NoHoles image makers or limit the passes of any pixel, since either would make the image depend on the last one.
+ *
+ * @author Lucas Werkmeister
+ */
+final class FrameHint {
+	/**
+	 * Marks a pixel that lies outside the last image.
+	 */
+	private static final int	UNKNOWN	= -1;
+
+	private final int[]			costs;
+	private final int			width;
+	private final int			maxPasses;
+	private final int			knownPixels;
+
+	private FrameHint(final int[] costs, final int width, final int maxPasses, final int knownPixels) {
+		this.costs = costs;
+		this.width = width;
+		this.maxPasses = maxPasses;
+		this.knownPixels = knownPixels;
+	}
+
+	/**
+	 * Predicts the passes of the new pixels from the last calculation.
+	 *
+	 * @param subImages
+	 *            The sub images of the last calculation, which must have finished.
+	 * @param width
+	 *            The width of the old and the new image.
+	 * @param height
+	 *            The height of the old and the new image.
+	 * @param minReal
+	 *            The left boundary of the old image, in the coordinates of the new image makers.
+	 * @param maxImag
+	 *            The upper boundary of the old image, in the coordinates of the new image makers.
+	 * @param pixelWidth
+	 *            The width of an old pixel.
+	 * @param pixelHeight
+	 *            The height of an old pixel.
+	 * @param newMinReal
+	 *            The left boundary of the new image, in the coordinates of the new image makers.
+	 * @param newMaxImag
+	 *            The upper boundary of the new image, in the coordinates of the new image makers.
+	 * @param newPixelWidth
+	 *            The width of a new pixel.
+	 * @param newPixelHeight
+	 *            The height of a new pixel.
+	 * @param maxPasses
+	 *            The maximum number of passes of the new calculation, which samples that didn't escape are predicted to
+	 *            take.
+	 * @return The prediction.
+	 */
+	static FrameHint find(final SubImage[] subImages, final int width, final int height, final double minReal,
+			final double maxImag, final double pixelWidth, final double pixelHeight, final double newMinReal,
+			final double newMaxImag, final double newPixelWidth, final double newPixelHeight, final int maxPasses) {
+		// the average passes of the samples of each old pixel
+		final int[] oldCosts = new int[width * height];
+		for (SubImage subImage : subImages)
+			for (int y = 0; y < subImage.height; y++)
+				for (int x = 0; x < subImage.width; x++) {
+					long sum = 0;
+					int count = 0;
+					final int firstSample = (y * subImage.width + x) * subImage.samplesPerPixel;
+					for (int sample = firstSample; sample < firstSample + subImage.samplesPerPixel; sample++) {
+						final int passes = subImage.passes[sample];
+						if (passes != SubImage.NO_SAMPLE) {
+							sum += passes == -1 ? maxPasses : Math.min(passes, maxPasses);
+							count++;
+						}
+					}
+					oldCosts[(subImage.offsetY + y) * width + subImage.offsetX + x] = count == 0 ? UNKNOWN
+							: (int) (sum / count);
+				}
+		final int[] costs = new int[width * height];
+		int knownPixels = 0;
+		for (int y = 0; y < height; y++) {
+			final long oldY = Math.round((maxImag - newMaxImag + y * newPixelHeight) / pixelHeight);
+			for (int x = 0; x < width; x++) {
+				final long oldX = Math.round((newMinReal + x * newPixelWidth - minReal) / pixelWidth);
+				if (oldX < 0 || oldX >= width || oldY < 0 || oldY >= height)
+					costs[y * width + x] = UNKNOWN;
+				else if ((costs[y * width + x] = oldCosts[(int) oldY * width + (int) oldX]) != UNKNOWN)
+					knownPixels++;
+			}
+		}
+		return new FrameHint(costs, width, maxPasses, knownPixels);
+	}
+
+	/**
+	 * @return the number of new pixels whose passes are predicted
+	 */
+	int getKnownPixels() {
+		return knownPixels;
+	}
+
+	/**
+	 * @return the predicted passes per sample of the pixel <code>(x, y)</code> of the new image; pixels that lie
+	 *         outside the last image are predicted to take the maximum number of passes
+	 */
+	int cost(final int x, final int y) {
+		final int cost = costs[y * width + x];
+		return cost == UNKNOWN ? maxPasses : cost;
+	}
+
+	/**
+	 * @return the predicted passes per sample of all pixels of the specified section of the new image
+	 */
+	long cost(final Rectangle section) {
+		long cost = 0;
+		for (int y = section.y; y < section.y + section.height; y++)
+			for (int x = section.x; x < section.x + section.width; x++)
+				cost += cost(x, y);
+		return cost;
+	}
+}
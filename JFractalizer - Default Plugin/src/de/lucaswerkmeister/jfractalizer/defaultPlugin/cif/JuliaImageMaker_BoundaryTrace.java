@@ -0,0 +1,75 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.image.BufferedImage;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * This implementation of a BoundaryTraceImageMaker calculates Julia Sets.
+ *
+ * @author Lucas Werkmeister
+ *
+ */
+public class JuliaImageMaker_BoundaryTrace extends BoundaryTraceImageMaker {
+	private final double	cReal, cImag;
+
+	/**
+	 * Creates a new instance of the JuliaImageMaker_BoundaryTrace with specified bounds.
+	 *
+	 * @param width
+	 *            The width of the generated image.
+	 * @param height
+	 *            The height of the generated image.
+	 * @param minReal
+	 *            The lower value on the real scale (left boundary).
+	 * @param maxReal
+	 *            The higher value on the real scale (right boundary).
+	 * @param minImag
+	 *            The lower value on the imaginary scale (<b>lower</b> boundary).
+	 * @param maxImag
+	 *            The higher value on the imaginary scale (upper boundary).
+	 * @param maxPasses
+	 *            The number of iterations that a complex number has to pass before it is considered a member of the
+	 *            fractal.
+	 * @param target
+	 *            The BufferedImage to which the calculation results will be drawn.
+	 * @param targetX
+	 *            The x coordinate on the target image to which the generated image will be written.
+	 * @param targetY
+	 *            The y coordinate on the target image to which the generated image will be written.
+	 * @param palette
+	 *            The palette.
+	 * @param superSamplingFactor
+	 *            The AntiAliasing SuperSampling factor.
+	 * @param fractal
+	 *            The fractal.
+	 */
+	public JuliaImageMaker_BoundaryTrace(final int width, final int height, final double minReal, final double maxReal,
+			final double minImag, final double maxImag, final int maxPasses, final BufferedImage target,
+			final int targetX, final int targetY, final ColorPalette palette, final byte superSamplingFactor,
+			CifFractal fractal) {
+		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
+				superSamplingFactor, fractal);
+		cReal = ((JuliaSet) fractal).getCReal();
+		cImag = ((JuliaSet) fractal).getCImag();
+	}
+
+	@Override
+	protected int calculatePasses(final double real, final double imag) {
+		return periodicityChecking ? juliaPassesPeriodic(real, imag, cReal, cImag, maxPasses) : juliaPasses(real,
+				imag, cReal, cImag, maxPasses);
+	}
+}
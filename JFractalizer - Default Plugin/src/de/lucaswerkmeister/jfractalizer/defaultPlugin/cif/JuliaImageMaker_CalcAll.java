@@ -13,15 +13,12 @@
  */
 package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
 
-import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 
 import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
 
 public class JuliaImageMaker_CalcAll extends CifImageMaker {
 	private final double	cReal, cImag;
-	final Graphics			targetGraphics;
 
 	public JuliaImageMaker_CalcAll(int width, int height, double minReal, double maxReal, double minImag,
 			double maxImag, int maxPasses, BufferedImage target, int targetX, int targetY, ColorPalette palette,
@@ -30,14 +27,10 @@ public class JuliaImageMaker_CalcAll extends CifImageMaker {
 				superSamplingFactor, fractal);
 		cReal = ((JuliaSet) fractal).getCReal();
 		cImag = ((JuliaSet) fractal).getCImag();
-		targetGraphics = target.createGraphics();
 	}
 
 	@Override
 	public void run() {
-		targetGraphics.setColor(new Color(0, 0, 0, 0));
-		targetGraphics.fillRect(0, 0, height, width);
-
 		final double factorR = (maxReal - minReal) / width;
 		final double factorI = (minImag - maxImag) / height; // imaginary scale
 		// goes up, but
@@ -56,12 +49,11 @@ public class JuliaImageMaker_CalcAll extends CifImageMaker {
 		double r, i;
 		byte averageDenominator;
 		int passes;
-		Color c;
-		int tX, tY;
+		int color;
 		final byte lessSuperSamplingFactor = (byte) (superSamplingFactor - 1);
 
-		for (int x = 0; x < width; x++)
-			for (int y = 0; y < height; y++) {
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++) {
 				if (isInterrupted())
 					return;
 				averageR = 0;
@@ -81,19 +73,22 @@ public class JuliaImageMaker_CalcAll extends CifImageMaker {
 				borderI = centerI - rangeI;
 				for (r = centerR - rangeR; r <= borderR; r += deltaR)
 					for (i = centerI + rangeI; i <= borderI; i -= deltaI) {
-						passes = juliaPasses(r, i, cReal, cImag, maxPasses);
-						c = palette.getColor(passes);
-						averageR += c.getRed();
-						averageG += c.getGreen();
-						averageB += c.getBlue();
+						passes = samplePasses(r, i);
+						storePasses(x, y, averageDenominator, passes);
+						color = colors[passes + 1];
+						averageR += (color >> 16) & 0xFF;
+						averageG += (color >> 8) & 0xFF;
+						averageB += color & 0xFF;
 						averageDenominator++;
 					}
-				tX = x + targetX;
-				tY = y + targetY;
-				c = new Color(averageR / averageDenominator, averageG / averageDenominator, averageB
-						/ averageDenominator);
-				targetGraphics.setColor(c);
-				targetGraphics.drawLine(tX, tY, tX, tY);
+				drawPixel(x, y, rgb(averageR / averageDenominator, averageG / averageDenominator, averageB
+						/ averageDenominator));
 			}
 	}
+
+	@Override
+	protected int calculatePasses(final double real, final double imag) {
+		return periodicityChecking ? juliaPassesPeriodic(real, imag, cReal, cImag, maxPasses) : juliaPasses(real,
+				imag, cReal, cImag, maxPasses);
+	}
 }
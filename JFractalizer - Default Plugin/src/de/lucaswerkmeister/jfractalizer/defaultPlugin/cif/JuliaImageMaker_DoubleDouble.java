@@ -0,0 +1,43 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.image.BufferedImage;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * This implementation of a DoubleDoubleImageMaker calculates Julia Sets.
+ *
+ * @author Lucas Werkmeister
+ *
+ */
+public class JuliaImageMaker_DoubleDouble extends DoubleDoubleImageMaker {
+	private final double	cReal, cImag;
+
+	public JuliaImageMaker_DoubleDouble(final int width, final int height, final double minReal,
+			final double maxReal, final double minImag, final double maxImag, final int maxPasses,
+			final BufferedImage target, final int targetX, final int targetY, final ColorPalette palette,
+			final byte superSamplingFactor, CifFractal fractal) {
+		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
+				superSamplingFactor, fractal);
+		cReal = ((JuliaSet) fractal).getCReal();
+		cImag = ((JuliaSet) fractal).getCImag();
+	}
+
+	@Override
+	protected int calculatePasses(final double realHi, final double realLo, final double imagHi, final double imagLo) {
+		return doubleDoublePasses(realHi, realLo, imagHi, imagLo, cReal, 0, cImag, 0, maxPasses);
+	}
+}
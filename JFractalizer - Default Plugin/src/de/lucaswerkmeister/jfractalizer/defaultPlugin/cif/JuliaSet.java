@@ -33,6 +33,9 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
 
 import javax.swing.JOptionPane;
 import javax.xml.transform.sax.TransformerHandler;
@@ -56,11 +59,46 @@ public class JuliaSet extends CifFractal {
 	}
 
 	public JuliaSet(final double cReal, final double cImag) {
-		super(JuliaImageMaker_CalcAll.class);
+		super(VectorImageMaker.VECTOR_KERNELS_AVAILABLE ? JuliaImageMaker_Vector.class : JuliaImageMaker_CalcAll.class,
+				JuliaImageMaker_DoubleDouble.class, JuliaImageMaker_Perturbation.class);
 		this.cReal = cReal;
 		this.cImag = cImag;
 	}
 
+	/**
+	 * Uses the {@link JuliaImageMaker_NoHoles NoHoles} image maker if the Julia Set is connected, which is the case if
+	 * the orbit of the critical point <code>0</code> stays bounded.
+	 */
+	@Override
+	Class<? extends CifImageMaker> getImageMakerClass() {
+		if (!isImageMakerChosen() && CifImageMaker.juliaPasses(0, 0, cReal, cImag, getMaxPasses()) == -1)
+			return JuliaImageMaker_NoHoles.class;
+		return super.getImageMakerClass();
+	}
+
+	@Override
+	protected boolean isPointSymmetric() {
+		return true;
+	}
+
+	@Override
+	protected Object getFormulaParams() {
+		return Arrays.asList(cReal, cImag);
+	}
+
+	@Override
+	public JuliaSet copy() {
+		final JuliaSet copy = (JuliaSet) super.copy();
+		copy.cReal = cReal;
+		copy.cImag = cImag;
+		return copy;
+	}
+
+	@Override
+	ReferenceOrbit calculateReferenceOrbit(BigDecimal real, BigDecimal imag, int maxPasses, MathContext mathContext) {
+		return ReferenceOrbit.julia(real, imag, cReal, cImag, maxPasses, mathContext);
+	}
+
 	@Override
 	public void initMenu(Menu fractalMenu) {
 		super.initMenu(fractalMenu);
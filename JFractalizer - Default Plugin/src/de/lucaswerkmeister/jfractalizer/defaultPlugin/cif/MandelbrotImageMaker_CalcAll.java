@@ -13,8 +13,6 @@
  */
 package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
 
-import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 
 import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
@@ -26,8 +24,6 @@ import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
  * 
  */
 public class MandelbrotImageMaker_CalcAll extends CifImageMaker {
-	final Graphics	targetGraphics;
-
 	/**
 	 * Creates a new instance of the MandelbrotImageMaker_CalcAll with specified bounds.
 	 * 
@@ -63,14 +59,10 @@ public class MandelbrotImageMaker_CalcAll extends CifImageMaker {
 			CifFractal fractal) {
 		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
 				superSamplingFactor, fractal);
-		targetGraphics = target.createGraphics();
 	}
 
 	@Override
 	public void run() {
-		targetGraphics.setColor(new Color(0, 0, 0, 0));
-		targetGraphics.fillRect(0, 0, height, width);
-
 		final double factorR = (maxReal - minReal) / width;
 		final double factorI = (minImag - maxImag) / height; // imaginary scale
 		// goes up, but
@@ -89,12 +81,11 @@ public class MandelbrotImageMaker_CalcAll extends CifImageMaker {
 		double r, i;
 		byte averageDenominator;
 		int passes;
-		Color c;
-		int tX, tY;
+		int color;
 		final byte lessSuperSamplingFactor = (byte) (superSamplingFactor - 1);
 
-		for (int x = 0; x < width; x++)
-			for (int y = 0; y < height; y++) {
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++) {
 				if (isInterrupted())
 					return;
 				averageR = 0;
@@ -114,19 +105,22 @@ public class MandelbrotImageMaker_CalcAll extends CifImageMaker {
 				borderI = centerI - rangeI;
 				for (r = centerR - rangeR; r <= borderR; r += deltaR)
 					for (i = centerI + rangeI; i <= borderI; i -= deltaI) {
-						passes = mandelbrotPasses(r, i, maxPasses);
-						c = palette.getColor(passes);
-						averageR += c.getRed();
-						averageG += c.getGreen();
-						averageB += c.getBlue();
+						passes = samplePasses(r, i);
+						storePasses(x, y, averageDenominator, passes);
+						color = colors[passes + 1];
+						averageR += (color >> 16) & 0xFF;
+						averageG += (color >> 8) & 0xFF;
+						averageB += color & 0xFF;
 						averageDenominator++;
 					}
-				tX = x + targetX;
-				tY = y + targetY;
-				c = new Color(averageR / averageDenominator, averageG / averageDenominator, averageB
-						/ averageDenominator);
-				targetGraphics.setColor(c);
-				targetGraphics.drawLine(tX, tY, tX, tY);
+				drawPixel(x, y, rgb(averageR / averageDenominator, averageG / averageDenominator, averageB
+						/ averageDenominator));
 			}
 	}
+
+	@Override
+	protected int calculatePasses(final double real, final double imag) {
+		return periodicityChecking ? mandelbrotPassesPeriodic(real, imag, maxPasses) : mandelbrotPasses(real, imag,
+				maxPasses);
+	}
 }
@@ -13,11 +13,7 @@
  */
 package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
 
-import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.Point;
 import java.awt.image.BufferedImage;
-import java.util.LinkedList;
 
 import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
 
@@ -27,14 +23,9 @@ import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
  * can be skipped: If they are not connected to any colored pixels, they must be part of the Mandelbrot Set.
  * 
  * @author Lucas Werkmeister
- * 
+ * @see NoHolesImageMaker
  */
-public class MandelbrotImageMaker_NoHoles extends CifImageMaker {
-	private static final byte	PIXEL_NOT_CALCULATED	= 0, NO_COLORED_PIXELS = 1, HAS_COLORED_PIXELS = 2;
-
-	final byte[][]				pixels;
-	final Graphics				targetGraphics;
-
+public class MandelbrotImageMaker_NoHoles extends NoHolesImageMaker {
 	/**
 	 * Creates a new instance of the MandelbrotImageMaker_NoHoles with specified bounds.
 	 * 
@@ -72,124 +63,11 @@ public class MandelbrotImageMaker_NoHoles extends CifImageMaker {
 			CifFractal fractal) {
 		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
 				superSamplingFactor, fractal);
-		pixels = new byte[width][height];
-		// Arrays.fill(pixels, PIXEL_NOT_CALCULATED); // currently not needed because PIXEL_NOT_CALCULATED=0
-		targetGraphics = target.createGraphics();
 	}
 
 	@Override
-	public void run() {
-		targetGraphics.setColor(palette.getColor(-1));
-		targetGraphics.fillRect(0, 0, height, width);
-
-		final double factorR = (maxReal - minReal) / width;
-		final double factorI = (minImag - maxImag) / height; // imaginary scale
-		// goes up, but
-		// computer
-		// graphics y goes
-		// down, so min-
-		// and maxImag have
-		// to be swapped
-		final double deltaR = factorR / superSamplingFactor;
-		final double deltaI = factorI / superSamplingFactor;
-
-		// declare all these variables outside of the loop for slightly better
-		// performance
-		int averageR, averageG, averageB;
-		double centerR, centerI, borderR, borderI;
-		double r, i;
-		int averageDenominator; // counting the denominator up is needed
-		// because, due to rounding errors, sometimes
-		// the SuperSampling loop runs less
-		// than superSamplingFactor² times.
-		int passes;
-		Color c;
-		int tX, tY;
-		boolean addCurrentPoint = true;
-
-		final int lessWidth = width - 1;
-		final int lessHeight = height - 1;
-		final double halfDeltaR = deltaR / 2;
-		final double halfDeltaI = deltaI / 2;
-		final double rangeR = (byte) (superSamplingFactor - 1) * halfDeltaR;
-		final double rangeI = (byte) (superSamplingFactor - 1) * halfDeltaI;
-
-		final LinkedList<Point> lastColoredPoints = new LinkedList<>();
-
-		// fill lastColoredPoints with border points
-		for (int x = 0; x < width; x++) {
-			lastColoredPoints.addLast(new Point(x, 0));
-			lastColoredPoints.addLast(new Point(x, height - 1));
-		}
-		for (int y = 0; y < height; y++) {
-			lastColoredPoints.addLast(new Point(0, y));
-			lastColoredPoints.addLast(new Point(width - 1, y));
-		}
-		for (int x = 0; x < width;)
-			for (int y = 0; y < height;) {
-				if (isInterrupted())
-					return;
-				if (pixels[x][y] == PIXEL_NOT_CALCULATED) {
-					averageR = averageG = averageB = averageDenominator = 0;
-					centerR = x * factorR + minReal;
-					centerI = y * factorI + maxImag;
-					borderR = centerR + rangeR;
-					borderI = centerI - rangeI;
-					// Save that the pixel is calculated
-					pixels[x][y] = NO_COLORED_PIXELS;
-					// Calculate color
-					for (r = centerR - rangeR; r <= borderR; r += deltaR)
-						for (i = centerI + rangeI; i <= borderI; i -= deltaI) {
-							passes = mandelbrotPasses(r, i, maxPasses);
-							c = palette.getColor(passes);
-							averageR += c.getRed();
-							averageG += c.getGreen();
-							averageB += c.getBlue();
-							averageDenominator++;
-							if (pixels[x][y] == NO_COLORED_PIXELS && passes != -1)
-								// Save that the pixel has colored pixels
-								pixels[x][y] = HAS_COLORED_PIXELS;
-						}
-					// Draw pixel
-					c = new Color(averageR / averageDenominator, averageG / averageDenominator, averageB
-							/ averageDenominator);
-					tX = x + targetX;
-					tY = y + targetY;
-					targetGraphics.setColor(c);
-					targetGraphics.drawLine(tX, tY, tX, tY);
-				}
-				// Calculate next pixel
-				if (pixels[x][y] == HAS_COLORED_PIXELS) {
-					addCurrentPoint = true;
-
-					if (y > 0 && pixels[x][y - 1] == PIXEL_NOT_CALCULATED)
-						y--;
-					else if (x < lessWidth && pixels[x + 1][y] == PIXEL_NOT_CALCULATED)
-						x++;
-					else if (x > 0 && pixels[x - 1][y] == PIXEL_NOT_CALCULATED)
-						x--;
-					else if (y < lessHeight && pixels[x][y + 1] == PIXEL_NOT_CALCULATED)
-						y++;
-					else {
-						addCurrentPoint = false;
-						if (!lastColoredPoints.isEmpty()) {
-							final Point lastPoint = lastColoredPoints.removeLast();
-							x = lastPoint.x;
-							y = lastPoint.y;
-						}
-						else
-							return;
-					}
-					if (addCurrentPoint)
-						lastColoredPoints.addLast(new Point(x, y));
-				}
-				else if (!lastColoredPoints.isEmpty()) {
-					final Point lastPoint = lastColoredPoints.removeLast();
-					x = lastPoint.x;
-					y = lastPoint.y;
-				}
-				else
-					return;
-			}
+	protected int calculatePasses(final double real, final double imag) {
+		return periodicityChecking ? mandelbrotPassesPeriodic(real, imag, maxPasses) : mandelbrotPasses(real, imag,
+				maxPasses);
 	}
 }
@@ -0,0 +1,108 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.image.BufferedImage;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * This implementation of a MandelbrotImageMaker calculates all pixels, using the
+ * {@link VectorImageMaker#VECTOR_KERNELS vector kernels} if they are available.
+ *
+ * @author Lucas Werkmeister
+ *
+ */
+public class MandelbrotImageMaker_Vector extends VectorImageMaker {
+	private double[]	remainingReal		= new double[0];
+	private double[]	remainingImag		= new double[0];
+	private int[]		remainingIndices	= new int[0];
+	private int[]		remainingPasses		= new int[0];
+
+	/**
+	 * Creates a new instance of the MandelbrotImageMaker_Vector with specified bounds.
+	 *
+	 * @param width
+	 *            The width of the generated image.
+	 * @param height
+	 *            The height of the generated image.
+	 * @param minReal
+	 *            The lower value on the real scale (left boundary).
+	 * @param maxReal
+	 *            The higher value on the real scale (right boundary).
+	 * @param minImag
+	 *            The lower value on the imaginary scale (<b>lower</b> boundary).
+	 * @param maxImag
+	 *            The higher value on the imaginary scale (upper boundary).
+	 * @param maxPasses
+	 *            The number of iterations that a complex number has to pass before it is considered a member of the
+	 *            fractal.
+	 * @param target
+	 *            The BufferedImage to which the calculation results will be drawn.
+	 * @param targetX
+	 *            The x coordinate on the target image to which the generated image will be written.
+	 * @param targetY
+	 *            The y coordinate on the target image to which the generated image will be written.
+	 * @param palette
+	 *            The palette.
+	 * @param superSamplingFactor
+	 *            The AntiAliasing SuperSampling factor.
+	 * @param fractal
+	 *            The fractal.
+	 */
+	public MandelbrotImageMaker_Vector(final int width, final int height, final double minReal, final double maxReal,
+			final double minImag, final double maxImag, final int maxPasses, final BufferedImage target,
+			final int targetX, final int targetY, final ColorPalette palette, final byte superSamplingFactor,
+			CifFractal fractal) {
+		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
+				superSamplingFactor, fractal);
+	}
+
+	@Override
+	protected int calculatePasses(final double real, final double imag) {
+		return periodicityChecking ? mandelbrotPassesPeriodic(real, imag, maxPasses) : mandelbrotPasses(real, imag,
+				maxPasses);
+	}
+
+	@Override
+	protected void calculatePasses(final double[] real, final double[] imag, final int count, final int[] passes) {
+		if (!VECTOR_KERNELS_AVAILABLE) {
+			for (int sample = 0; sample < count; sample++)
+				passes[sample] = periodicityChecking ? mandelbrotPassesPeriodic(real[sample], imag[sample], maxPasses)
+						: mandelbrotPasses(real[sample], imag[sample], maxPasses);
+			return;
+		}
+		if (remainingReal.length < count) {
+			remainingReal = new double[real.length];
+			remainingImag = new double[real.length];
+			remainingIndices = new int[real.length];
+			remainingPasses = new int[real.length];
+		}
+		// sort out the samples in the main cardioid and the period-2 bulb, they would only occupy lanes
+		int remaining = 0;
+		for (int sample = 0; sample < count; sample++)
+			if (isInMainCardioid(real[sample], imag[sample]) || isInPeriod2Bulb(real[sample], imag[sample]))
+				passes[sample] = -1;
+			else {
+				remainingReal[remaining] = real[sample];
+				remainingImag[remaining] = imag[sample];
+				remainingIndices[remaining] = sample;
+				remaining++;
+			}
+		savedPasses += VECTOR_KERNELS.mandelbrotPasses(remainingReal, remainingImag, remaining, maxPasses,
+				periodicityChecking ? periodicityTolerance : 0, remainingPasses);
+		for (int sample = 0; sample < remaining; sample++)
+			passes[remainingIndices[sample]] = remainingPasses[sample];
+	}
+}
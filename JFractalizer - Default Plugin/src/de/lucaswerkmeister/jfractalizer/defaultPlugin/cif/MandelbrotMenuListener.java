@@ -39,10 +39,10 @@ public class MandelbrotMenuListener implements ActionListener {
 				try {
 					Core.changeFractal(
 							JuliaSet.class,
-							fractal.getMinReal() + (fractal.getMaxReal() - fractal.getMinReal())
-									* fractal.canvas.getMousePosition().x / fractal.canvas.getWidth(),
-							fractal.getMinImag() + (fractal.getMaxImag() - fractal.getMinImag())
-									* (fractal.canvas.getHeight() - fractal.canvas.getMousePosition().y)
+							fractal.getMinReal().doubleValue() + fractal.getMaxReal().subtract(fractal.getMinReal())
+									.doubleValue() * fractal.canvas.getMousePosition().x / fractal.canvas.getWidth(),
+							fractal.getMinImag().doubleValue() + fractal.getMaxImag().subtract(fractal.getMinImag())
+									.doubleValue() * (fractal.canvas.getHeight() - fractal.canvas.getMousePosition().y)
 									/ fractal.canvas.getHeight());
 				}
 				catch (IllegalArgumentException | ReflectiveOperationException e1) {
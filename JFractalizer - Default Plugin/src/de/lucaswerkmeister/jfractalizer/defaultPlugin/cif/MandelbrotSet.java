@@ -5,6 +5,8 @@ import static de.lucaswerkmeister.jfractalizer.framework.Log.log;
 import java.awt.MenuItem;
 import java.awt.PopupMenu;
 import java.awt.geom.Rectangle2D;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
 import de.lucaswerkmeister.jfractalizer.defaultPlugin.DefaultPlugin;
 import de.lucaswerkmeister.jfractalizer.framework.FractXmlLoader;
@@ -17,7 +19,13 @@ public class MandelbrotSet extends CifFractal {
 	private CifMenuListener					menuListener			= null;
 
 	public MandelbrotSet() {
-		super(MandelbrotImageMaker_NoHoles.class);
+		super(MandelbrotImageMaker_NoHoles.class, MandelbrotImageMaker_DoubleDouble.class,
+				MandelbrotImageMaker_Perturbation.class);
+	}
+
+	@Override
+	ReferenceOrbit calculateReferenceOrbit(BigDecimal real, BigDecimal imag, int maxPasses, MathContext mathContext) {
+		return ReferenceOrbit.mandelbrot(real, imag, maxPasses, mathContext);
 	}
 
 	@Override
@@ -53,6 +61,26 @@ public class MandelbrotSet extends CifFractal {
 		// Don't do anything
 	}
 
+	/**
+	 * Checks whether the area lies inside the main cardioid or the period-2 bulb. Both are convex (the cardioid only
+	 * when split along the real axis, at its cusp), so it suffices to check the corners.
+	 */
+	@Override
+	protected boolean isInsideFractal(double minReal, double maxReal, double minImag, double maxImag) {
+		if (minImag < 0 && maxImag > 0)
+			return isInsideFractal(minReal, maxReal, minImag, 0) && isInsideFractal(minReal, maxReal, 0, maxImag);
+		if (CifImageMaker.isInMainCardioid(minReal, minImag) && CifImageMaker.isInMainCardioid(minReal, maxImag)
+				&& CifImageMaker.isInMainCardioid(maxReal, minImag) && CifImageMaker.isInMainCardioid(maxReal, maxImag))
+			return true;
+		return CifImageMaker.isInPeriod2Bulb(minReal, minImag) && CifImageMaker.isInPeriod2Bulb(minReal, maxImag)
+				&& CifImageMaker.isInPeriod2Bulb(maxReal, minImag) && CifImageMaker.isInPeriod2Bulb(maxReal, maxImag);
+	}
+
+	@Override
+	protected boolean isMirrorSymmetric() {
+		return true;
+	}
+
 	@Override
 	protected Rectangle2D.Double getStartArea() {
 		return new Rectangle2D.Double(-2.25, -1.25, 3.25, 2.5);
@@ -0,0 +1,176 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.Rectangle;
+
+/**
+ * An area of the image that isn't calculated, but copied from the mirrored part of the image, which is possible if the
+ * fractal is {@link CifFractal#isMirrorSymmetric() mirror} or {@link CifFractal#isPointSymmetric() point} symmetric.
+ * <p>
+ * Pixel <code>(x, y)</code> is the mirror image of pixel <code>(mirrorX - x, mirrorY - y)</code> (point symmetry) or
+ * <code>(x, mirrorY - y)</code> (mirror symmetry). The image makers place their samples symmetrically around
+ * <code>(minReal + x * pixelWidth, maxImag - y * pixelHeight)</code>, so the samples of both pixels are mirror images
+ * as well, as long as <code>mirrorX</code> and <code>mirrorY</code> are integers.
+ *
+ * @author Lucas Werkmeister
+ */
+final class MirroredArea {
+	/**
+	 * Mirror axes must lie within this fraction of a pixel from their integer position.
+	 */
+	private static final double	TOLERANCE	= 1e-6;
+
+	/**
+	 * The mirrored area, in pixels.
+	 */
+	final Rectangle				area;
+	/**
+	 * The area that must be calculated before the mirrored area can be copied, in pixels. Each pixel in the mirrored
+	 * area whose mirror image lies outside the image is neither in the mirrored nor in the calculated area; there are
+	 * at most two such strips, to the left and the right of the mirrored area.
+	 */
+	final Rectangle				calculatedArea;
+	private final boolean		pointSymmetric;
+	private final int			mirrorX, mirrorY;
+
+	private MirroredArea(final Rectangle area, final Rectangle calculatedArea, final boolean pointSymmetric,
+			final int mirrorX, final int mirrorY) {
+		this.area = area;
+		this.calculatedArea = calculatedArea;
+		this.pointSymmetric = pointSymmetric;
+		this.mirrorX = mirrorX;
+		this.mirrorY = mirrorY;
+	}
+
+	/**
+	 * Finds the largest area of the image that can be mirrored.
+	 *
+	 * @param width
+	 *            The width of the image.
+	 * @param height
+	 *            The height of the image.
+	 * @param minReal
+	 *            The left boundary of the image.
+	 * @param maxImag
+	 *            The upper boundary of the image.
+	 * @param pixelWidth
+	 *            The width of a pixel.
+	 * @param pixelHeight
+	 *            The height of a pixel.
+	 * @param pointSymmetric
+	 *            <code>true</code> if the fractal is symmetric to the origin, <code>false</code> if it is symmetric to
+	 *            the real axis.
+	 * @return The mirrored area, or <code>null</code> if the mirror axes don't lie on pixels of the image.
+	 */
+	static MirroredArea find(final int width, final int height, final double minReal, final double maxImag,
+			final double pixelWidth, final double pixelHeight, final boolean pointSymmetric) {
+		// the imaginary part of pixel y is maxImag - y * pixelHeight, so the real axis is mirrorY / 2
+		final double exactMirrorY = 2 * maxImag / pixelHeight;
+		final int mirrorY = (int) Math.rint(exactMirrorY);
+		if (Math.abs(exactMirrorY - mirrorY) > TOLERANCE || mirrorY < 0 || mirrorY > 2 * (height - 1))
+			return null;
+		final int minX, maxX, mirrorX;
+		if (pointSymmetric) {
+			final double exactMirrorX = -2 * minReal / pixelWidth;
+			mirrorX = (int) Math.rint(exactMirrorX);
+			if (Math.abs(exactMirrorX - mirrorX) > TOLERANCE || mirrorX < 0 || mirrorX > 2 * (width - 1))
+				return null;
+			// the mirror image of x lies in the image
+			minX = Math.max(0, mirrorX - width + 1);
+			maxX = Math.min(width - 1, mirrorX);
+		}
+		else {
+			mirrorX = 0;
+			minX = 0;
+			maxX = width - 1;
+		}
+		// mirror the rows on the side of the real axis that has less rows, calculate the others
+		final Rectangle area, calculatedArea;
+		if (mirrorY >= height - 1) {
+			final int firstMirroredRow = mirrorY / 2 + 1;
+			area = new Rectangle(minX, firstMirroredRow, maxX - minX + 1, height - firstMirroredRow);
+			calculatedArea = new Rectangle(0, 0, width, firstMirroredRow);
+		}
+		else {
+			final int firstCalculatedRow = (mirrorY + 1) / 2;
+			area = new Rectangle(minX, 0, maxX - minX + 1, firstCalculatedRow);
+			calculatedArea = new Rectangle(0, firstCalculatedRow, width, height - firstCalculatedRow);
+		}
+		if (area.isEmpty())
+			return null;
+		return new MirroredArea(area, calculatedArea, pointSymmetric, mirrorX, mirrorY);
+	}
+
+	/**
+	 * Copies the mirror images of the pixels in the specified calculated sub images, and the passes of their samples,
+	 * to the target.
+	 *
+	 * @param sources
+	 *            The calculated sub images. Sub images outside the {@link #calculatedArea} are skipped.
+	 * @param target
+	 *            The sub image that covers exactly the mirrored area.
+	 */
+	void copy(final SubImage[] sources, final SubImage target) {
+		for (SubImage source : sources) {
+			if (source == target || !calculatedArea.contains(source.offsetX, source.offsetY))
+				continue;
+			final int sourceWidth = source.width, sourceHeight = source.height;
+			final int samplesPerPixel = source.samplesPerPixel;
+			final int[] pixels = target.pixels;
+			// the columns that are copied, relative to the source and the target
+			final int sourceMinX, targetMinX, copyWidth;
+			if (pointSymmetric) {
+				final int minX = Math.max(area.x, mirrorX - (source.offsetX + sourceWidth - 1));
+				final int maxX = Math.min(area.x + area.width - 1, mirrorX - source.offsetX);
+				sourceMinX = mirrorX - maxX - source.offsetX;
+				targetMinX = minX - area.x;
+				copyWidth = maxX - minX + 1;
+			}
+			else {
+				sourceMinX = 0;
+				targetMinX = source.offsetX - area.x;
+				copyWidth = sourceWidth;
+			}
+			if (copyWidth <= 0)
+				continue;
+			for (int sourceY = 0; sourceY < sourceHeight; sourceY++) {
+				final int y = mirrorY - (source.offsetY + sourceY);
+				if (y < area.y || y >= area.y + area.height)
+					continue;
+				final int sourceIndex = source.pixelIndex(sourceMinX, sourceY);
+				final int targetIndex = target.pixelIndex(targetMinX, y - area.y);
+				final int sourcePixel = sourceY * sourceWidth + sourceMinX;
+				final int targetPixel = (y - area.y) * area.width + targetMinX;
+				if (pointSymmetric)
+					for (int i = 0; i < copyWidth; i++) {
+						pixels[targetIndex + i] = pixels[sourceIndex + copyWidth - 1 - i];
+						System.arraycopy(source.passes, (sourcePixel + copyWidth - 1 - i) * samplesPerPixel,
+								target.passes, (targetPixel + i) * samplesPerPixel, samplesPerPixel);
+					}
+				else {
+					System.arraycopy(pixels, sourceIndex, pixels, targetIndex, copyWidth);
+					System.arraycopy(source.passes, sourcePixel * samplesPerPixel, target.passes, targetPixel
+							* samplesPerPixel, copyWidth * samplesPerPixel);
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "rows " + area.y + " to " + (area.y + area.height - 1) + ", columns " + area.x + " to "
+				+ (area.x + area.width - 1);
+	}
+}
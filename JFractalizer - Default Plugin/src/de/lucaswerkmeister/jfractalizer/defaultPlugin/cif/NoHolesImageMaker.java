@@ -0,0 +1,182 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * This implementation of a CifImageMaker uses the fact that some fractals are <i>full</i> (i. e. have no holes), which
+ * means that all pixels that do not belong to the fractal must be connected. Thus, a lot of pixels can be skipped: If
+ * they are not connected to any colored pixels, they must be part of the fractal.
+ * <p>
+ * Cutting the image into tiles would break this argument at the border of each tile, so all image makers of a
+ * calculation work on the whole image and share a {@link NoHolesTrace}: Starting at the border of the image and a
+ * coarse grid of lines across it, each pixel that has colored samples claims its unclaimed neighbors, which are then
+ * calculated as well. Each image maker keeps working until the whole trace is finished, so there is no point in running
+ * more of them than there are threads.
+ *
+ * @author Lucas Werkmeister
+ *
+ */
+public abstract class NoHolesImageMaker extends CifImageMaker {
+	/**
+	 * When an image maker has at least this many claimed pixels and another image maker is idle, it shares half of
+	 * them.
+	 */
+	private static final int	SHARE_THRESHOLD	= 64;
+
+	private final NoHolesTrace	trace;
+	private final boolean		ownTrace;
+
+	private double				factorR, factorI, deltaR, deltaI, rangeR, rangeI;
+
+	/**
+	 * Creates a new instance of the NoHolesImageMaker with specified bounds.
+	 * <p>
+	 * The image maker uses the {@link CifFractal#getNoHolesTrace() trace} of the fractal if there is one, in which case
+	 * the bounds must be those of the whole image; otherwise, it traces the specified area alone.
+	 *
+	 * @param width
+	 *            The width of the generated image.
+	 * @param height
+	 *            The height of the generated image.
+	 * @param minReal
+	 *            The lower value on the real scale (left boundary).
+	 * @param maxReal
+	 *            The higher value on the real scale (right boundary).
+	 * @param minImag
+	 *            The lower value on the imaginary scale (<b>lower</b> boundary).
+	 * @param maxImag
+	 *            The higher value on the imaginary scale (upper boundary).
+	 * @param maxPasses
+	 *            The number of iterations that a complex number has to pass before it is considered a member of the
+	 *            fractal.
+	 * @param target
+	 *            The BufferedImage to which the calculation results will be drawn.
+	 * @param targetX
+	 *            The x coordinate on the target image to which the generated image will be written.
+	 * @param targetY
+	 *            The y coordinate on the target image to which the generated image will be written.
+	 * @param palette
+	 *            The palette.
+	 * @param superSamplingFactor
+	 *            The AntiAliasing SuperSampling factor.
+	 * @param fractal
+	 *            The fractal.
+	 */
+	public NoHolesImageMaker(final int width, final int height, final double minReal, final double maxReal,
+			final double minImag, final double maxImag, final int maxPasses, final BufferedImage target,
+			final int targetX, final int targetY, final ColorPalette palette, final byte superSamplingFactor,
+			CifFractal fractal) {
+		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
+				superSamplingFactor, fractal);
+		final NoHolesTrace sharedTrace = fractal.getNoHolesTrace();
+		ownTrace = sharedTrace == null;
+		trace = ownTrace ? new NoHolesTrace(width, height) : sharedTrace;
+	}
+
+	@Override
+	public void run() {
+		if (ownTrace) {
+			// otherwise, the fractal already filled the whole image
+			fillPixels(0, 0, width, height, colors[0]);
+		}
+		trace.join();
+
+		factorR = (maxReal - minReal) / width;
+		factorI = (minImag - maxImag) / height; // imaginary scale goes up, but computer graphics y goes down, so min-
+												// and maxImag have to be swapped
+		deltaR = factorR / superSamplingFactor;
+		deltaI = factorI / superSamplingFactor;
+		final byte lessSuperSamplingFactor = (byte) (superSamplingFactor - 1);
+		rangeR = lessSuperSamplingFactor * deltaR / 2;
+		rangeI = lessSuperSamplingFactor * deltaI / 2;
+
+		int[] stack = new int[1024];
+		int size = 0;
+		while (true) {
+			if (size == 0) {
+				final int[] chunk = trace.take();
+				if (chunk == null)
+					return;
+				if (stack.length < chunk.length)
+					stack = new int[chunk.length];
+				System.arraycopy(chunk, 0, stack, 0, chunk.length);
+				size = chunk.length;
+			}
+			if (isInterrupted()) {
+				// drop the work, but keep taking chunks until the trace is finished so the other image makers don't wait
+				size = 0;
+				continue;
+			}
+
+			final int index = stack[--size];
+			final int x = index % width, y = index / width;
+			if (calculatePixel(x, y)) {
+				if (stack.length < size + 4)
+					stack = Arrays.copyOf(stack, 2 * stack.length);
+				if (y > 0 && trace.claim(index - width))
+					stack[size++] = index - width;
+				if (x < width - 1 && trace.claim(index + 1))
+					stack[size++] = index + 1;
+				if (x > 0 && trace.claim(index - 1))
+					stack[size++] = index - 1;
+				if (y < height - 1 && trace.claim(index + width))
+					stack[size++] = index + width;
+			}
+
+			if (size >= SHARE_THRESHOLD && trace.hasIdleWorkers()) {
+				final int shared = size / 2;
+				trace.share(Arrays.copyOf(stack, shared));
+				System.arraycopy(stack, shared, stack, 0, size - shared);
+				size -= shared;
+			}
+		}
+	}
+
+	/**
+	 * Calculates and draws the specified pixel.
+	 *
+	 * @return <code>true</code> if any sample of the pixel escaped, <code>false</code> otherwise.
+	 */
+	private boolean calculatePixel(final int x, final int y) {
+		int averageR = 0, averageG = 0, averageB = 0;
+		int averageDenominator = 0; // counting the denominator up is needed because, due to rounding errors,
+									// sometimes the SuperSampling loop runs less than superSamplingFactor² times.
+		boolean colored = false;
+		// the fractal stored passes -1 for all samples, but rounding errors might leave some of them out
+		fillPasses(x, y, 1, 1, SubImage.NO_SAMPLE);
+		final double centerR = x * factorR + minReal;
+		final double centerI = y * factorI + maxImag;
+		final double borderR = centerR + rangeR;
+		final double borderI = centerI - rangeI;
+		for (double r = centerR - rangeR; r <= borderR; r += deltaR)
+			for (double i = centerI + rangeI; i <= borderI; i -= deltaI) {
+				final int passes = samplePasses(r, i);
+				storePasses(x, y, averageDenominator, passes);
+				colored |= passes != -1;
+				final int color = colors[passes + 1];
+				averageR += (color >> 16) & 0xFF;
+				averageG += (color >> 8) & 0xFF;
+				averageB += color & 0xFF;
+				averageDenominator++;
+			}
+		drawPixel(x, y, rgb(averageR / averageDenominator, averageG / averageDenominator, averageB
+				/ averageDenominator));
+		return colored;
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The state of a trace through the whole image that is shared between all {@link NoHolesImageMaker}s of a
+ * calculation.
+ * <p>
+ * Pixels are identified by their index <code>y * width + x</code>. Each pixel is claimed exactly once, by setting its
+ * bit in a bitmap with compare-and-set; only the image maker that claimed a pixel calculates it. Claimed pixels that
+ * are not calculated yet are kept by the image makers themselves; when some of them run out of work, the others
+ * share chunks of their pixels through a queue. Image makers that wait for work block as
+ * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker) managed blockers}, so that the thread pool can run
+ * other tasks in the meantime.
+ * <p>
+ * The image makers {@link #join() join} the trace when they start, so they don't need to run at the same time: An
+ * image maker that joins late takes whatever work is left, and one that never starts (because its calculation was
+ * cancelled first) isn't waited for.
+ * <p>
+ * With a {@link FrameHint}, the chunks of the initial work are taken in the order of their predicted passes, the
+ * longest first. Each pixel is still claimed exactly once, so the image doesn't depend on the order.
+ *
+ * @author Lucas Werkmeister
+ */
+final class NoHolesTrace {
+	/**
+	 * The number of pixels in each chunk of the initial work.
+	 */
+	private static final int						SEED_CHUNK_SIZE		= 256;
+	/**
+	 * Besides the border of the image, the trace starts at the border of each {@link CifFractal#TILE_SIZE tile} that
+	 * the image would be cut into, like the tiled image makers did. This catches filaments that are thinner than a
+	 * pixel: the trace can't follow them from the border of the image, but they still cross the grid.
+	 */
+	private static final int						SEED_SPACING		= CifFractal.TILE_SIZE;
+
+	final int										width, height;
+	private final AtomicIntegerArray				claimed;
+	private final ConcurrentLinkedQueue<int[]>		sharedWork			= new ConcurrentLinkedQueue<>();
+	private final AtomicInteger						workers				= new AtomicInteger();
+	private final AtomicInteger						idleWorkers			= new AtomicInteger();
+
+	/**
+	 * Creates a new trace, starting at the border of the image and of each {@link #SEED_SPACING tile}.
+	 *
+	 * @param width
+	 *            The width of the image.
+	 * @param height
+	 *            The height of the image.
+	 */
+	NoHolesTrace(final int width, final int height) {
+		this(new Rectangle(width, height), null);
+	}
+
+	/**
+	 * Creates a new trace through a section of the image, starting at the border of the section and of each
+	 * {@link #SEED_SPACING tile}.
+	 *
+	 * @param section
+	 *            The section of the image.
+	 * @param hint
+	 *            The prediction of the passes of the pixels of the image, or <code>null</code>.
+	 */
+	NoHolesTrace(final Rectangle section, final FrameHint hint) {
+		this.width = section.width;
+		this.height = section.height;
+		claimed = new AtomicIntegerArray((width * height + 31) >>> 5);
+
+		final int[] seeds = new int[2 * ((height / SEED_SPACING + 1) * width + (width / SEED_SPACING + 1) * height)];
+		int size = 0;
+		for (int y = 0; y < height; y++) {
+			final boolean seedRow = isTileBorder(y, height);
+			for (int x = 0; x < width; x++)
+				if ((seedRow || isTileBorder(x, width)) && claim(y * width + x))
+					seeds[size++] = y * width + x;
+		}
+		final int[][] chunks = new int[(size + SEED_CHUNK_SIZE - 1) / SEED_CHUNK_SIZE][];
+		final List<Integer> order = new ArrayList<>(chunks.length);
+		for (int i = 0; i < chunks.length; i++) {
+			chunks[i] = Arrays.copyOfRange(seeds, i * SEED_CHUNK_SIZE, Math.min((i + 1) * SEED_CHUNK_SIZE, size));
+			order.add(i);
+		}
+		if (hint != null) {
+			final long[] costs = new long[chunks.length];
+			for (int i = 0; i < chunks.length; i++)
+				for (int index : chunks[i])
+					costs[i] += hint.cost(section.x + index % width, section.y + index / width);
+			Collections.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(final Integer chunk1, final Integer chunk2) {
+					return Long.compare(costs[chunk2], costs[chunk1]);
+				}
+			});
+		}
+		for (int i : order)
+			sharedWork.add(chunks[i]);
+	}
+
+	/**
+	 * @return <code>true</code> if the specified row or column lies on the border of a tile or of the image.
+	 */
+	private static boolean isTileBorder(final int coordinate, final int size) {
+		final int offset = coordinate % SEED_SPACING;
+		return offset == 0 || offset == SEED_SPACING - 1 || coordinate == size - 1;
+	}
+
+	/**
+	 * Claims the specified pixel.
+	 *
+	 * @return <code>true</code> if the pixel was not claimed before and the caller must calculate it,
+	 *         <code>false</code> otherwise.
+	 */
+	boolean claim(final int index) {
+		final int word = index >>> 5, bit = 1 << (index & 31);
+		while (true) {
+			final int old = claimed.get(word);
+			if ((old & bit) != 0)
+				return false;
+			if (claimed.compareAndSet(word, old, old | bit))
+				return true;
+		}
+	}
+
+	/**
+	 * Registers an image maker that starts working on the trace. Each image maker must call this once before it
+	 * {@link #take() takes} any work.
+	 */
+	void join() {
+		workers.incrementAndGet();
+	}
+
+	/**
+	 * @return whether any image maker is waiting for work
+	 */
+	boolean hasIdleWorkers() {
+		return idleWorkers.get() > 0;
+	}
+
+	/**
+	 * Shares the specified claimed pixels with the other image makers.
+	 */
+	void share(final int[] chunk) {
+		sharedWork.add(chunk);
+		wakeUp();
+	}
+
+	/**
+	 * Takes a chunk of shared pixels, waiting until another image maker shares some if necessary.
+	 *
+	 * @return The pixels, or <code>null</code> if all image makers are out of work, which means that the trace is
+	 *         finished.
+	 */
+	int[] take() {
+		final int[] chunk = sharedWork.poll();
+		if (chunk != null)
+			return chunk;
+		idleWorkers.incrementAndGet();
+		// this might have been the last busy image maker
+		wakeUp();
+		final Waiter waiter = new Waiter();
+		try {
+			ForkJoinPool.managedBlock(waiter);
+		}
+		catch (InterruptedException e) {
+			// stay idle, like an image maker whose trace is finished
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		if (waiter.chunk != null)
+			idleWorkers.decrementAndGet();
+		return waiter.chunk;
+	}
+
+	/**
+	 * Wakes up the image makers that wait for work, so that they check whether there is some or the trace is finished.
+	 */
+	private synchronized void wakeUp() {
+		notifyAll();
+	}
+
+	/**
+	 * Waits until there is shared work or the trace is finished.
+	 */
+	private final class Waiter implements ForkJoinPool.ManagedBlocker {
+		/**
+		 * The chunk that was taken, or <code>null</code> if the trace is finished.
+		 */
+		int[]	chunk;
+		boolean	finished;
+
+		@Override
+		public boolean isReleasable() {
+			if (chunk == null)
+				chunk = sharedWork.poll();
+			// if all image makers that joined are idle, nobody can share anything anymore (image makers that join
+			// later don't have any work of their own either), but someone might have shared something since the last
+			// poll; image makers that return stay idle
+			if (chunk == null && idleWorkers.get() == workers.get() && (chunk = sharedWork.poll()) == null)
+				finished = true;
+			return chunk != null || finished;
+		}
+
+		@Override
+		public boolean block() throws InterruptedException {
+			// sharing work and becoming idle both wake up the waiting image makers while holding the same lock, so
+			// checking and waiting under it doesn't miss any of them
+			synchronized (NoHolesTrace.this) {
+				while (!isReleasable())
+					NoHolesTrace.this.wait();
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.image.BufferedImage;
+import java.math.BigDecimal;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * This implementation of a CifImageMaker is used for views that are too deep for <code>double</code> precision. Only
+ * the {@link ReferenceOrbit reference orbit} of the fractal is calculated with arbitrary precision; all samples are
+ * iterated as small differences to it, which <code>double</code> can represent.
+ * <p>
+ * The boundaries of a PerturbationImageMaker are therefore <b>relative to the reference point</b>.
+ * <p>
+ * Where the orbit of a sample comes too close to zero compared to the reference orbit, the difference loses its
+ * precision (a &ldquo;glitch&rdquo;); the same happens if the reference escapes before the sample. Such samples are
+ * detected and recalculated against a new reference orbit, taken from one of the glitched samples. The few samples
+ * that are still glitched after {@link #MAX_REFERENCES} new reference orbits are iterated with arbitrary precision on
+ * their own.
+ *
+ * @author Lucas Werkmeister
+ *
+ */
+public abstract class PerturbationImageMaker extends CifImageMaker {
+	/**
+	 * Returned by {@link #perturbationPasses(ReferenceOrbit, double, double, double, double, int)} for glitched
+	 * samples.
+	 */
+	static final int				GLITCH						= Integer.MIN_VALUE;
+	/**
+	 * A sample is considered glitched if the square of its magnitude drops below this factor times the square of the
+	 * magnitude of the reference orbit.
+	 */
+	static final double				GLITCH_TOLERANCE_SQUARED	= 1e-6;
+	/**
+	 * The maximum number of additional reference orbits per image maker. Samples that are still glitched afterwards
+	 * are iterated with arbitrary precision.
+	 */
+	static final int				MAX_REFERENCES				= 64;
+
+	private final ReferenceOrbit	referenceOrbit;
+	/**
+	 * The additional reference orbits that {@link #calculateSamples(double[], double[], int[])} calculated for glitched
+	 * samples, and their reference points relative to the main reference point.
+	 */
+	private final ReferenceOrbit[]	additionalOrbits			= new ReferenceOrbit[MAX_REFERENCES];
+	private final double[]			additionalReal				= new double[MAX_REFERENCES];
+	private final double[]			additionalImag				= new double[MAX_REFERENCES];
+	private int						additionalCount				= 0;
+
+	/**
+	 * Creates a new instance of the PerturbationImageMaker with specified bounds.
+	 *
+	 * @param width
+	 *            The width of the generated image.
+	 * @param height
+	 *            The height of the generated image.
+	 * @param minReal
+	 *            The lower value on the real scale (left boundary), relative to the reference point.
+	 * @param maxReal
+	 *            The higher value on the real scale (right boundary), relative to the reference point.
+	 * @param minImag
+	 *            The lower value on the imaginary scale (<b>lower</b> boundary), relative to the reference point.
+	 * @param maxImag
+	 *            The higher value on the imaginary scale (upper boundary), relative to the reference point.
+	 * @param maxPasses
+	 *            The number of iterations that a complex number has to pass before it is considered a member of the
+	 *            fractal.
+	 * @param target
+	 *            The BufferedImage to which the calculation results will be drawn.
+	 * @param targetX
+	 *            The x coordinate on the target image to which the generated image will be written.
+	 * @param targetY
+	 *            The y coordinate on the target image to which the generated image will be written.
+	 * @param palette
+	 *            The palette.
+	 * @param superSamplingFactor
+	 *            The AntiAliasing SuperSampling factor.
+	 * @param fractal
+	 *            The fractal, which provides the reference orbit.
+	 */
+	public PerturbationImageMaker(final int width, final int height, final double minReal, final double maxReal,
+			final double minImag, final double maxImag, final int maxPasses, final BufferedImage target,
+			final int targetX, final int targetY, final ColorPalette palette, final byte superSamplingFactor,
+			CifFractal fractal) {
+		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
+				superSamplingFactor, fractal);
+		referenceOrbit = fractal.getReferenceOrbit();
+	}
+
+	/**
+	 * Calculates the passes of a sample.
+	 *
+	 * @param orbit
+	 *            The reference orbit.
+	 * @param deltaReal
+	 *            The real part of the difference between the sample and the reference point.
+	 * @param deltaImag
+	 *            The imaginary part of the difference between the sample and the reference point.
+	 * @return The number of passes, <code>-1</code> if the sample didn't escape, or {@link #GLITCH} if the sample is
+	 *         glitched.
+	 */
+	protected abstract int calculatePasses(ReferenceOrbit orbit, double deltaReal, double deltaImag);
+
+	/**
+	 * Calculates the passes of the sample at the specified offset from the reference point. Glitched samples are
+	 * recalculated against the additional reference orbits of {@link #calculateSamples(double[], double[], int[])}, and
+	 * {@link #fullPrecisionPasses(double, double) with arbitrary precision} if they are still glitched.
+	 */
+	@Override
+	protected final int calculatePasses(final double real, final double imag) {
+		int passes = calculatePasses(referenceOrbit, real, imag);
+		for (int i = 0; passes == GLITCH && i < additionalCount; i++)
+			passes = calculatePasses(additionalOrbits[i], real - additionalReal[i], imag - additionalImag[i]);
+		return passes == GLITCH ? fullPrecisionPasses(real, imag) : passes;
+	}
+
+	/**
+	 * Calculates the passes of the sample at the specified offset from the reference point with the arbitrary
+	 * precision of the reference orbit, without perturbation. This is much slower than perturbation, so it is only used
+	 * for samples that no reference orbit could calculate.
+	 */
+	private int fullPrecisionPasses(final double real, final double imag) {
+		fullPrecisionSamples++;
+		return fractal.calculateReferenceOrbit(
+				referenceOrbit.real.add(new BigDecimal(real), referenceOrbit.mathContext),
+				referenceOrbit.imag.add(new BigDecimal(imag), referenceOrbit.mathContext), maxPasses,
+				referenceOrbit.mathContext).passes();
+	}
+
+	/**
+	 * Iterates the difference <code>&epsilon;</code> between a sample and the reference orbit <code>Z</code>:
+	 * <p>
+	 * <code>&epsilon;<sub>n+1</sub> = 2Z<sub>n</sub>&epsilon;<sub>n</sub> + &epsilon;<sub>n</sub>&sup2; + &delta;c</code>
+	 * <p>
+	 * The passes are counted like in {@link #juliaPasses(double, double, double, double, int)}.
+	 *
+	 * @param orbit
+	 *            The reference orbit.
+	 * @param epsilonReal
+	 *            The real part of the initial difference.
+	 * @param epsilonImag
+	 *            The imaginary part of the initial difference.
+	 * @param deltaCReal
+	 *            The real part of the difference in the added constant.
+	 * @param deltaCImag
+	 *            The imaginary part of the difference in the added constant.
+	 * @param maxPasses
+	 *            The maximum number of passes.
+	 * @return The number of passes, <code>-1</code> if the sample didn't escape, or {@link #GLITCH} if the sample is
+	 *         glitched.
+	 */
+	protected static final int perturbationPasses(final ReferenceOrbit orbit, double epsilonReal, double epsilonImag,
+			final double deltaCReal, final double deltaCImag, final int maxPasses) {
+		final double[] orbitReal = orbit.orbitReal, orbitImag = orbit.orbitImag;
+		final int lastIndex = orbit.length - 1;
+		int passes = 0;
+		for (int n = 0;; n++) {
+			final double referenceReal = orbitReal[n], referenceImag = orbitImag[n];
+			final double zReal = referenceReal + epsilonReal, zImag = referenceImag + epsilonImag;
+			final double zMagnitudeSquared = zReal * zReal + zImag * zImag;
+			if (zMagnitudeSquared >= 4)
+				return passes;
+			if (++passes > maxPasses)
+				return -1;
+			if (n == lastIndex
+					|| zMagnitudeSquared < GLITCH_TOLERANCE_SQUARED
+							* (referenceReal * referenceReal + referenceImag * referenceImag))
+				return GLITCH;
+			final double twoZPlusEpsilonReal = 2 * referenceReal + epsilonReal;
+			final double twoZPlusEpsilonImag = 2 * referenceImag + epsilonImag;
+			final double epsilonRealNew = twoZPlusEpsilonReal * epsilonReal - twoZPlusEpsilonImag * epsilonImag
+					+ deltaCReal;
+			epsilonImag = twoZPlusEpsilonReal * epsilonImag + twoZPlusEpsilonImag * epsilonReal + deltaCImag;
+			epsilonReal = epsilonRealNew;
+		}
+	}
+
+	/**
+	 * Calculates the unknown samples, which are at the specified offsets from the reference point. Samples that are
+	 * glitched against all reference orbits so far are calculated again against additional reference orbits, each one
+	 * at a glitched sample, until no samples are glitched or there are {@link #MAX_REFERENCES} additional orbits; the
+	 * remaining glitched samples are {@link #fullPrecisionPasses(double, double) iterated with arbitrary precision}.
+	 * Returns early if the image maker is interrupted.
+	 */
+	@Override
+	void calculateSamples(final double[] real, final double[] imag, final int[] passes) {
+		final int[] glitched = new int[passes.length];
+		int glitchedCount = 0;
+
+		for (int sample = 0; sample < passes.length; sample++) {
+			if (sample % width == 0 && isInterrupted())
+				return;
+			if (passes[sample] != SubImage.NO_SAMPLE)
+				continue;
+			passes[sample] = calculatePasses(referenceOrbit, real[sample], imag[sample]);
+			for (int i = 0; passes[sample] == GLITCH && i < additionalCount; i++)
+				passes[sample] = calculatePasses(additionalOrbits[i], real[sample] - additionalReal[i], imag[sample]
+						- additionalImag[i]);
+			if (passes[sample] == GLITCH)
+				glitched[glitchedCount++] = sample;
+		}
+
+		while (glitchedCount > 0 && additionalCount < MAX_REFERENCES) {
+			if (isInterrupted())
+				return;
+			// glitches come in blobs, so a sample from the middle of the list is likely to be in the middle of one
+			final int referenceSample = glitched[glitchedCount / 2];
+			final double referenceReal = real[referenceSample], referenceImag = imag[referenceSample];
+			final ReferenceOrbit orbit = fractal.calculateReferenceOrbit(
+					referenceOrbit.real.add(new BigDecimal(referenceReal), referenceOrbit.mathContext),
+					referenceOrbit.imag.add(new BigDecimal(referenceImag), referenceOrbit.mathContext), maxPasses,
+					referenceOrbit.mathContext);
+			additionalOrbits[additionalCount] = orbit;
+			additionalReal[additionalCount] = referenceReal;
+			additionalImag[additionalCount] = referenceImag;
+			additionalCount++;
+			int stillGlitchedCount = 0;
+			for (int i = 0; i < glitchedCount; i++) {
+				final int sample = glitched[i];
+				passes[sample] = calculatePasses(orbit, real[sample] - referenceReal, imag[sample] - referenceImag);
+				if (passes[sample] == GLITCH)
+					glitched[stillGlitchedCount++] = sample;
+			}
+			glitchedCount = stillGlitchedCount;
+		}
+
+		for (int i = 0; i < glitchedCount; i++) {
+			if (isInterrupted())
+				return;
+			passes[glitched[i]] = fullPrecisionPasses(real[glitched[i]], imag[glitched[i]]);
+		}
+	}
+
+	@Override
+	public void run() {
+		final int[] passes = new int[width * height * samplesPerPixel];
+		final double[] real = new double[passes.length];
+		final double[] imag = new double[passes.length];
+		for (int sample = 0; sample < passes.length; sample++) {
+			real[sample] = sampleReal(sample);
+			imag[sample] = sampleImag(sample);
+			passes[sample] = reusedPasses(real[sample], imag[sample]);
+		}
+		calculateSamples(real, imag, passes);
+		if (isInterrupted())
+			return;
+
+		int averageR, averageG, averageB;
+		int color;
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++) {
+				averageR = averageG = averageB = 0;
+				final int firstSample = (y * width + x) * samplesPerPixel;
+				for (int sample = firstSample; sample < firstSample + samplesPerPixel; sample++) {
+					storePasses(x, y, sample - firstSample, passes[sample]);
+					color = colors[passes[sample] + 1];
+					averageR += (color >> 16) & 0xFF;
+					averageG += (color >> 8) & 0xFF;
+					averageB += color & 0xFF;
+				}
+				drawPixel(x, y, rgb(averageR / samplesPerPixel, averageG / samplesPerPixel, averageB
+						/ samplesPerPixel));
+			}
+	}
+
+	/**
+	 * Calculates the real part of the specified sample, relative to the reference point. The samples are numbered row
+	 * by row, pixel by pixel.
+	 */
+	private double sampleReal(final int sample) {
+		final int x = sample / (superSamplingFactor * superSamplingFactor) % width;
+		final int subX = sample % (superSamplingFactor * superSamplingFactor) / superSamplingFactor;
+		return minReal + (maxReal - minReal) / width
+				* (x + (subX - (superSamplingFactor - 1) / 2.0) / superSamplingFactor);
+	}
+
+	/**
+	 * Calculates the imaginary part of the specified sample, relative to the reference point. The samples are numbered
+	 * row by row, pixel by pixel.
+	 */
+	private double sampleImag(final int sample) {
+		final int y = sample / (width * superSamplingFactor * superSamplingFactor);
+		final int subY = sample % superSamplingFactor;
+		return maxImag - (maxImag - minImag) / height
+				* (y + (subY - (superSamplingFactor - 1) / 2.0) / superSamplingFactor);
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coarse previews of an image, which are calculated before the image itself so that the canvas has something to show
+ * while the image makers are still running.
+ * <p>
+ * The previews have 1/8, 1/4, 1/2 and, if the image is supersampled, full resolution. Each pixel of a preview is a
+ * single sample at the center of the top left pixel of the image that it covers, so each preview contains all samples
+ * of the previous one; only the other three quarters of its samples are calculated. They form three {@link Lattice
+ * lattices} with the spacing of the previous preview, offset by half of it horizontally, vertically, or both, and each
+ * lattice is calculated by one image maker, as an image of its own.
+ * <p>
+ * Each lattice keeps the passes of its samples in a {@link SubImage}, so that the image makers can take them over
+ * instead of calculating them again (see {@link SampleReuse#ofPreview(Preview, double, double, double, double, int)
+ * SampleReuse}).
+ *
+ * @author Lucas Werkmeister
+ */
+final class Preview {
+	/**
+	 * The spacing of the samples of the coarsest preview, in pixels.
+	 */
+	static final int			COARSEST_SPACING	= 8;
+
+	/**
+	 * A lattice of samples that is calculated as an image: Pixel <code>(x, y)</code> of the lattice is the sample at
+	 * the center of pixel <code>(offsetX + x * spacing, offsetY + y * spacing)</code> of the image.
+	 */
+	static final class Lattice {
+		final int			spacing;
+		final int			offsetX, offsetY;
+		final int			width, height;
+		final BufferedImage	image;
+		/**
+		 * The passes of the samples of the lattice, which are {@link SubImage#calculated calculated} once the image
+		 * maker of the lattice has finished.
+		 */
+		final SubImage		subImage;
+		private final Level	level;
+
+		private Lattice(final Level level, final int spacing, final int offsetX, final int offsetY,
+				final int imageWidth, final int imageHeight) {
+			this.level = level;
+			this.spacing = spacing;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+			width = Math.max(0, (imageWidth - offsetX + spacing - 1) / spacing);
+			height = Math.max(0, (imageHeight - offsetY + spacing - 1) / spacing);
+			image = width == 0 || height == 0 ? null : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			subImage = image == null ? null : new SubImage(image, new Rectangle(width, height), 1);
+		}
+
+		/**
+		 * @return the index of the sample at the center of pixel <code>(x, y)</code> of the image in the lattice
+		 */
+		int sample(final int x, final int y) {
+			return (y - offsetY) / spacing * width + (x - offsetX) / spacing;
+		}
+	}
+
+	/**
+	 * One of the previews.
+	 */
+	private static final class Level {
+		final int	spacing;
+		final int	width, height;
+		/**
+		 * The number of lattices of this level that aren't calculated yet.
+		 */
+		int			pending;
+
+		Level(final int spacing, final int imageWidth, final int imageHeight) {
+			this.spacing = spacing;
+			width = (imageWidth + spacing - 1) / spacing;
+			height = (imageHeight + spacing - 1) / spacing;
+		}
+	}
+
+	final int					width, height;
+	/**
+	 * The lattices of all previews, coarsest first.
+	 */
+	final List<Lattice>			lattices			= new ArrayList<>();
+	private final Level[]		levels;
+	private int					finishedLevels		= 0;
+	/**
+	 * The finest finished preview, and its spacing.
+	 */
+	private int[]				finest;
+	private int					finestSpacing;
+	private BufferedImage		display;
+
+	/**
+	 * Creates the previews of an image.
+	 *
+	 * @param width
+	 *            The width of the image.
+	 * @param height
+	 *            The height of the image.
+	 * @param finestSpacing
+	 *            The spacing of the samples of the finest preview: <code>1</code> for a preview in full resolution, or
+	 *            <code>2</code> if the image isn't supersampled, so that the image makers can take over right away.
+	 */
+	Preview(final int width, final int height, final int finestSpacing) {
+		this.width = width;
+		this.height = height;
+		final List<Level> levels = new ArrayList<>();
+		for (int spacing = COARSEST_SPACING; spacing >= finestSpacing; spacing /= 2) {
+			final Level level = new Level(spacing, width, height);
+			if (spacing == COARSEST_SPACING)
+				addLattice(level, spacing, 0, 0);
+			else {
+				addLattice(level, 2 * spacing, spacing, 0);
+				addLattice(level, 2 * spacing, 0, spacing);
+				addLattice(level, 2 * spacing, spacing, spacing);
+			}
+			levels.add(level);
+		}
+		this.levels = levels.toArray(new Level[levels.size()]);
+	}
+
+	private void addLattice(final Level level, final int spacing, final int offsetX, final int offsetY) {
+		final Lattice lattice = new Lattice(level, spacing, offsetX, offsetY, width, height);
+		if (lattice.image != null) {
+			lattices.add(lattice);
+			level.pending++;
+		}
+	}
+
+	/**
+	 * @return the lattice that has a sample at the center of pixel <code>(x, y)</code> of the image, or
+	 *         <code>null</code> if no preview has a sample there
+	 */
+	Lattice getLattice(final int x, final int y) {
+		for (Lattice lattice : lattices)
+			if (x >= lattice.offsetX && y >= lattice.offsetY && (x - lattice.offsetX) % lattice.spacing == 0
+					&& (y - lattice.offsetY) % lattice.spacing == 0)
+				return lattice;
+		return null;
+	}
+
+	/**
+	 * Marks the specified lattice as calculated, and assembles the previews that are complete now.
+	 *
+	 * @return The spacing of the finest preview that was completed by the lattice, or <code>0</code> if the lattice
+	 *         didn't complete any preview.
+	 */
+	synchronized int finished(final Lattice lattice) {
+		lattice.level.pending--;
+		final int oldFinishedLevels = finishedLevels;
+		while (finishedLevels < levels.length && levels[finishedLevels].pending == 0) {
+			final Level level = levels[finishedLevels];
+			final int[] pixels = new int[level.width * level.height];
+			if (finishedLevels == 0)
+				for (Lattice l : lattices) {
+					if (l.level == level)
+						System.arraycopy(CifImageMaker.getPixels(l.image), 0, pixels, 0, pixels.length);
+				}
+			else {
+				// the samples of the previous preview are those with even coordinates
+				final Level previous = levels[finishedLevels - 1];
+				for (int y = 0; y < level.height; y += 2)
+					for (int x = 0; x < level.width; x += 2)
+						pixels[y * level.width + x] = finest[(y / 2) * previous.width + x / 2];
+				for (Lattice l : lattices)
+					if (l.level == level) {
+						final int[] latticePixels = CifImageMaker.getPixels(l.image);
+						final int offsetX = l.offsetX / level.spacing, offsetY = l.offsetY / level.spacing;
+						for (int y = 0; y < l.height; y++) {
+							final int row = (2 * y + offsetY) * level.width + offsetX;
+							for (int x = 0; x < l.width; x++)
+								pixels[row + 2 * x] = latticePixels[y * l.width + x];
+						}
+					}
+			}
+			finest = pixels;
+			finestSpacing = level.spacing;
+			finishedLevels++;
+		}
+		return finishedLevels == oldFinishedLevels ? 0 : finestSpacing;
+	}
+
+	/**
+	 * Draws the finest finished preview, scaled to the size of the image, and the calculated sub images of the image
+	 * on top of it.
+	 *
+	 * @param subImages
+	 *            The sub images of the image.
+	 * @return The drawn image, or <code>null</code> if no preview is finished yet. The image is reused by the next
+	 *         call.
+	 */
+	BufferedImage draw(final SubImage[] subImages) {
+		final int[] finest;
+		final int spacing;
+		synchronized (this) {
+			finest = this.finest;
+			spacing = finestSpacing;
+		}
+		if (finest == null)
+			return null;
+		if (display == null)
+			display = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		final int[] pixels = CifImageMaker.getPixels(display);
+		final int finestWidth = (width + spacing - 1) / spacing;
+		for (int y = 0; y < height; y++) {
+			final int row = (y / spacing) * finestWidth;
+			for (int x = 0; x < width; x++)
+				pixels[y * width + x] = finest[row + x / spacing];
+		}
+		for (SubImage subImage : subImages)
+			if (subImage != null && subImage.calculated && subImage.image.getWidth() == width)
+				for (int y = 0; y < subImage.height; y++) {
+					final int index = subImage.pixelIndex(0, y);
+					System.arraycopy(subImage.pixels, index, pixels, index, subImage.width);
+				}
+		return display;
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * This implementation of a CifImageMaker uses rectangle subdivision (the Mariani&ndash;Silver algorithm): It only
+ * calculates the border of a rectangle. If all pixels on the border have the same number of passes, the whole
+ * rectangle is filled with their color; otherwise, the rectangle is split into four smaller rectangles, which are
+ * treated the same way.
+ * <p>
+ * This relies on the regions of equal passes being connected and having no holes, which is true for the Mandelbrot
+ * Set and for connected Julia Sets. Thin structures that lie between two calculated pixels might be missed, which is
+ * the usual tradeoff of this algorithm.
+ * <p>
+ * Unlike the usual fork/join formulation, the four smaller rectangles are calculated one after another by the same
+ * thread: the image is already split into sections that are calculated in parallel, and neighboring rectangles share
+ * their border pixels, which would otherwise be calculated twice or need synchronization.
+ *
+ * @author Lucas Werkmeister
+ *
+ */
+public abstract class RectanglesImageMaker extends CifImageMaker {
+	/**
+	 * Marks a pixel that was not calculated yet.
+	 */
+	private static final int	NOT_CALCULATED	= Integer.MIN_VALUE;
+	/**
+	 * Marks a pixel whose SuperSampling samples have different passes.
+	 */
+	private static final int	MIXED			= Integer.MIN_VALUE + 1;
+	/**
+	 * Rectangles whose inside is narrower or lower than this are calculated completely instead of being split
+	 * further.
+	 */
+	private static final int	MIN_SIZE		= 4;
+
+	/**
+	 * The passes of each pixel (<code>x * height + y</code>), or {@link #NOT_CALCULATED} or {@link #MIXED}.
+	 */
+	private final int[]			pixels;
+
+	private double				factorR, factorI, deltaR, deltaI, rangeR, rangeI;
+
+	/**
+	 * Creates a new instance of the RectanglesImageMaker with specified bounds.
+	 *
+	 * @param width
+	 *            The width of the generated image.
+	 * @param height
+	 *            The height of the generated image.
+	 * @param minReal
+	 *            The lower value on the real scale (left boundary).
+	 * @param maxReal
+	 *            The higher value on the real scale (right boundary).
+	 * @param minImag
+	 *            The lower value on the imaginary scale (<b>lower</b> boundary).
+	 * @param maxImag
+	 *            The higher value on the imaginary scale (upper boundary).
+	 * @param maxPasses
+	 *            The number of iterations that a complex number has to pass before it is considered a member of the
+	 *            fractal.
+	 * @param target
+	 *            The BufferedImage to which the calculation results will be drawn.
+	 * @param targetX
+	 *            The x coordinate on the target image to which the generated image will be written.
+	 * @param targetY
+	 *            The y coordinate on the target image to which the generated image will be written.
+	 * @param palette
+	 *            The palette.
+	 * @param superSamplingFactor
+	 *            The AntiAliasing SuperSampling factor.
+	 * @param fractal
+	 *            The fractal.
+	 */
+	public RectanglesImageMaker(final int width, final int height, final double minReal, final double maxReal,
+			final double minImag, final double maxImag, final int maxPasses, final BufferedImage target,
+			final int targetX, final int targetY, final ColorPalette palette, final byte superSamplingFactor,
+			CifFractal fractal) {
+		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
+				superSamplingFactor, fractal);
+		pixels = new int[width * height];
+		Arrays.fill(pixels, NOT_CALCULATED);
+	}
+
+	@Override
+	public void run() {
+		factorR = (maxReal - minReal) / width;
+		factorI = (minImag - maxImag) / height; // imaginary scale goes up, but computer graphics y goes down, so min-
+												// and maxImag have to be swapped
+		deltaR = factorR / superSamplingFactor;
+		deltaI = factorI / superSamplingFactor;
+		final byte lessSuperSamplingFactor = (byte) (superSamplingFactor - 1);
+		rangeR = lessSuperSamplingFactor * deltaR / 2;
+		rangeI = lessSuperSamplingFactor * deltaI / 2;
+
+		rectangle(0, 0, width - 1, height - 1);
+	}
+
+	/**
+	 * Calculates the rectangle with the specified corners (inclusive).
+	 */
+	private void rectangle(final int minX, final int minY, final int maxX, final int maxY) {
+		if (isInterrupted())
+			return;
+		if (maxX - minX <= MIN_SIZE || maxY - minY <= MIN_SIZE) {
+			for (int x = minX; x <= maxX; x++)
+				for (int y = minY; y <= maxY; y++)
+					calculatePixel(x, y);
+			return;
+		}
+
+		final int first = calculatePixel(minX, minY);
+		boolean uniform = first != MIXED;
+		for (int x = minX; x <= maxX; x++) {
+			uniform &= calculatePixel(x, minY) == first;
+			uniform &= calculatePixel(x, maxY) == first;
+		}
+		for (int y = minY + 1; y < maxY; y++) {
+			uniform &= calculatePixel(minX, y) == first;
+			uniform &= calculatePixel(maxX, y) == first;
+		}
+
+		if (uniform) {
+			fillPixels(minX + 1, minY + 1, maxX - minX - 1, maxY - minY - 1, colors[first + 1]);
+			fillPasses(minX + 1, minY + 1, maxX - minX - 1, maxY - minY - 1, first);
+			for (int x = minX + 1; x < maxX; x++)
+				Arrays.fill(pixels, x * height + minY + 1, x * height + maxY, first);
+		}
+		else {
+			// the rectangles share their borders, which are therefore only calculated once
+			final int middleX = (minX + maxX) >>> 1, middleY = (minY + maxY) >>> 1;
+			rectangle(minX, minY, middleX, middleY);
+			rectangle(middleX, minY, maxX, middleY);
+			rectangle(minX, middleY, middleX, maxY);
+			rectangle(middleX, middleY, maxX, maxY);
+		}
+	}
+
+	/**
+	 * Calculates and draws the specified pixel, unless it was already calculated.
+	 *
+	 * @return The passes of the pixel, or {@link #MIXED}.
+	 */
+	private int calculatePixel(final int x, final int y) {
+		final int index = x * height + y;
+		if (pixels[index] != NOT_CALCULATED)
+			return pixels[index];
+
+		int averageR = 0, averageG = 0, averageB = 0;
+		int averageDenominator = 0; // counting the denominator up is needed because, due to rounding errors,
+									// sometimes the SuperSampling loop runs less than superSamplingFactor² times.
+		int pixelPasses = NOT_CALCULATED;
+		final double centerR = x * factorR + minReal;
+		final double centerI = y * factorI + maxImag;
+		final double borderR = centerR + rangeR;
+		final double borderI = centerI - rangeI;
+		for (double r = centerR - rangeR; r <= borderR; r += deltaR)
+			for (double i = centerI + rangeI; i <= borderI; i -= deltaI) {
+				final int passes = samplePasses(r, i);
+				storePasses(x, y, averageDenominator, passes);
+				if (pixelPasses == NOT_CALCULATED)
+					pixelPasses = passes;
+				else if (pixelPasses != passes)
+					pixelPasses = MIXED;
+				final int color = colors[passes + 1];
+				averageR += (color >> 16) & 0xFF;
+				averageG += (color >> 8) & 0xFF;
+				averageB += color & 0xFF;
+				averageDenominator++;
+			}
+		drawPixel(x, y, rgb(averageR / averageDenominator, averageG / averageDenominator, averageB
+				/ averageDenominator));
+		return pixels[index] = pixelPasses;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * The orbit of a single reference point, calculated with arbitrary precision, against which the
+ * {@link PerturbationImageMaker perturbation image makers} iterate the other points as small differences.
+ * <p>
+ * Only the point itself is stored with arbitrary precision; the orbit is rounded to <code>double</code>, which is
+ * enough since its values are not small.
+ * <p>
+ * The orbit is calculated in fixed-point arithmetic on {@link BigInteger}s, which is much faster than
+ * <code>BigDecimal</code> arithmetic because rounding is just a shift.
+ *
+ * @author Lucas Werkmeister
+ */
+final class ReferenceOrbit {
+	/**
+	 * The reference point.
+	 */
+	final BigDecimal				real, imag;
+	/**
+	 * The precision with which the orbit was calculated.
+	 */
+	final MathContext				mathContext;
+	/**
+	 * The orbit, starting with the start value of the iteration. If the reference point escapes, the orbit ends with
+	 * the first value outside the escape radius.
+	 */
+	final double[]					orbitReal, orbitImag;
+	/**
+	 * The number of values in the orbit.
+	 */
+	final int						length;
+	/**
+	 * Whether the reference point escaped.
+	 */
+	final boolean					escaped;
+
+	private ReferenceOrbit(final BigDecimal real, final BigDecimal imag, final MathContext mathContext,
+			final double[] orbitReal, final double[] orbitImag, final int length, final boolean escaped) {
+		this.real = real;
+		this.imag = imag;
+		this.mathContext = mathContext;
+		this.orbitReal = orbitReal;
+		this.orbitImag = orbitImag;
+		this.length = length;
+		this.escaped = escaped;
+	}
+
+	/**
+	 * @return the number of passes of the reference point itself, counted like in
+	 *         {@link CifImageMaker#mandelbrotPasses(double, double, int)}, or <code>-1</code> if it didn't escape
+	 */
+	int passes() {
+		return escaped ? length - 1 : -1;
+	}
+
+	/**
+	 * Calculates the orbit of the specified point under the Mandelbrot iteration.
+	 *
+	 * @param cReal
+	 *            The real part of the point.
+	 * @param cImag
+	 *            The imaginary part of the point.
+	 * @param maxPasses
+	 *            The maximum number of passes.
+	 * @param mathContext
+	 *            The precision.
+	 * @return The orbit.
+	 */
+	static ReferenceOrbit mandelbrot(final BigDecimal cReal, final BigDecimal cImag, final int maxPasses,
+			final MathContext mathContext) {
+		return calculate(cReal, cImag, BigDecimal.ZERO, BigDecimal.ZERO, cReal, cImag, maxPasses, mathContext);
+	}
+
+	/**
+	 * Calculates the orbit of the specified point under the Julia iteration.
+	 *
+	 * @param zReal
+	 *            The real part of the point.
+	 * @param zImag
+	 *            The imaginary part of the point.
+	 * @param cReal
+	 *            The real part of the Julia parameter.
+	 * @param cImag
+	 *            The imaginary part of the Julia parameter.
+	 * @param maxPasses
+	 *            The maximum number of passes.
+	 * @param mathContext
+	 *            The precision.
+	 * @return The orbit.
+	 */
+	static ReferenceOrbit julia(final BigDecimal zReal, final BigDecimal zImag, final double cReal,
+			final double cImag, final int maxPasses, final MathContext mathContext) {
+		return calculate(zReal, zImag, zReal, zImag, new BigDecimal(cReal), new BigDecimal(cImag), maxPasses,
+				mathContext);
+	}
+
+	private static ReferenceOrbit calculate(final BigDecimal real, final BigDecimal imag,
+			final BigDecimal zRealStart, final BigDecimal zImagStart, final BigDecimal cRealStart,
+			final BigDecimal cImagStart, final int maxPasses, final MathContext mathContext) {
+		// binary digits after the point, enough for the decimal precision of the math context
+		final int fractionBits = (int) Math.ceil(mathContext.getPrecision() * Math.log(10) / Math.log(2)) + 8;
+		final BigInteger four = BigInteger.valueOf(4).shiftLeft(fractionBits);
+		final BigInteger cReal = toFixedPoint(cRealStart, fractionBits);
+		final BigInteger cImag = toFixedPoint(cImagStart, fractionBits);
+		BigInteger zReal = toFixedPoint(zRealStart, fractionBits);
+		BigInteger zImag = toFixedPoint(zImagStart, fractionBits);
+		final double[] orbitReal = new double[maxPasses + 1];
+		final double[] orbitImag = new double[maxPasses + 1];
+		int length = 0;
+		boolean escaped;
+		while (true) {
+			orbitReal[length] = Math.scalb(zReal.doubleValue(), -fractionBits);
+			orbitImag[length] = Math.scalb(zImag.doubleValue(), -fractionBits);
+			length++;
+			final BigInteger zRealSquared = zReal.multiply(zReal).shiftRight(fractionBits);
+			final BigInteger zImagSquared = zImag.multiply(zImag).shiftRight(fractionBits);
+			escaped = zRealSquared.add(zImagSquared).compareTo(four) >= 0;
+			if (length > maxPasses || escaped)
+				break;
+			zImag = zReal.multiply(zImag).shiftRight(fractionBits - 1).add(cImag);
+			zReal = zRealSquared.subtract(zImagSquared).add(cReal);
+		}
+		return new ReferenceOrbit(real, imag, mathContext, orbitReal, orbitImag, length, escaped);
+	}
+
+	private static BigInteger toFixedPoint(final BigDecimal value, final int fractionBits) {
+		return new BigDecimal(BigInteger.ONE.shiftLeft(fractionBits)).multiply(value)
+				.setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.lucaswerkmeister.jfractalizer.core.Core;
+
+/**
+ * The adaptive SuperSampling of a section of the image, which is shared by the image makers of the section (see
+ * {@link CifFractal#isAdaptiveSuperSampling()}).
+ * <p>
+ * The image makers first calculate one sample per pixel. Afterwards, each <i>edge</i> pixel &ndash; a pixel that
+ * belongs to the fractal while one of its four neighbors doesn't, or vice versa, or whose color differs from the color
+ * of such a neighbor by more than {@link #EDGE_THRESHOLD} &ndash; is calculated again with all samples of the
+ * SuperSampling factor. The pixels are compared by their first samples, which are copied before any pixel is
+ * supersampled, and the rows are handed out to the image makers one at a time.
+ * <p>
+ * So that the edges don't break off at the borders of the tiles, the refinements of neighboring tiles are
+ * {@link #link(List) linked}: Each tile waits until the first samples of its neighbors are known as well, and then
+ * compares its border pixels with theirs. Neighbors whose samples weren't calculated by the first pass, such as tiles
+ * that were loaded from the {@link TileCache}, are left out.
+ * <p>
+ * The edges depend on the palette; {@link CifFractal#recolor(de.lucaswerkmeister.jfractalizer.framework.ColorPalette)
+ * recoloring} keeps the samples, and with them the edges of the palette that the image was calculated with.
+ *
+ * @author Lucas Werkmeister
+ */
+final class Refinement {
+	/**
+	 * Pixels whose colors differ by more than this (the sum of the differences of the red, green and blue components)
+	 * are edge pixels.
+	 */
+	static final int				EDGE_THRESHOLD		= 32;
+
+	final byte						superSamplingFactor;
+	final Rectangle					section;
+	private final AtomicInteger		nextRow				= new AtomicInteger();
+	private volatile int[]			firstPasses;
+	/**
+	 * The refinements of the sections that share a border with this one, and how many of the first passes of this
+	 * section and of those are still missing; see {@link #link(List)}.
+	 */
+	private final List<Refinement>	neighbors			= new ArrayList<>();
+	private final AtomicInteger		missingFirstPasses	= new AtomicInteger();
+	private Runnable				refineTask;
+
+	/**
+	 * Creates the refinement of a section.
+	 *
+	 * @param superSamplingFactor
+	 *            The SuperSampling factor of the edge pixels.
+	 * @param section
+	 *            The section of the image.
+	 */
+	Refinement(final byte superSamplingFactor, final Rectangle section) {
+		this.superSamplingFactor = superSamplingFactor;
+		this.section = section;
+	}
+
+	/**
+	 * Links the refinements of neighboring sections, so that those that {@link #refineWith(Runnable) wait for their
+	 * neighbors} compare their border pixels with them. This must happen before any image maker of the sections
+	 * finishes its first samples.
+	 */
+	static void link(final List<Refinement> refinements) {
+		for (int i = 0; i < refinements.size(); i++) {
+			final Rectangle section = refinements.get(i).section;
+			// only sections that share a border, not just a corner, are neighbors
+			final Rectangle wide = new Rectangle(section.x - 1, section.y, section.width + 2, section.height);
+			final Rectangle high = new Rectangle(section.x, section.y - 1, section.width, section.height + 2);
+			for (int j = i + 1; j < refinements.size(); j++)
+				if (wide.intersects(refinements.get(j).section) || high.intersects(refinements.get(j).section)) {
+					refinements.get(i).neighbors.add(refinements.get(j));
+					refinements.get(j).neighbors.add(refinements.get(i));
+				}
+		}
+		for (final Refinement refinement : refinements) {
+			int missing = refinement.firstPasses == null ? 1 : 0;
+			for (final Refinement neighbor : refinement.neighbors)
+				if (neighbor.firstPasses == null)
+					missing++;
+			refinement.missingFirstPasses.set(missing);
+		}
+	}
+
+	/**
+	 * Makes the section wait for the first passes of its {@link #link(List) neighbors}: Instead of its image maker
+	 * right after the first passes, the specified task refines it, and is started on the
+	 * {@link Core#getThreadPool() thread pool} once all of them are known.
+	 */
+	void refineWith(final Runnable task) {
+		refineTask = task;
+	}
+
+	/**
+	 * @return <code>true</code> if the section is {@link #refineWith(Runnable) refined by its own task}
+	 */
+	boolean waitsForNeighbors() {
+		return refineTask != null;
+	}
+
+	/**
+	 * Copies the first passes of the section like {@link #getFirstPasses(int[], int)}, and starts the refinement of
+	 * this section and of its neighbors if this was the last of the first passes that they waited for.
+	 */
+	void firstPassesDone(final int[] passes, final int samplesPerPixel) {
+		getFirstPasses(passes, samplesPerPixel);
+		firstPassesKnown();
+		for (final Refinement neighbor : neighbors)
+			neighbor.firstPassesKnown();
+	}
+
+	private void firstPassesKnown() {
+		if (missingFirstPasses.decrementAndGet() == 0 && refineTask != null)
+			Core.getThreadPool().execute(refineTask);
+	}
+
+	/**
+	 * Gets the passes of the first sample of each pixel (<code>y * width + x</code>), which are copied from the
+	 * specified passes on the first call. All image makers of the section must have finished their first samples by
+	 * then.
+	 *
+	 * @param passes
+	 *            The passes of the samples of the section (see {@link SubImage#passes}).
+	 * @param samplesPerPixel
+	 *            The number of samples per pixel in <code>passes</code>.
+	 */
+	synchronized int[] getFirstPasses(final int[] passes, final int samplesPerPixel) {
+		if (firstPasses == null) {
+			firstPasses = new int[passes.length / samplesPerPixel];
+			for (int pixel = 0; pixel < firstPasses.length; pixel++)
+				firstPasses[pixel] = passes[pixel * samplesPerPixel];
+		}
+		return firstPasses;
+	}
+
+	/**
+	 * Hands out the next row that needs to be supersampled.
+	 *
+	 * @return The row, which is the height of the section or larger once all rows are handed out.
+	 */
+	int nextRow() {
+		return nextRow.getAndIncrement();
+	}
+
+	/**
+	 * Determines whether the specified pixel of the section is an edge pixel. Its first passes, and those of its
+	 * neighbors, must be known.
+	 *
+	 * @param colors
+	 *            The compiled palette, see {@link CifImageMaker#colors}.
+	 */
+	boolean isEdge(final int[] colors, final int x, final int y) {
+		final int passes = firstPasses(x, y);
+		return differ(colors, passes, firstPasses(x - 1, y)) || differ(colors, passes, firstPasses(x + 1, y))
+				|| differ(colors, passes, firstPasses(x, y - 1)) || differ(colors, passes, firstPasses(x, y + 1));
+	}
+
+	/**
+	 * @return the first passes of pixel <code>(x, y)</code> of the section, which may lie in a neighboring section, or
+	 *         {@link SubImage#NO_SAMPLE} if they aren't known
+	 */
+	private int firstPasses(final int x, final int y) {
+		if (x >= 0 && y >= 0 && x < section.width && y < section.height)
+			return firstPasses[y * section.width + x];
+		final int imageX = section.x + x, imageY = section.y + y;
+		for (final Refinement neighbor : neighbors)
+			if (neighbor.section.contains(imageX, imageY))
+				return neighbor.firstPasses[(imageY - neighbor.section.y) * neighbor.section.width + imageX
+						- neighbor.section.x];
+		return SubImage.NO_SAMPLE;
+	}
+
+	/**
+	 * Determines whether two neighboring pixels with the specified passes lie on an edge.
+	 *
+	 * @param colors
+	 *            The compiled palette, see {@link CifImageMaker#colors}.
+	 */
+	private static boolean differ(final int[] colors, final int passes1, final int passes2) {
+		if (passes1 == SubImage.NO_SAMPLE || passes2 == SubImage.NO_SAMPLE)
+			return false;
+		if ((passes1 == -1) != (passes2 == -1))
+			return true;
+		final int color1 = colors[passes1 + 1], color2 = colors[passes2 + 1];
+		return Math.abs(((color1 >> 16) & 0xFF) - ((color2 >> 16) & 0xFF))
+				+ Math.abs(((color1 >> 8) & 0xFF) - ((color2 >> 8) & 0xFF))
+				+ Math.abs((color1 & 0xFF) - (color2 & 0xFF)) > EDGE_THRESHOLD;
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A cache of the samples of finished calculations, so that views that were calculated before &ndash; when going back
+ * and forth through the {@link History}, or when returning to a Julia Set &ndash; are drawn again from their passes
+ * instead of being recalculated. The samples don't depend on the palette.
+ * <p>
+ * The cache is shared by all fractals. It keeps as many calculations as fit into its budget, and evicts the least
+ * recently used ones first.
+ *
+ * @author Lucas Werkmeister
+ */
+final class RenderCache {
+	private final LinkedHashMap<List<Object>, Entry>	entries	= new LinkedHashMap<>(16, 0.75f, true);
+	private long										budget;
+	private long										size	= 0;
+
+	/**
+	 * Creates a new render cache with the specified budget.
+	 *
+	 * @param budget
+	 *            The maximum size of the cached samples in bytes.
+	 */
+	RenderCache(final long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * @return the maximum size of the cached samples in bytes
+	 */
+	synchronized long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sets the maximum size of the cached samples, evicting calculations if they don't fit into it anymore.
+	 *
+	 * @param budget
+	 *            The budget in bytes. A budget of <code>0</code> disables the cache.
+	 */
+	synchronized void setBudget(final long budget) {
+		this.budget = budget;
+		evict();
+	}
+
+	/**
+	 * @return the size of the cached samples in bytes
+	 */
+	synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the number of cached calculations
+	 */
+	synchronized int getCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Stores a copy of the samples of the specified sub images, which must be complete, unless they don't fit into the
+	 * budget.
+	 *
+	 * @param key
+	 *            Everything the samples depend on.
+	 * @param subImages
+	 *            The sub images of the calculation.
+	 */
+	synchronized void put(final List<Object> key, final SubImage[] subImages) {
+		final Entry old = entries.remove(key);
+		if (old != null)
+			size -= old.bytes;
+		if (Entry.sizeOf(subImages) > budget)
+			return;
+		final Entry entry = new Entry(subImages);
+		entries.put(key, entry);
+		size += entry.bytes;
+		evict();
+	}
+
+	/**
+	 * Gets the cached samples for the specified key as new sub images of the specified image. Their pixels aren't drawn
+	 * yet.
+	 *
+	 * @return The sub images, or <code>null</code> if no samples are cached for the key.
+	 */
+	synchronized SubImage[] get(final List<Object> key, final BufferedImage image) {
+		final Entry entry = entries.get(key);
+		return entry == null ? null : entry.restore(image);
+	}
+
+	private void evict() {
+		final Iterator<Entry> iterator = entries.values().iterator();
+		while (size > budget && iterator.hasNext()) {
+			size -= iterator.next().bytes;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * The samples of a calculation. The orbits are shared with the sub images, which replace them instead of changing
+	 * them once they are complete.
+	 */
+	private static final class Entry {
+		private final Rectangle[]		areas;
+		private final int[][]			passes;
+		private final SampleOrbits[]	orbits;
+		private final boolean[]			resumable;
+		private final boolean[]			filledIn;
+		private final int				samplesPerPixel;
+		private final long				bytes;
+
+		Entry(final SubImage[] subImages) {
+			areas = new Rectangle[subImages.length];
+			passes = new int[subImages.length][];
+			orbits = new SampleOrbits[subImages.length];
+			resumable = new boolean[subImages.length];
+			filledIn = new boolean[subImages.length];
+			for (int i = 0; i < subImages.length; i++) {
+				final SubImage subImage = subImages[i];
+				areas[i] = new Rectangle(subImage.offsetX, subImage.offsetY, subImage.width, subImage.height);
+				passes[i] = subImage.passes.clone();
+				orbits[i] = subImage.orbits;
+				resumable[i] = subImage.resumable;
+				filledIn[i] = subImage.filledIn;
+			}
+			samplesPerPixel = subImages[0].samplesPerPixel;
+			bytes = sizeOf(subImages);
+		}
+
+		/**
+		 * @return the approximate size of the samples of the specified sub images in bytes
+		 */
+		static long sizeOf(final SubImage[] subImages) {
+			long bytes = 0;
+			for (SubImage subImage : subImages)
+				bytes += 4L * subImage.passes.length + 36L * subImage.orbits.size() + 4L
+						* subImage.orbits.boundedSize();
+			return bytes;
+		}
+
+		SubImage[] restore(final BufferedImage image) {
+			final SubImage[] subImages = new SubImage[areas.length];
+			for (int i = 0; i < areas.length; i++) {
+				subImages[i] = new SubImage(image, areas[i], samplesPerPixel);
+				System.arraycopy(passes[i], 0, subImages[i].passes, 0, passes[i].length);
+				subImages[i].orbits = orbits[i];
+				subImages[i].resumable = resumable[i];
+				subImages[i].filledIn = filledIn[i];
+			}
+			return subImages;
+		}
+	}
+}
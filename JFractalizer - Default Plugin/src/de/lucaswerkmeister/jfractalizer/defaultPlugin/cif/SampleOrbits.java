@@ -0,0 +1,156 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.util.Arrays;
+
+/**
+ * What is known about the orbits of the samples of a {@link SubImage} that didn't escape:
+ * <ul>
+ * <li>For each sample that ran out of passes, its <i>suspended orbit</i>: the last point <code>z</code> of the orbit
+ * and the constant <code>c</code> that is added in each pass, so that the orbit can be continued when the maximum
+ * number of passes is raised, at the cost of the additional passes only.</li>
+ * <li>The samples that are <i>bounded</i>, i.&nbsp;e. never escape, because periodicity checking found their orbit to
+ * be periodic, or because they lie in the main cardioid or the period-2 bulb.</li>
+ * </ul>
+ * For the other samples that didn't escape, e.&nbsp;g. because an image maker filled them instead of calculating them,
+ * it is unknown whether they would escape with more passes.
+ *
+ * @author Lucas Werkmeister
+ */
+final class SampleOrbits {
+	/**
+	 * The indices of the samples with suspended orbits in {@link SubImage#passes}, and for each of them
+	 * <code>zReal</code>, <code>zImag</code>, <code>cReal</code> and <code>cImag</code> in {@link #states}.
+	 */
+	private int[]		samples			= new int[0];
+	private double[]	states			= new double[0];
+	private int			size			= 0;
+	private boolean		sorted			= true;
+	/**
+	 * The indices of the bounded samples in {@link SubImage#passes}.
+	 */
+	private int[]		bounded			= new int[0];
+	private int			boundedSize		= 0;
+	private boolean		boundedSorted	= true;
+
+	/**
+	 * Adds the orbit of a sample. Image makers that share a sub image may add orbits concurrently.
+	 */
+	synchronized void add(final int sample, final double zReal, final double zImag, final double cReal,
+			final double cImag) {
+		if (size == samples.length) {
+			samples = Arrays.copyOf(samples, Math.max(16, 2 * size));
+			states = Arrays.copyOf(states, 4 * samples.length);
+		}
+		if (size > 0 && samples[size - 1] > sample)
+			sorted = false;
+		samples[size] = sample;
+		states[4 * size] = zReal;
+		states[4 * size + 1] = zImag;
+		states[4 * size + 2] = cReal;
+		states[4 * size + 3] = cImag;
+		size++;
+	}
+
+	/**
+	 * Adds a bounded sample.
+	 */
+	synchronized void addBounded(final int sample) {
+		if (boundedSize == bounded.length)
+			bounded = Arrays.copyOf(bounded, Math.max(16, 2 * boundedSize));
+		if (boundedSize > 0 && bounded[boundedSize - 1] > sample)
+			boundedSorted = false;
+		bounded[boundedSize++] = sample;
+	}
+
+	/**
+	 * @return the number of suspended orbits
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the index in {@link SubImage#passes} of the sample of the orbit with the specified number
+	 */
+	int sample(final int orbit) {
+		return samples[orbit];
+	}
+
+	/**
+	 * @return the state (<code>zReal</code>, <code>zImag</code>, <code>cReal</code> or <code>cImag</code>, for
+	 *         <code>component</code> <code>0</code> to <code>3</code>) of the orbit with the specified number
+	 */
+	double state(final int orbit, final int component) {
+		return states[4 * orbit + component];
+	}
+
+	/**
+	 * @return the number of bounded samples
+	 */
+	int boundedSize() {
+		return boundedSize;
+	}
+
+	/**
+	 * @return the index in {@link SubImage#passes} of the bounded sample with the specified number
+	 */
+	int boundedSample(final int number) {
+		return bounded[number];
+	}
+
+	/**
+	 * Sorts the orbits and the bounded samples, so that they can be {@link #find(int) found}. Must be called before
+	 * they are read concurrently.
+	 */
+	synchronized void sort() {
+		if (!boundedSorted) {
+			Arrays.sort(bounded, 0, boundedSize);
+			boundedSorted = true;
+		}
+		if (sorted)
+			return;
+		// sort the samples together with their positions, then move the states along
+		final long[] keys = new long[size];
+		for (int orbit = 0; orbit < size; orbit++)
+			keys[orbit] = (long) samples[orbit] << 32 | orbit;
+		Arrays.sort(keys);
+		final int[] newSamples = new int[size];
+		final double[] newStates = new double[4 * size];
+		for (int orbit = 0; orbit < size; orbit++) {
+			newSamples[orbit] = (int) (keys[orbit] >>> 32);
+			System.arraycopy(states, 4 * (int) keys[orbit], newStates, 4 * orbit, 4);
+		}
+		samples = newSamples;
+		states = newStates;
+		sorted = true;
+	}
+
+	/**
+	 * Finds the orbit of the specified sample. The orbits must be {@link #sort() sorted}.
+	 *
+	 * @return The number of the orbit, or a negative value if the sample has no suspended orbit.
+	 */
+	int find(final int sample) {
+		return Arrays.binarySearch(samples, 0, size, sample);
+	}
+
+	/**
+	 * Determines whether the specified sample is bounded. The bounded samples must be {@link #sort() sorted}.
+	 */
+	boolean isBounded(final int sample) {
+		return Arrays.binarySearch(bounded, 0, boundedSize, sample) >= 0;
+	}
+}
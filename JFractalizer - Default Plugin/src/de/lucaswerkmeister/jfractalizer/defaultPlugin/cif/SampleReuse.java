@@ -0,0 +1,243 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+/**
+ * The samples of the last calculation that lie at the centers of its pixels, which image makers can take over instead
+ * of calculating them again: When the view is zoomed by an integer factor, or the SuperSampling factor is raised to an
+ * odd multiple of its old value, some of the new samples lie exactly on these centers.
+ * <p>
+ * The last calculation must have used an odd SuperSampling factor, so that each pixel has a sample at its center, and
+ * no adaptive SuperSampling. Only the centers are used because the image makers store the other samples of a pixel in
+ * different orders.
+ * <p>
+ * The samples of the {@link Preview previews} of the current calculation also lie on the centers of its pixels; those
+ * that escaped can be taken over as soon as their {@link Preview.Lattice lattices} are calculated.
+ *
+ * @author Lucas Werkmeister
+ */
+final class SampleReuse {
+	/**
+	 * A new sample is taken over if it lies this close to the center of an old pixel, relative to the size of the old
+	 * pixel.
+	 */
+	private static final double	TOLERANCE			= 1e-6;
+	/**
+	 * Ratios between the distance of the new samples and the size of the old pixels with larger numerators or
+	 * denominators than this aren't checked.
+	 */
+	private static final int	MAX_RATIO			= 64;
+
+	private final SubImage[]	owners;
+	private final Preview		preview;
+	private final int			width, height;
+	private final double		minReal, maxImag, pixelWidth, pixelHeight;
+	private final int			centerSample;
+	private final int			lastMaxPasses, maxPasses;
+	private final boolean		continueOrbits;
+
+	private SampleReuse(final SubImage[] owners, final Preview preview, final int width, final int height,
+			final double minReal, final double maxImag, final double pixelWidth, final double pixelHeight,
+			final int centerSample, final int lastMaxPasses, final int maxPasses, final boolean continueOrbits) {
+		this.owners = owners;
+		this.preview = preview;
+		this.width = width;
+		this.height = height;
+		this.minReal = minReal;
+		this.maxImag = maxImag;
+		this.pixelWidth = pixelWidth;
+		this.pixelHeight = pixelHeight;
+		this.centerSample = centerSample;
+		this.lastMaxPasses = lastMaxPasses;
+		this.maxPasses = maxPasses;
+		this.continueOrbits = continueOrbits;
+	}
+
+	/**
+	 * Finds out whether the new samples hit any centers of the old pixels.
+	 *
+	 * @param subImages
+	 *            The sub images of the last calculation, which must have finished.
+	 * @param width
+	 *            The width of the old and the new image.
+	 * @param height
+	 *            The height of the old and the new image.
+	 * @param minReal
+	 *            The left boundary of the old image, in the coordinates of the new image makers.
+	 * @param maxImag
+	 *            The upper boundary of the old image, in the coordinates of the new image makers.
+	 * @param pixelWidth
+	 *            The width of an old pixel.
+	 * @param pixelHeight
+	 *            The height of an old pixel.
+	 * @param lastSuperSamplingFactor
+	 *            The SuperSampling factor of the last calculation.
+	 * @param lastMaxPasses
+	 *            The maximum number of passes of the last calculation.
+	 * @param newMinReal
+	 *            The left boundary of the new image, in the coordinates of the new image makers.
+	 * @param newMaxImag
+	 *            The upper boundary of the new image, in the coordinates of the new image makers.
+	 * @param newPixelWidth
+	 *            The width of a new pixel.
+	 * @param newPixelHeight
+	 *            The height of a new pixel.
+	 * @param superSamplingFactor
+	 *            The SuperSampling factor of the new calculation.
+	 * @param maxPasses
+	 *            The maximum number of passes of the new calculation.
+	 * @param continueOrbits
+	 *            Whether suspended orbits may be continued in <code>double</code> precision.
+	 * @return The reusable samples, or <code>null</code> if no new sample lies on the center of an old pixel.
+	 */
+	static SampleReuse find(final SubImage[] subImages, final int width, final int height, final double minReal,
+			final double maxImag, final double pixelWidth, final double pixelHeight,
+			final byte lastSuperSamplingFactor, final int lastMaxPasses, final double newMinReal,
+			final double newMaxImag, final double newPixelWidth, final double newPixelHeight,
+			final byte superSamplingFactor, final int maxPasses, final boolean continueOrbits) {
+		if (lastSuperSamplingFactor % 2 == 0
+				|| !hits((newMinReal - minReal) / pixelWidth, newPixelWidth / superSamplingFactor / pixelWidth,
+						superSamplingFactor)
+				|| !hits((maxImag - newMaxImag) / pixelHeight, newPixelHeight / superSamplingFactor / pixelHeight,
+						superSamplingFactor))
+			return null;
+		final SubImage[] owners = new SubImage[width * height];
+		for (SubImage subImage : subImages)
+			for (int y = subImage.offsetY; y < subImage.offsetY + subImage.height; y++)
+				for (int x = subImage.offsetX; x < subImage.offsetX + subImage.width; x++)
+					owners[y * width + x] = subImage;
+		for (SubImage subImage : subImages)
+			subImage.orbits.sort();
+		return new SampleReuse(owners, null, width, height, minReal, maxImag, pixelWidth, pixelHeight,
+				(lastSuperSamplingFactor * lastSuperSamplingFactor - 1) / 2, lastMaxPasses, maxPasses, continueOrbits);
+	}
+
+	/**
+	 * Takes over the escaped samples of the previews of the current calculation. The previews must be calculated with
+	 * the same maximum number of passes, by image makers that calculate each of their samples.
+	 *
+	 * @param preview
+	 *            The previews.
+	 * @param minReal
+	 *            The left boundary of the image, in the coordinates of the image makers.
+	 * @param maxImag
+	 *            The upper boundary of the image, in the coordinates of the image makers.
+	 * @param pixelWidth
+	 *            The width of a pixel.
+	 * @param pixelHeight
+	 *            The height of a pixel.
+	 * @param maxPasses
+	 *            The maximum number of passes of the calculation.
+	 * @return The reusable samples.
+	 */
+	static SampleReuse ofPreview(final Preview preview, final double minReal, final double maxImag,
+			final double pixelWidth, final double pixelHeight, final int maxPasses) {
+		return new SampleReuse(null, preview, preview.width, preview.height, minReal, maxImag, pixelWidth,
+				pixelHeight, 0, maxPasses, maxPasses, false);
+	}
+
+	/**
+	 * Determines whether any new sample hits the center of an old pixel along one axis. The position of new sample
+	 * <code>n</code>, counted across all pixels, is <code>offset + (n - (superSamplingFactor - 1) / 2) * ratio</code>
+	 * in old pixels.
+	 */
+	private static boolean hits(final double offset, final double ratio, final int superSamplingFactor) {
+		// the positions repeat after as many samples as the denominator of the ratio
+		final int period;
+		if (Math.abs(ratio - Math.rint(ratio)) < TOLERANCE && Math.rint(ratio) >= 1 && ratio <= MAX_RATIO)
+			period = 1;
+		else if (Math.abs(1 / ratio - Math.rint(1 / ratio)) < TOLERANCE && 1 / ratio <= MAX_RATIO)
+			period = (int) Math.rint(1 / ratio);
+		else
+			return false;
+		for (int n = 0; n < period; n++) {
+			final double position = offset + (n - (superSamplingFactor - 1) / 2.0) * ratio;
+			if (Math.abs(position - Math.rint(position)) < TOLERANCE)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Takes over the passes of the specified sample from the last calculation, if it lies on the center of an old
+	 * pixel. If the sample didn't escape, the image maker is told whether its orbit is
+	 * {@link CifImageMaker#orbitBounded() bounded} or
+	 * {@link CifImageMaker#orbitSuspended(double, double, double, double) suspended}; suspended orbits are continued if
+	 * the maximum number of passes was raised.
+	 *
+	 * @param real
+	 *            The real part of the sample, in the coordinates of the image maker.
+	 * @param imag
+	 *            The imaginary part of the sample, in the coordinates of the image maker.
+	 * @param maker
+	 *            The image maker.
+	 * @param escapedOnly
+	 *            Whether only samples that escaped may be taken over.
+	 * @return The passes of the sample, or {@link SubImage#NO_SAMPLE} if it must be calculated.
+	 */
+	int passes(final double real, final double imag, final CifImageMaker maker, final boolean escapedOnly) {
+		final double exactX = (real - minReal) / pixelWidth;
+		final double exactY = (maxImag - imag) / pixelHeight;
+		final long x = Math.round(exactX), y = Math.round(exactY);
+		if (Math.abs(exactX - x) > TOLERANCE || Math.abs(exactY - y) > TOLERANCE || x < 0 || x >= width || y < 0
+				|| y >= height)
+			return SubImage.NO_SAMPLE;
+		final SubImage owner;
+		final int sample;
+		if (preview == null) {
+			owner = owners[(int) y * width + (int) x];
+			if (owner == null)
+				return SubImage.NO_SAMPLE;
+			sample = (((int) y - owner.offsetY) * owner.width + (int) x - owner.offsetX) * owner.samplesPerPixel
+					+ centerSample;
+		}
+		else {
+			// the previews are calculated alongside the image
+			final Preview.Lattice lattice = preview.getLattice((int) x, (int) y);
+			if (lattice == null || !lattice.subImage.calculated)
+				return SubImage.NO_SAMPLE;
+			owner = lattice.subImage;
+			sample = lattice.sample((int) x, (int) y);
+		}
+		final int passes = owner.passes[sample];
+		if (passes == SubImage.NO_SAMPLE)
+			return SubImage.NO_SAMPLE;
+		if (passes != -1)
+			// escaped samples that exceed the new maximum are considered members of the fractal, like in a new
+			// calculation, but their orbits are unknown
+			return passes <= maxPasses ? passes : -1;
+		// the image makers of the previews check for periodicity with the tolerance of their coarser samples
+		if (escapedOnly || preview != null)
+			return SubImage.NO_SAMPLE;
+		if (owner.orbits.isBounded(sample)) {
+			maker.orbitBounded();
+			return -1;
+		}
+		final int orbit = owner.orbits.find(sample);
+		if (orbit < 0)
+			// whether the sample would escape with more passes is unknown, or it wasn't calculated at all
+			return maxPasses <= lastMaxPasses && !owner.filledIn ? -1 : SubImage.NO_SAMPLE;
+		final double zReal = owner.orbits.state(orbit, 0), zImag = owner.orbits.state(orbit, 1);
+		final double cReal = owner.orbits.state(orbit, 2), cImag = owner.orbits.state(orbit, 3);
+		if (maxPasses == lastMaxPasses) {
+			maker.orbitSuspended(zReal, zImag, cReal, cImag);
+			return -1;
+		}
+		if (maxPasses < lastMaxPasses)
+			return -1;
+		if (!continueOrbits)
+			return SubImage.NO_SAMPLE;
+		return maker.continueOrbit(zReal, zImag, cReal, cImag, lastMaxPasses);
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * A section of the image of a {@link CifFractal}, which is calculated by one or more image makers.
+ *
+ * @author Lucas Werkmeister
+ */
+class SubImage {
+	/**
+	 * Marks a sample that wasn't calculated.
+	 */
+	static final int	NO_SAMPLE	= Integer.MIN_VALUE;
+
+	/**
+	 * The image of the fractal, which contains this sub image, and its pixels.
+	 */
+	final BufferedImage	image;
+	final int[]			pixels;
+	final int			offsetX;
+	final int			offsetY;
+	final int			width;
+	final int			height;
+	final int			samplesPerPixel;
+	/**
+	 * The passes of each sample of the sub image, or {@link #NO_SAMPLE}. The samples of pixel <code>(x, y)</code> are
+	 * stored, in no particular order, from index <code>(y * width + x) * samplesPerPixel</code> on.
+	 */
+	final int[]			passes;
+	/**
+	 * What is known about the orbits of the samples that didn't escape, and whether that covers all of them: A sub
+	 * image isn't resumable if any of its samples didn't escape for an unknown reason, e.&nbsp;g. because it was copied
+	 * or not calculated.
+	 */
+	SampleOrbits		orbits		= new SampleOrbits();
+	volatile boolean	resumable	= true;
+	/**
+	 * Whether samples that didn't escape for an unknown reason may not have been calculated at all, because a NoHoles
+	 * image maker filled in their pixels; their passes are then only placeholders, which {@link SampleReuse} doesn't
+	 * take over.
+	 */
+	volatile boolean	filledIn;
+	/**
+	 * Whether all pixels of the sub image are calculated.
+	 */
+	volatile boolean	calculated;
+
+	SubImage(BufferedImage image, Rectangle section, int samplesPerPixel) {
+		super();
+		this.image = image;
+		this.pixels = CifImageMaker.getPixels(image);
+		this.offsetX = section.x;
+		this.offsetY = section.y;
+		this.width = section.width;
+		this.height = section.height;
+		this.samplesPerPixel = samplesPerPixel;
+		passes = new int[width * height * samplesPerPixel];
+		Arrays.fill(passes, NO_SAMPLE);
+	}
+
+	/**
+	 * @return the index of pixel <code>(x, y)</code> of the sub image in {@link #pixels}
+	 */
+	int pixelIndex(final int x, final int y) {
+		return (offsetY + y) * image.getWidth() + offsetX + x;
+	}
+
+	/**
+	 * @return <code>true</code> if this sub image covers the specified section of the specified image with the
+	 *         specified number of samples per pixel, <code>false</code> otherwise
+	 */
+	boolean covers(final BufferedImage image, final Rectangle section, final int samplesPerPixel) {
+		return this.image == image && offsetX == section.x && offsetY == section.y && width == section.width
+				&& height == section.height && this.samplesPerPixel == samplesPerPixel;
+	}
+
+	/**
+	 * Copies the pixels and passes of the specified sub images of the last image, which has the same size as this one,
+	 * shifted so that pixel <code>(x, y)</code> of the image is pixel <code>(x + shiftX, y + shiftY)</code> of the last
+	 * image. The last image must cover this sub image, and its pixels are those of {@link #image}, which are
+	 * overwritten.
+	 */
+	void copyShifted(final SubImage[] sources, final int shiftX, final int shiftY) {
+		// copy the rows in an order that reads each of them before it is overwritten
+		for (int i = 0; i < height; i++) {
+			final int y = shiftY >= 0 ? i : height - 1 - i;
+			System.arraycopy(pixels, pixelIndex(shiftX, y + shiftY), pixels, pixelIndex(0, y), width);
+		}
+		final Rectangle area = new Rectangle(offsetX, offsetY, width, height);
+		for (SubImage source : sources) {
+			final Rectangle common = area.intersection(new Rectangle(source.offsetX - shiftX, source.offsetY - shiftY,
+					source.width, source.height));
+			if (source.samplesPerPixel != samplesPerPixel || common.isEmpty())
+				continue;
+			filledIn |= source.filledIn;
+			for (int y = common.y; y < common.y + common.height; y++)
+				System.arraycopy(source.passes, ((y + shiftY - source.offsetY) * source.width + common.x + shiftX
+						- source.offsetX)
+						* samplesPerPixel, passes, ((y - offsetY) * width + common.x - offsetX) * samplesPerPixel,
+						common.width * samplesPerPixel);
+		}
+	}
+
+	/**
+	 * Draws the stored passes with the specified palette, averaging the colors of the samples of each pixel like the
+	 * image makers do. Pixels without samples are left unchanged.
+	 * 
+	 * @param colors
+	 *            The {@link ColorPalette#compile(int) compiled} palette.
+	 * @param palette
+	 *            The palette, for passes that <code>colors</code> doesn't cover.
+	 */
+	void resolve(final int[] colors, final ColorPalette palette) {
+		for (int y = 0; y < height; y++) {
+			final int rowStart = pixelIndex(0, y);
+			for (int x = 0; x < width; x++) {
+				int averageR = 0, averageG = 0, averageB = 0;
+				int averageDenominator = 0;
+				final int firstSample = (y * width + x) * samplesPerPixel;
+				for (int sample = firstSample; sample < firstSample + samplesPerPixel; sample++)
+					if (passes[sample] != NO_SAMPLE) {
+						final int color = passes[sample] + 1 < colors.length ? colors[passes[sample] + 1] : palette
+								.getRgb(passes[sample]);
+						averageR += (color >> 16) & 0xFF;
+						averageG += (color >> 8) & 0xFF;
+						averageB += color & 0xFF;
+						averageDenominator++;
+					}
+				if (averageDenominator > 0)
+					pixels[rowStart + x] = CifImageMaker.rgb(averageR / averageDenominator, averageG
+							/ averageDenominator, averageB / averageDenominator);
+			}
+		}
+	}
+}
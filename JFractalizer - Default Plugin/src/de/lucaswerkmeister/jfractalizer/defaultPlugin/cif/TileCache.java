@@ -0,0 +1,273 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A cache of the passes of calculated sub images on disk, so that views that are rendered again &ndash; in another
+ * session, or by another batch job &ndash; skip the calculation of the tiles that were cached.
+ * <p>
+ * A tile is only loaded for the same key, which names the fractal, the view, the settings and the image maker of the
+ * calculation and the section of the image.
+ * <p>
+ * Each tile is stored in its own file, named after a hash of its key: the key itself, the size of the tile, and its
+ * passes, as differences between neighboring samples, compressed with {@link Deflater}. The files are read through a
+ * {@link FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long) memory mapping}. When the files exceed the
+ * budget, the ones that were least recently written or read are deleted.
+ * <p>
+ * Orbits aren't cached, so sub images that are loaded from the cache can't be resumed.
+ *
+ * @author Lucas Werkmeister
+ */
+final class TileCache {
+	/**
+	 * The first bytes of each file, "JFTC" (JFractalizer tile cache) and a format version. The version must be raised
+	 * whenever the file layout or the samples that an image maker calculates change, so that older tiles are rejected.
+	 */
+	private static final int	MAGIC		= 0x4A465443;
+	private static final int	VERSION		= 1;
+	private static final String	SUFFIX		= ".tile";
+	/**
+	 * When the files exceed the budget, files are deleted until they take up this share of it.
+	 */
+	private static final double	EVICT_TO	= 0.9;
+
+	private final Path			directory;
+	private final long			budget;
+	private long				size;
+
+	/**
+	 * Creates a new tile cache in the specified directory, which is created if necessary. Files that are already in
+	 * the directory are used.
+	 *
+	 * @param directory
+	 *            The directory.
+	 * @param budget
+	 *            The maximum size of the files in bytes.
+	 * @throws IOException
+	 *             If the directory can't be created or read.
+	 */
+	TileCache(final Path directory, final long budget) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.budget = budget;
+		for (Path file : files())
+			size += Files.size(file);
+		evict();
+	}
+
+	/**
+	 * @return the directory of the cache
+	 */
+	Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return the maximum size of the files in bytes
+	 */
+	long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Loads the passes of the tile with the specified key into the specified sub image.
+	 *
+	 * @return <code>true</code> if the tile was cached, <code>false</code> otherwise, in which case the passes of the
+	 *         sub image are unchanged.
+	 */
+	boolean load(final String key, final SubImage subImage) {
+		final Path file = directory.resolve(fileName(key));
+		if (!Files.isRegularFile(file))
+			return false;
+		final int[] passes = new int[subImage.passes.length];
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				return false;
+			final byte[] storedKey = new byte[buffer.getInt()];
+			buffer.get(storedKey);
+			if (!key.equals(new String(storedKey, StandardCharsets.UTF_8)) || buffer.getInt() != subImage.width
+					|| buffer.getInt() != subImage.height || buffer.getInt() != subImage.samplesPerPixel)
+				return false;
+			final ByteBuffer data = ByteBuffer.allocate(4 * passes.length);
+			final Inflater inflater = new Inflater();
+			try {
+				inflater.setInput(buffer);
+				while (data.hasRemaining() && !inflater.finished())
+					if (inflater.inflate(data) == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+						return false;
+			}
+			finally {
+				inflater.end();
+			}
+			if (data.hasRemaining())
+				return false;
+			data.flip();
+			int last = 0;
+			for (int sample = 0; sample < passes.length; sample++)
+				passes[sample] = last += data.getInt();
+		}
+		catch (IOException | DataFormatException | RuntimeException e) {
+			// a damaged file is treated like a missing one, and overwritten when the tile is stored
+			return false;
+		}
+		System.arraycopy(passes, 0, subImage.passes, 0, passes.length);
+		try {
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		}
+		catch (IOException e) {
+			// the file is just evicted earlier
+		}
+		return true;
+	}
+
+	/**
+	 * Stores the passes of the specified sub image, which must be complete, as the tile with the specified key. Errors
+	 * are ignored, since the tile can always be calculated again.
+	 */
+	void store(final String key, final SubImage subImage) {
+		final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer data = ByteBuffer.allocate(4 * subImage.passes.length);
+		int last = 0;
+		for (int passes : subImage.passes) {
+			data.putInt(passes - last);
+			last = passes;
+		}
+		data.flip();
+		final Deflater deflater = new Deflater();
+		final ByteBuffer file = ByteBuffer.allocate(6 * 4 + keyBytes.length + data.remaining() + 64);
+		file.putInt(MAGIC).putInt(VERSION).putInt(keyBytes.length).put(keyBytes);
+		file.putInt(subImage.width).putInt(subImage.height).putInt(subImage.samplesPerPixel);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			while (!deflater.finished() && file.hasRemaining())
+				deflater.deflate(file);
+			if (!deflater.finished())
+				// incompressible, which is unlikely enough not to bother
+				return;
+		}
+		finally {
+			deflater.end();
+		}
+		file.flip();
+		final Path target = directory.resolve(fileName(key));
+		Path temporary = null;
+		try {
+			// other processes only ever see complete files
+			temporary = Files.createTempFile(directory, null, ".tmp");
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				while (file.hasRemaining())
+					channel.write(file);
+			}
+			final long oldSize = Files.isRegularFile(target) ? Files.size(target) : 0;
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			temporary = null;
+			synchronized (this) {
+				size += file.limit() - oldSize;
+				if (size > budget)
+					evict();
+			}
+		}
+		catch (IOException e) {
+			// the tile is calculated again next time
+		}
+		finally {
+			if (temporary != null)
+				try {
+					Files.deleteIfExists(temporary);
+				}
+				catch (IOException e) {
+					// ignored like the other errors
+				}
+		}
+	}
+
+	/**
+	 * Deletes the least recently used files until they fit into the budget.
+	 */
+	private synchronized void evict() throws IOException {
+		if (size <= budget)
+			return;
+		final List<Path> files = files();
+		final List<FileTime> times = new ArrayList<>(files.size());
+		for (Path file : files)
+			times.add(Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime());
+		final List<Integer> order = new ArrayList<>(files.size());
+		for (int i = 0; i < files.size(); i++)
+			order.add(i);
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer file1, final Integer file2) {
+				return times.get(file1).compareTo(times.get(file2));
+			}
+		});
+		size = 0;
+		for (Path file : files)
+			size += Files.size(file);
+		for (int i = 0; i < order.size() && size > EVICT_TO * budget; i++) {
+			final Path file = files.get(order.get(i));
+			final long fileSize = Files.size(file);
+			if (Files.deleteIfExists(file))
+				size -= fileSize;
+		}
+	}
+
+	private List<Path> files() throws IOException {
+		final List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path file : stream)
+				files.add(file);
+		}
+		return files;
+	}
+
+	/**
+	 * @return the name of the file of the tile with the specified key: the SHA-1 hash of the key in hexadecimal
+	 */
+	private static String fileName(final String key) {
+		try {
+			final byte[] hash = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+			final StringBuilder name = new StringBuilder(2 * hash.length + SUFFIX.length());
+			for (byte b : hash)
+				name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			return name.append(SUFFIX).toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-1
+			throw new AssertionError(e);
+		}
+	}
+}
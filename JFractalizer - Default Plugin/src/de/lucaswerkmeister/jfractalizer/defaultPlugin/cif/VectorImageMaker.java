@@ -0,0 +1,259 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import de.lucaswerkmeister.jfractalizer.framework.ColorPalette;
+
+/**
+ * This implementation of a CifImageMaker calculates all pixels, but collects the samples of one row first and then
+ * calculates their passes all at once, which allows subclasses to use the {@link #VECTOR_KERNELS vector kernels}.
+ * <p>
+ * A vector of samples takes as long as its slowest sample, so if the passes of the pixels are {@link FrameHint
+ * predicted}, the samples of each row are calculated in the order of their predicted passes, which puts samples that
+ * take about as long into the same vector.
+ *
+ * @author Lucas Werkmeister
+ *
+ */
+public abstract class VectorImageMaker extends CifImageMaker {
+	/**
+	 * The kernels that use the Vector API, or <code>null</code> if it isn't available. It is still an incubator
+	 * module, so it is only available when the JVM was started with <code>--add-modules jdk.incubator.vector</code>
+	 * and the plugin was compiled with it; otherwise, the scalar kernels are used.
+	 */
+	static final EscapeTimeKernels	VECTOR_KERNELS;
+	/**
+	 * Whether the {@link #VECTOR_KERNELS} are available.
+	 */
+	static final boolean			VECTOR_KERNELS_AVAILABLE;
+	static {
+		EscapeTimeKernels kernels;
+		try {
+			kernels = Class.forName(VectorImageMaker.class.getPackage().getName() + ".VectorKernels")
+					.asSubclass(EscapeTimeKernels.class).getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException | LinkageError e) {
+			kernels = null;
+		}
+		VECTOR_KERNELS = kernels;
+		VECTOR_KERNELS_AVAILABLE = kernels != null;
+	}
+
+	/**
+	 * The samples of a row, sorted by their predicted passes (see {@link #calculatePasses(double[], double[], int,
+	 * int[], int[])}).
+	 */
+	private long[]			order			= new long[0];
+	private double[]		sortedReal		= new double[0];
+	private double[]		sortedImag		= new double[0];
+	private int[]			sortedPasses	= new int[0];
+
+	/**
+	 * Creates a new instance of the VectorImageMaker with specified bounds.
+	 *
+	 * @param width
+	 *            The width of the generated image.
+	 * @param height
+	 *            The height of the generated image.
+	 * @param minReal
+	 *            The lower value on the real scale (left boundary).
+	 * @param maxReal
+	 *            The higher value on the real scale (right boundary).
+	 * @param minImag
+	 *            The lower value on the imaginary scale (<b>lower</b> boundary).
+	 * @param maxImag
+	 *            The higher value on the imaginary scale (upper boundary).
+	 * @param maxPasses
+	 *            The number of iterations that a complex number has to pass before it is considered a member of the
+	 *            fractal.
+	 * @param target
+	 *            The BufferedImage to which the calculation results will be drawn.
+	 * @param targetX
+	 *            The x coordinate on the target image to which the generated image will be written.
+	 * @param targetY
+	 *            The y coordinate on the target image to which the generated image will be written.
+	 * @param palette
+	 *            The palette.
+	 * @param superSamplingFactor
+	 *            The AntiAliasing SuperSampling factor.
+	 * @param fractal
+	 *            The fractal.
+	 */
+	public VectorImageMaker(final int width, final int height, final double minReal, final double maxReal,
+			final double minImag, final double maxImag, final int maxPasses, final BufferedImage target,
+			final int targetX, final int targetY, final ColorPalette palette, final byte superSamplingFactor,
+			CifFractal fractal) {
+		super(width, height, minReal, maxReal, minImag, maxImag, maxPasses, target, targetX, targetY, palette,
+				superSamplingFactor, fractal);
+	}
+
+	/**
+	 * Calculates the passes of the specified samples.
+	 *
+	 * @param real
+	 *            The real parts of the samples.
+	 * @param imag
+	 *            The imaginary parts of the samples.
+	 * @param count
+	 *            The number of samples.
+	 * @param passes
+	 *            The array to which the passes are written.
+	 */
+	protected abstract void calculatePasses(double[] real, double[] imag, int count, int[] passes);
+
+	/**
+	 * Calculates the passes of the specified samples like {@link #calculatePasses(double[], double[], int, int[])}, in
+	 * the order of their predicted passes if there are any.
+	 *
+	 * @param costs
+	 *            The predicted passes of the samples, or <code>null</code>.
+	 */
+	private void calculatePasses(final double[] real, final double[] imag, final int count, final int[] passes,
+			final int[] costs) {
+		if (costs == null) {
+			calculatePasses(real, imag, count, passes);
+			return;
+		}
+		if (order.length < count) {
+			order = new long[real.length];
+			sortedReal = new double[real.length];
+			sortedImag = new double[real.length];
+			sortedPasses = new int[real.length];
+		}
+		// the predicted passes in the upper half, the index of the sample in the lower half
+		for (int sample = 0; sample < count; sample++)
+			order[sample] = (long) costs[sample] << 32 | sample;
+		Arrays.sort(order, 0, count);
+		for (int i = 0; i < count; i++) {
+			sortedReal[i] = real[(int) order[i]];
+			sortedImag[i] = imag[(int) order[i]];
+		}
+		calculatePasses(sortedReal, sortedImag, count, sortedPasses);
+		for (int i = 0; i < count; i++)
+			passes[(int) order[i]] = sortedPasses[i];
+	}
+
+	/**
+	 * Calculates the unknown samples together, moved to the front of new arrays.
+	 */
+	@Override
+	void calculateSamples(final double[] real, final double[] imag, final int[] passes) {
+		final double[] unknownReal = new double[passes.length];
+		final double[] unknownImag = new double[passes.length];
+		final int[] unknown = new int[passes.length];
+		int unknownCount = 0;
+		for (int sample = 0; sample < passes.length; sample++)
+			if (passes[sample] == SubImage.NO_SAMPLE) {
+				unknownReal[unknownCount] = real[sample];
+				unknownImag[unknownCount] = imag[sample];
+				unknown[unknownCount++] = sample;
+			}
+		final int[] unknownPasses = new int[unknownCount];
+		calculatePasses(unknownReal, unknownImag, unknownCount, unknownPasses);
+		for (int sample = 0; sample < unknownCount; sample++)
+			passes[unknown[sample]] = unknownPasses[sample];
+	}
+
+	@Override
+	public void run() {
+		final double factorR = (maxReal - minReal) / width;
+		final double factorI = (minImag - maxImag) / height; // imaginary scale goes up, but computer graphics y goes
+																// down, so min- and maxImag have to be swapped
+		final double deltaR = factorR / superSamplingFactor;
+		final double deltaI = factorI / superSamplingFactor;
+		final byte lessSuperSamplingFactor = (byte) (superSamplingFactor - 1);
+		final double rangeR = lessSuperSamplingFactor * deltaR / 2;
+		final double rangeI = lessSuperSamplingFactor * deltaI / 2;
+
+		// due to rounding errors, the SuperSampling loops might run once more or less per dimension
+		final int capacity = width * (superSamplingFactor + 1) * (superSamplingFactor + 1);
+		final double[] real = new double[capacity];
+		final double[] imag = new double[capacity];
+		final int[] passes = new int[capacity];
+		// the samples that can't be taken over from the last calculation or the previews, and their passes
+		final boolean reusing = reuse != null || previewReuse != null;
+		final int[] unknown = reusing ? new int[capacity] : null;
+		final int[] unknownPasses = reusing ? new int[capacity] : null;
+		// the predicted passes of the samples, which only help the vector kernels
+		final int[] costs = hint == null || !VECTOR_KERNELS_AVAILABLE ? null : new int[capacity];
+		final int[] pixelStarts = new int[width + 1];
+
+		double centerR, centerI, borderR, borderI;
+		double r, i;
+		int averageR, averageG, averageB;
+		int count;
+		int color;
+
+		for (int y = 0; y < height; y++) {
+			if (isInterrupted())
+				return;
+			// collect the samples of the whole row
+			count = 0;
+			centerI = y * factorI + maxImag;
+			borderI = centerI - rangeI;
+			for (int x = 0; x < width; x++) {
+				pixelStarts[x] = count;
+				centerR = x * factorR + minReal;
+				borderR = centerR + rangeR;
+				for (r = centerR - rangeR; r <= borderR; r += deltaR)
+					for (i = centerI + rangeI; i <= borderI; i -= deltaI) {
+						real[count] = r;
+						imag[count] = i;
+						if (costs != null)
+							costs[count] = hint.cost(targetX + x, targetY + y);
+						count++;
+					}
+			}
+			pixelStarts[width] = count;
+			if (!reusing)
+				calculatePasses(real, imag, count, passes, costs);
+			else {
+				// only calculate the unknown samples, moved to the front of the arrays
+				int unknownCount = 0;
+				for (int sample = 0; sample < count; sample++) {
+					passes[sample] = reusedPasses(real[sample], imag[sample]);
+					if (passes[sample] == SubImage.NO_SAMPLE) {
+						real[unknownCount] = real[sample];
+						imag[unknownCount] = imag[sample];
+						if (costs != null)
+							costs[unknownCount] = costs[sample];
+						unknown[unknownCount++] = sample;
+					}
+				}
+				calculatePasses(real, imag, unknownCount, unknownPasses, costs);
+				for (int sample = 0; sample < unknownCount; sample++)
+					passes[unknown[sample]] = unknownPasses[sample];
+			}
+			// the orbits of the samples are unknown
+			discardOrbit();
+			// and draw it
+			for (int x = 0; x < width; x++) {
+				averageR = averageG = averageB = 0;
+				for (int sample = pixelStarts[x]; sample < pixelStarts[x + 1]; sample++) {
+					storePasses(x, y, sample - pixelStarts[x], passes[sample]);
+					color = colors[passes[sample] + 1];
+					averageR += (color >> 16) & 0xFF;
+					averageG += (color >> 8) & 0xFF;
+					averageB += color & 0xFF;
+				}
+				final int averageDenominator = pixelStarts[x + 1] - pixelStarts[x];
+				drawPixel(x, y, rgb(averageR / averageDenominator, averageG / averageDenominator, averageB
+						/ averageDenominator));
+			}
+		}
+	}
+}
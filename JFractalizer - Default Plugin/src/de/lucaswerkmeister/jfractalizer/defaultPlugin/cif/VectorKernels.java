@@ -0,0 +1,121 @@
+/*
+ * JFractalizer, a Java Fractal Program. Copyright (C) 2012 Lucas Werkmeister
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package de.lucaswerkmeister.jfractalizer.defaultPlugin.cif;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The escape-time kernels of {@link CifImageMaker}, implemented with the (incubating) Vector API: A whole vector of
+ * samples is iterated at once, and samples that escaped are masked out.
+ * <p>
+ * This is the only class that references the Vector API; it is only loaded by name, as the
+ * {@link VectorImageMaker#VECTOR_KERNELS}, and is left out of builds without the Vector API.
+ * <p>
+ * The operations are carried out in the same order as in the scalar kernels, so the results are identical.
+ *
+ * @author Lucas Werkmeister
+ */
+final class VectorKernels implements EscapeTimeKernels {
+	private static final VectorSpecies<Double>	SPECIES	= DoubleVector.SPECIES_PREFERRED;
+
+	VectorKernels() {
+	}
+
+	@Override
+	public long mandelbrotPasses(final double[] cReal, final double[] cImag, final int count, final int maxPasses,
+			final double periodicityTolerance, final int[] passes) {
+		final DoubleVector zero = DoubleVector.zero(SPECIES);
+		long savedPasses = 0;
+		for (int offset = 0; offset < count; offset += SPECIES.length()) {
+			final VectorMask<Double> valid = SPECIES.indexInRange(offset, count);
+			final DoubleVector cR = DoubleVector.fromArray(SPECIES, cReal, offset, valid);
+			final DoubleVector cI = DoubleVector.fromArray(SPECIES, cImag, offset, valid);
+			savedPasses += iterate(zero, zero, cR, cI, valid, maxPasses, periodicityTolerance, passes, offset, count);
+		}
+		return savedPasses;
+	}
+
+	@Override
+	public long juliaPasses(final double[] zReal, final double[] zImag, final int count, final double cReal,
+			final double cImag, final int maxPasses, final double periodicityTolerance, final int[] passes) {
+		final DoubleVector cR = DoubleVector.broadcast(SPECIES, cReal);
+		final DoubleVector cI = DoubleVector.broadcast(SPECIES, cImag);
+		long savedPasses = 0;
+		for (int offset = 0; offset < count; offset += SPECIES.length()) {
+			final VectorMask<Double> valid = SPECIES.indexInRange(offset, count);
+			final DoubleVector zR = DoubleVector.fromArray(SPECIES, zReal, offset, valid);
+			final DoubleVector zI = DoubleVector.fromArray(SPECIES, zImag, offset, valid);
+			savedPasses += iterate(zR, zI, cR, cI, valid, maxPasses, periodicityTolerance, passes, offset, count);
+		}
+		return savedPasses;
+	}
+
+	private static long iterate(DoubleVector zReal, DoubleVector zImag, final DoubleVector cReal,
+			final DoubleVector cImag, final VectorMask<Double> valid, final int maxPasses,
+			final double periodicityTolerance, final int[] passes, final int offset, final int count) {
+		final DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+		DoubleVector zRealSquared = zReal.mul(zReal);
+		DoubleVector zImagSquared = zImag.mul(zImag);
+		// samples that escape count the passes up to that point, samples that never escape end up with -1
+		VectorMask<Double> active = zRealSquared.add(zImagSquared).compare(VectorOperators.LT, 4).and(valid);
+		VectorMask<Double> periodic = SPECIES.maskAll(false);
+		DoubleVector passesVector = DoubleVector.zero(SPECIES);
+		final boolean periodicityChecking = periodicityTolerance > 0;
+		DoubleVector savedReal = zReal, savedImag = zImag;
+		int period = 1, periodPasses = 0;
+		for (int p = 1; p <= maxPasses; p++) {
+			// checking whether any lane is still active is relatively expensive, so only do it every eight passes
+			if ((p & 7) == 0 && !active.anyTrue())
+				break;
+			passesVector = passesVector.add(one, active);
+			final DoubleVector zImagNew = zReal.mul(2).mul(zImag).add(cImag);
+			zReal = zRealSquared.sub(zImagSquared).add(cReal);
+			zImag = zImagNew;
+			zRealSquared = zReal.mul(zReal);
+			zImagSquared = zImag.mul(zImag);
+			active = active.and(zRealSquared.add(zImagSquared).compare(VectorOperators.LT, 4));
+			if (periodicityChecking) {
+				final VectorMask<Double> periodicNow = zReal.sub(savedReal).abs()
+						.compare(VectorOperators.LT, periodicityTolerance)
+						.and(zImag.sub(savedImag).abs().compare(VectorOperators.LT, periodicityTolerance)).and(active);
+				periodic = periodic.or(periodicNow);
+				active = active.andNot(periodicNow);
+				if (++periodPasses == period) {
+					savedReal = zReal;
+					savedImag = zImag;
+					periodPasses = 0;
+					period <<= 1;
+				}
+			}
+		}
+		// lanes are only deactivated when they escape or turn out to be periodic
+		final VectorMask<Double> escaped = valid.andNot(active).andNot(periodic);
+		long savedPasses = 0;
+		final int lanes = Math.min(SPECIES.length(), count - offset);
+		for (int lane = 0; lane < lanes; lane++) {
+			final int lanePasses = (int) passesVector.lane(lane);
+			if (escaped.laneIsSet(lane))
+				passes[offset + lane] = lanePasses;
+			else {
+				passes[offset + lane] = -1;
+				if (periodic.laneIsSet(lane))
+					savedPasses += maxPasses - lanePasses;
+			}
+		}
+		return savedPasses;
+	}
+}
@@ -47,6 +47,14 @@ public abstract class EditDialogPalette implements ActionListener, ColorPalette
 		}
 	}
 
+	@Override
+	public int[] compile(final int maxPasses) {
+		final int[] colors = new int[maxPasses + 2];
+		for (int passes = -1; passes <= maxPasses; passes++)
+			colors[passes + 1] = getRgb(passes);
+		return colors;
+	}
+
 	protected abstract PaletteEditDialog makeEditDialog(Frame owner);
 
 	public static abstract class PaletteEditDialog extends Dialog {
@@ -71,7 +71,14 @@ public class HsbRotatePalette extends EditDialogPalette {
 	public Color getColor(int passes) {
 		if (passes == -1)
 			return coreColor;
-		return Color.getHSBColor(hueStart + hueFactor * passes, saturation, brightness);
+		return new Color(getRgb(passes));
+	}
+
+	@Override
+	public int getRgb(int passes) {
+		if (passes == -1)
+			return coreColor.getRGB();
+		return Color.HSBtoRGB(hueStart + hueFactor * passes, saturation, brightness);
 	}
 
 	@Override
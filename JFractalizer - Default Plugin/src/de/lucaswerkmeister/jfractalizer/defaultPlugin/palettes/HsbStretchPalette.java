@@ -76,12 +76,19 @@ public class HsbStretchPalette extends EditDialogPalette {
 	public Color getColor(int passes) {
 		if (passes == -1)
 			return coreColor;
+		return new Color(getRgb(passes));
+	}
+
+	@Override
+	public int getRgb(int passes) {
+		if (passes == -1)
+			return coreColor.getRGB();
 		double passes1p = passes + 1.0; // this formula doesn’t work well for 0
 		double log = Math.floor(Math.log(passes1p) / Math.log(hueBaseWidth));
 		double lower = Math.pow(hueBaseWidth, log);
 		double upper = Math.pow(hueBaseWidth, log + 1.0);
 		float rotation = (float) ((passes - lower) / (upper - lower));
-		return Color.getHSBColor(hueStart + rotation, saturation, brightness);
+		return Color.HSBtoRGB(hueStart + rotation, saturation, brightness);
 	}
 
 	@Override
@@ -17,7 +17,6 @@ import static de.lucaswerkmeister.jfractalizer.framework.Log.log;
 
 import java.awt.Color;
 import java.awt.Frame;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -34,7 +33,7 @@ import de.lucaswerkmeister.jfractalizer.framework.IllegalCommandLineException;
 
 public class NodePalette extends EditDialogPalette {
 	final List<ColorNode>	nodes;
-	final List<Color>		fastColorStorage;
+	private volatile int[]	fastRgbStorage;
 	Color					coreColor;
 	boolean					fromCommandLine		= false;
 	public static final int	LOG_CLASS_PREFIX	= DefaultPlugin.LOG_PLUGIN_PREFIX + (((4 << 5) + (6 << 0)) << 8);
@@ -47,14 +46,12 @@ public class NodePalette extends EditDialogPalette {
 	public NodePalette(final List<ColorNode> nodes, final Color coreColor) {
 		this.nodes = nodes;
 		this.coreColor = coreColor;
-		fastColorStorage = new ArrayList<>(nodes.size() * nodes.get(0).getLength());
 		makeFastStorage();
 	}
 
 	public NodePalette() {
 		nodes = new LinkedList<>();
 		nodes.add(new ColorNode(Color.red, Color.yellow, 16));
-		fastColorStorage = new ArrayList<>();
 		coreColor = Color.black;
 		makeFastStorage();
 	}
@@ -63,27 +60,34 @@ public class NodePalette extends EditDialogPalette {
 	public Color getColor(final int passes) {
 		if (passes == -1)
 			return coreColor;
-		try {
-			return fastColorStorage.get(passes % fastColorStorage.size());
-		}
-		catch (final Exception e) {
-			makeFastStorage();
-			return fastColorStorage.get(passes % fastColorStorage.size());
-		}
+		return new Color(getRgb(passes), true);
+	}
+
+	@Override
+	public int getRgb(final int passes) {
+		if (passes == -1)
+			return coreColor.getRGB();
+		final int[] storage = fastRgbStorage;
+		return storage[passes % storage.length];
 	}
 
 	@Override
 	public void makeFastStorage() {
-		fastColorStorage.clear();
+		int length = 0;
+		for (final ColorNode node : nodes)
+			length += node.getLength();
+		final int[] storage = new int[length];
+		int i = 0;
 		for (final ColorNode node : nodes)
 			for (short s = 0; s < node.getLength(); s++) {
 				final double endFactor = (double) s / (node.getLength() - 1);
 				final double startFactor = 1 - endFactor;
-				fastColorStorage.add(new Color((int) Math.round(startFactor * node.getStartColor().getRed() + endFactor
+				storage[i++] = new Color((int) Math.round(startFactor * node.getStartColor().getRed() + endFactor
 						* node.getEndColor().getRed()), (int) Math.round(startFactor * node.getStartColor().getGreen()
 						+ endFactor * node.getEndColor().getGreen()), (int) Math.round(startFactor
-						* node.getStartColor().getBlue() + endFactor * node.getEndColor().getBlue())));
+						* node.getStartColor().getBlue() + endFactor * node.getEndColor().getBlue())).getRGB();
 			}
+		fastRgbStorage = storage;
 	}
 
 	@Override
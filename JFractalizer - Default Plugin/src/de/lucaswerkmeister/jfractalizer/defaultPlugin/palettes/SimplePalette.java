@@ -17,8 +17,6 @@ import static de.lucaswerkmeister.jfractalizer.framework.Log.log;
 
 import java.awt.Color;
 import java.awt.Frame;
-import java.util.ArrayList;
-import java.util.List;
 
 import javax.xml.transform.sax.TransformerHandler;
 
@@ -34,7 +32,7 @@ public class SimplePalette extends EditDialogPalette {
 	Color						startColor;
 	Color						endColor;
 	int							colorSteps;
-	private final List<Color>	fastColorStorage;
+	private volatile int[]		fastRgbStorage;
 	public static final int		LOG_CLASS_PREFIX	= DefaultPlugin.LOG_PLUGIN_PREFIX + (((4 << 5) + (3 << 0)) << 8);
 	public static final int		LOG_SAVING			= LOG_CLASS_PREFIX + 0;
 
@@ -47,7 +45,6 @@ public class SimplePalette extends EditDialogPalette {
 		this.startColor = startColor;
 		this.endColor = endColor;
 		this.colorSteps = colorSteps;
-		fastColorStorage = new ArrayList<>(colorSteps);
 		makeFastStorage();
 	}
 
@@ -55,25 +52,28 @@ public class SimplePalette extends EditDialogPalette {
 	public Color getColor(final int passes) {
 		if (passes == -1)
 			return coreColor;
-		try {
-			return fastColorStorage.get(passes % colorSteps);
-		}
-		catch (final Exception e) {
-			makeFastStorage();
-			return fastColorStorage.get(passes % colorSteps);
-		}
+		return new Color(getRgb(passes), true);
+	}
+
+	@Override
+	public int getRgb(final int passes) {
+		if (passes == -1)
+			return coreColor.getRGB();
+		final int[] storage = fastRgbStorage;
+		return storage[passes % storage.length];
 	}
 
 	@Override
 	public void makeFastStorage() {
-		fastColorStorage.clear();
+		final int[] storage = new int[colorSteps];
 		final double lessColorSteps = colorSteps - 1;
-		for (short s = 0; s < colorSteps; s++)
-			fastColorStorage.add(new Color((int) Math.round(((colorSteps - 1 - s) / lessColorSteps)
-					* startColor.getRed() + (s / lessColorSteps) * endColor.getRed()), (int) Math
-					.round(((colorSteps - 1 - s) / lessColorSteps) * startColor.getGreen() + (s / lessColorSteps)
-							* endColor.getGreen()), (int) Math.round(((colorSteps - 1 - s) / lessColorSteps)
-					* startColor.getBlue() + (s / lessColorSteps) * endColor.getBlue())));
+		for (short s = 0; s < colorSteps; s++) {
+			final double startFactor = (colorSteps - 1 - s) / lessColorSteps, endFactor = s / lessColorSteps;
+			storage[s] = new Color((int) Math.round(startFactor * startColor.getRed() + endFactor * endColor.getRed()),
+					(int) Math.round(startFactor * startColor.getGreen() + endFactor * endColor.getGreen()),
+					(int) Math.round(startFactor * startColor.getBlue() + endFactor * endColor.getBlue())).getRGB();
+		}
+		fastRgbStorage = storage;
 	}
 
 	@Override
@@ -11,6 +11,11 @@ shopt -s globstar
 
 (
     cd 'JFractalizer - Default Plugin'
-    javac -d bin -cp '../JFractalizer - Core/bin' src/**/*.java
+    # the vector kernels need the incubating Vector API; without it, they're skipped and the scalar kernels are used
+    if java --list-modules 2>/dev/null | grep -q '^jdk\.incubator\.vector@'; then
+        javac -d bin -cp '../JFractalizer - Core/bin' --add-modules jdk.incubator.vector src/**/*.java
+    else
+        javac -d bin -cp '../JFractalizer - Core/bin' $(printf '%s\n' src/**/*.java | grep -v '/VectorKernels\.java$')
+    fi
     cp -r src/META-INF bin/
 )
@@ -1,3 +1,9 @@
 #!/bin/sh
 
-exec java -cp "JFractalizer - Core/bin:JFractalizer - Default Plugin/bin" de.lucaswerkmeister.jfractalizer.core.Core "$@"
+if java --list-modules 2>/dev/null | grep -q '^jdk\.incubator\.vector@'; then
+    set -- --add-modules jdk.incubator.vector de.lucaswerkmeister.jfractalizer.core.Core "$@"
+else
+    set -- de.lucaswerkmeister.jfractalizer.core.Core "$@"
+fi
+
+exec java -cp "JFractalizer - Core/bin:JFractalizer - Default Plugin/bin" "$@"